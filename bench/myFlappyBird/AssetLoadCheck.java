@@ -0,0 +1,48 @@
+package myFlappyBird;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+/**
+ * Checks that no image is read from disk once Assets.load() has returned. It loads everything, then plays a few thousand ticks of real games the
+ * way the window does: a new renderer and game, pipes spawning and going off screen, crashes and restarts, with every frame drawn into an
+ * offscreen image. Assets.getDecodeCount() has to be exactly what it was right after loading, or this fails.
+ *
+ * Usage: AssetLoadCheck [ticks]
+ * Exits with status 1 if anything was decoded after startup.
+ */
+public class AssetLoadCheck {
+	private static final int WIDTH = 600, HEIGHT = 800;
+
+	public static void main(String args[]) throws Exception {
+		int ticks = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+		Assets.load();
+		int decodedAtStartup = Assets.getDecodeCount();
+
+		//loading again has to hand back what's already there
+		Assets.load();
+
+		GameRenderer renderer = new GameRenderer(WIDTH, HEIGHT);
+		GameState game = renderer.newGameState();
+		BufferedImage frame = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = frame.createGraphics();
+		int restarts = 0;
+		for(int tick = 0; tick < ticks; tick++) {
+			boolean wasOver = game.isGameOver();
+			game.step(HeadlessGame.shouldFlap(game) || game.isGameOver());
+			if(wasOver && !game.isGameOver())
+				restarts++;
+			renderer.draw(g, game, 0.5, null);
+		}
+		g.dispose();
+
+		int decodedAfter = Assets.getDecodeCount() - decodedAtStartup;
+		System.out.printf("%d images decoded at startup, %d after it, over %d ticks and %d restarts%n", decodedAtStartup, decodedAfter, ticks,
+				restarts);
+		if(decodedAfter != 0) {
+			System.out.println("FAILED: images were decoded after Assets.load() returned");
+			System.exit(1);
+		}
+		System.out.println("OK");
+	}
+}
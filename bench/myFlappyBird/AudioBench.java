@@ -0,0 +1,91 @@
+package myFlappyBird;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Measures the AudioMixer without a sound card. First it mixes as fast as it can into a BufferSink that doesn't wait, with more and more voices
+ * playing at once, to show how much of the time between two chunks the mixing takes. Then it plays a game with no window at 60 ticks per second,
+ * with the autopilot from HeadlessGame pressing flap, and the mixer running on its own thread into a BufferSink that takes sound at the pace a sound
+ * card would. For every effect it prints how long it waited to be mixed, and how long the sink's buffer adds on top of that.
+ *
+ * Usage: AudioBench [seconds per run]
+ */
+public class AudioBench {
+	private static final int TICKS_PER_SECOND = 60;
+
+	public static void main(String args[]) throws Exception {
+		double seconds = args.length > 0 ? Double.parseDouble(args[0]) : 2;
+		SoundEffects effects = SoundEffects.load();
+		double chunkNanos = AudioMixer.CHUNK_FRAMES / SoundEffects.FORMAT.getFrameRate() * 1e9;
+
+		System.out.printf("one chunk is %d samples = %.2f ms of sound%n", AudioMixer.CHUNK_FRAMES, chunkNanos / 1e6);
+		System.out.printf("%-28s %14s %12s %12s %8s %8s%n", "benchmark", "chunks/s", "ns/chunk", "bytes/chunk", "gc", "gc ms");
+		int[] voiceCounts = {1, 4, AudioMixer.MAX_VOICES};
+		for(int voices : voiceCounts) {
+			final AudioMixer mixer = new AudioMixer(effects, new BufferSink(1 << 16, 0));
+			final int playing = voices;
+			Benchmarks.run("mixChunk, " + voices + " voices", seconds, new Benchmarks.Operation() {
+				int effect;
+
+				public long run() {
+					//keep the voices busy. Effects asked for here start in the chunk mixed right after.
+					for(int missing = playing - mixer.getPlayingVoices(); missing > 0; missing--)
+						mixer.play(effect++ % effects.size());
+					return mixer.mixChunk()[0];
+				}
+			});
+		}
+
+		playGame(effects, seconds);
+	}
+
+	//the game with sound, ticking in real time
+	private static void playGame(SoundEffects effects, double seconds) throws InterruptedException {
+		BufferSink sink = new BufferSink(1 << 20, AudioMixer.SINK_BUFFER_BYTES);
+		AudioMixer mixer = new AudioMixer(effects, sink);
+		int[] counts = new int[3];
+		GameState game = HeadlessGame.newGame(1);
+		game.setListener(new GameState.Listener() {
+			public void flapped() {
+				counts[SoundEffects.FLAP]++;
+				mixer.play(SoundEffects.FLAP);
+			}
+
+			public void scored() {
+				counts[SoundEffects.SCORE]++;
+				mixer.play(SoundEffects.SCORE);
+			}
+
+			public void crashed() {
+				counts[SoundEffects.HIT]++;
+				mixer.play(SoundEffects.HIT);
+			}
+		});
+
+		mixer.start();
+		long tickNanos = TimeUnit.SECONDS.toNanos(1) / TICKS_PER_SECOND, next = System.nanoTime();
+		long ticks = (long)(seconds * TICKS_PER_SECOND);
+		for(long i = 0; i < ticks; i++) {
+			game.step(HeadlessGame.shouldFlap(game));
+			if(game.isGameOver() && game.hitGround())
+				game.step(true);
+			next += tickNanos;
+			LockSupport.parkNanos(next - System.nanoTime());
+		}
+		mixer.stop();
+
+		//make sure something was actually heard
+		byte[] recent = new byte[(int)Math.min(sink.getWritten(), 1 << 20)];
+		sink.copyRecent(recent);
+		int peak = 0;
+		for(int i = 0; i + 1 < recent.length; i += 2)
+			peak = Math.max(peak, Math.abs((short)((recent[i] & 0xff) | (recent[i + 1] << 8))));
+
+		System.out.printf("%d ticks of a game: %d flaps, %d points, %d crashes, %.1f s of sound mixed, loudest sample %d%n", ticks,
+				counts[SoundEffects.FLAP], counts[SoundEffects.SCORE], counts[SoundEffects.HIT],
+				sink.getWritten() / (SoundEffects.FORMAT.getFrameRate() * SoundEffects.FORMAT.getFrameSize()), peak);
+		System.out.printf("waiting to be mixed: p50 %.2f ms, p99 %.2f ms, max %.2f ms, then %.2f ms in the sink's buffer%n",
+				mixer.getMixLatency(0.5) / 1e6, mixer.getMixLatency(0.99) / 1e6, mixer.getMixLatency(1) / 1e6, mixer.getSinkLatency() / 1e6);
+	}
+}
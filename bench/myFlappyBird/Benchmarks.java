@@ -0,0 +1,384 @@
+package myFlappyBird;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Micro benchmarks for the hot paths of the game: the bird's physics, the pipe checks, moving and spawning pipes with lots of them on screen, and
+ * drawing a whole frame into an offscreen image. Each benchmark is warmed up first so the JIT has compiled it, and then reports how many operations
+ * per second it ran, how long one took, how many bytes one allocated and how much garbage collection happened while it ran, so a change that slows
+ * down or starts allocating in one of these paths shows up as a number.
+ *
+ * This lives in its own source folder (bench) so it isn't part of the game itself. It needs the game's classes and, for the rendering benchmark,
+ * the images on the classpath:
+ *
+ *     javac -d out src/myFlappyBird/*.java bench/myFlappyBird/*.java
+ *     java -Djava.awt.headless=true -cp out:src myFlappyBird.Benchmarks [seconds per benchmark]
+ */
+public class Benchmarks {
+	private static final int WIDTH = 600, HEIGHT = 800;
+	private static final int OPS_PER_BATCH = 1000;
+	private static final int LIVE_PIPES = 100;
+
+	//results are written here so the JIT can't decide the work is unused and throw it away
+	static volatile long sink;
+
+	/**
+	 * One operation of a benchmark. The returned number is consumed so the work can't be optimized away.
+	 */
+	interface Operation {
+		long run();
+	}
+
+	public static void main(String args[]) throws Exception {
+		double seconds = args.length > 0 ? Double.parseDouble(args[0]) : 2;
+		System.out.printf("%-28s %14s %12s %12s %8s %8s%n", "benchmark", "ops/s", "ns/op", "bytes/op", "gc", "gc ms");
+
+		final Bird bird = newBird();
+		run("Bird.fall", seconds, new Operation() {
+			int tick;
+
+			public long run() {
+				//flap every now and then so the bird doesn't just sit on the ground
+				if(++tick % 20 == 0)
+					bird.flap();
+				bird.fall();
+				return bird.getY();
+			}
+		});
+
+		//birds at many different heights, so the collision checks can't be worked out once and reused
+		final Bird[] targets = new Bird[64];
+		for(int i = 0; i < targets.length; i++)
+			targets[i] = new Bird(WIDTH / 2, i * (HEIGHT - HeadlessGame.GROUND_HEIGHT) / targets.length, HEIGHT - HeadlessGame.GROUND_HEIGHT, -20,
+					HeadlessGame.BIRD_WIDTH, HeadlessGame.BIRD_HEIGHT, HeadlessGame.BIRD_FRAMES);
+		final Pipe pipe = new Pipe(WIDTH + WIDTH / 2, HEIGHT, HeadlessGame.PIPE_WIDTH, HeadlessGame.PIPE_IMAGE_HEIGHT);
+		pipe.reset(400, Pipe.PIPE_GAP, Pipe.SPEED);
+		run("Pipe.pipeHitsBird", seconds, new Operation() {
+			int i;
+
+			public long run() {
+				return pipe.pipeHitsBird(targets[i++ & (targets.length - 1)]) ? 1 : 0;
+			}
+		});
+		run("Pipe.pipeMeetsBird", seconds, new Operation() {
+			int i;
+
+			public long run() {
+				Bird target = targets[i++ & (targets.length - 1)];
+				pipe.pipeMeetsBird(target);
+				return target.getScore();
+			}
+		});
+
+		//the same question, "did the bird hit a pipe?", answered by the rectangle checks on every pipe and by the pixel masks with the broadphase
+		final PipeRing ring = pipesAroundBird();
+		run("rectangles, every pipe", seconds, new Operation() {
+			int i;
+
+			public long run() {
+				Bird target = targets[i++ & (targets.length - 1)];
+				long hits = 0;
+				for(int p = 0; p < ring.size(); p++)
+					hits += ring.get(p).pipeHitsBird(target) ? 1 : 0;
+				return hits;
+			}
+		});
+		final PixelCollision pixels = syntheticPixelCollision();
+		run("PixelCollision.hits", seconds, new Operation() {
+			int i;
+
+			public long run() {
+				return pixels.hits(targets[i++ & (targets.length - 1)], ring) ? 1 : 0;
+			}
+		});
+
+		//the swept versions of both, with birds that have just fallen a tick so there's a line to sweep along
+		final Bird[] falling = new Bird[targets.length];
+		for(int i = 0; i < falling.length; i++) {
+			falling[i] = new Bird(WIDTH / 2, i * (HEIGHT - HeadlessGame.GROUND_HEIGHT) / falling.length, HEIGHT - HeadlessGame.GROUND_HEIGHT, -20,
+					HeadlessGame.BIRD_WIDTH, HeadlessGame.BIRD_HEIGHT, HeadlessGame.BIRD_FRAMES);
+			if(i % 2 == 0)
+				falling[i].flap();
+			falling[i].fall();
+		}
+		run("swept rectangles, every pipe", seconds, new Operation() {
+			int i;
+
+			public long run() {
+				Bird target = falling[i++ & (falling.length - 1)];
+				double first = Pipe.NEVER;
+				for(int p = 0; p < ring.size(); p++)
+					first = Math.min(first, ring.get(p).timeOfImpact(target));
+				return Double.doubleToLongBits(first);
+			}
+		});
+		run("PixelCollision.timeOfImpact", seconds, new Operation() {
+			int i;
+
+			public long run() {
+				return Double.doubleToLongBits(pixels.timeOfImpact(falling[i++ & (falling.length - 1)], ring));
+			}
+		});
+
+		run("GameState.movePipes", seconds, new Operation() {
+			final GameState crowded = crowdedGame();
+
+			public long run() {
+				//once the pipes reach the bird one of them ends the game, so start over with the same pipe slots refilled
+				if(crowded.isGameOver())
+					fillWithPipes(crowded);
+				crowded.movePipes();
+				return crowded.getPipes().size();
+			}
+		});
+
+		final GameState spawning = HeadlessGame.newGame();
+		spawning.step(true);
+		run("GameState.addPipe", seconds, new Operation() {
+			public long run() {
+				//keep the spawn counter cycling so a pipe is added and an old one removed regularly, like in a real game
+				spawning.step(false);
+				if(spawning.isGameOver())
+					restart(spawning);
+				return spawning.getPipes().size();
+			}
+		});
+
+		//what the autopilot does thousands of times a tick: take a snapshot of a game with LIVE_PIPES pipes, step it, and put it back
+		run("GameState.save + restore", seconds, new Operation() {
+			final GameState crowded = crowdedGame();
+			final long[] snapshot = crowded.newSnapshot();
+
+			public long run() {
+				crowded.save(snapshot);
+				crowded.step(false);
+				crowded.restore(snapshot);
+				return crowded.getFrames();
+			}
+		});
+
+		if(loadAssets()) {
+			final GameRenderer renderer = new GameRenderer(WIDTH, HEIGHT);
+			final GameState game = renderer.newGameState();
+			final BufferedImage frame = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+			final Graphics2D g = frame.createGraphics();
+			run("GameRenderer.draw", seconds, new Operation() {
+				public long run() {
+					game.step(false);
+					renderer.draw(g, game, 0.5, null);
+					return frame.getRGB(WIDTH / 2, HEIGHT / 2);
+				}
+			});
+
+			//a whole frame the way FlappyBird draws it, score and FPS included. Once warmed up this should show 0 bytes/op.
+			final FrameRate fps = new FrameRate();
+			run("frame with score and FPS", seconds, new Operation() {
+				public long run() {
+					game.step(false);
+					renderer.draw(g, game, 0.5, null);
+					fps.calculateFPS(0);
+					fps.printFPS(g, WIDTH - 100, HEIGHT - 100);
+					return frame.getRGB(WIDTH / 2, HEIGHT / 2);
+				}
+			});
+
+			//the same frame through DirtyRenderer, redrawing only what changed. The playing game keeps flapping so the bird and the pipes keep moving.
+			final DirtyRenderer dirty = new DirtyRenderer(WIDTH, HEIGHT);
+			final GameState playing = renderer.newGameState();
+			final DirtyRenderer.Scene scene = new DirtyRenderer.Scene() {
+				public void draw(java.awt.Graphics sceneGraphics) {
+					renderer.draw(sceneGraphics, playing, 0.5, null);
+					fps.printFPS(sceneGraphics, WIDTH - 100, HEIGHT - 100);
+				}
+			};
+			run("dirty rectangle frame", seconds, new Operation() {
+				int tick;
+
+				public long run() {
+					playing.step(++tick % 20 == 0);
+					if(playing.isGameOver())
+						restart(playing);
+					fps.calculateFPS(0);
+					dirty.track(playing, 0.5, renderer);
+					dirty.damage(WIDTH - 100, HEIGHT - 125, 100, 35);
+					return dirty.paint(g, scene, 1);
+				}
+			});
+			System.out.printf("dirty rectangles redrew %.1f%% of the screen per frame on average%n", dirty.getAverageCoverage() * 100);
+
+			//the same frame at twice the size, like on a high resolution screen. The sprites are resized once when the renderer is made, so this should
+			//only cost as much more as there are more pixels, and allocate nothing.
+			final GameRenderer big = new GameRenderer(WIDTH, HEIGHT, 2);
+			final BufferedImage bigFrame = new BufferedImage(WIDTH * 2, HEIGHT * 2, BufferedImage.TYPE_INT_RGB);
+			final Graphics2D bigGraphics = bigFrame.createGraphics();
+			run("GameRenderer.draw at 2x", seconds, new Operation() {
+				public long run() {
+					game.step(false);
+					big.draw(bigGraphics, game, 0.5, null);
+					return bigFrame.getRGB(WIDTH, HEIGHT);
+				}
+			});
+
+			//how long resizing every sprite takes when the window changes size, the first time and once the sizes are cached
+			double[] scales = {0.75, 1.5, 2.5, 1.5, 0.75};
+			for(double scale : scales) {
+				long start = System.nanoTime();
+				new GameRenderer(WIDTH, HEIGHT, scale);
+				System.out.printf("resizing sprites to %.2fx took %.2f ms%n", scale, (System.nanoTime() - start) / 1e6);
+			}
+			SpriteCache cache = GameRenderer.getSpriteCache();
+			System.out.printf("sprite cache: %d KB, %d hits, %d misses, %d evicted%n", cache.getBytes() >> 10, cache.getHits(), cache.getMisses(),
+					cache.getEvictions());
+
+			//startup: decoding every image one after another, the way the game used to, against decoding them all at once like Assets.loadAsync()
+			int cores = Runtime.getRuntime().availableProcessors();
+			System.out.printf("decoding every image: %.1f ms on 1 thread, %.1f ms on %d threads (best of 5)%n", decodeTime(1), decodeTime(Math.max(2, cores)),
+					Math.max(2, cores));
+		}
+		else
+			System.out.println("GameRenderer.draw skipped: the game's images aren't on the classpath");
+	}
+
+	private static Bird newBird() {
+		return new Bird(WIDTH / 2, HEIGHT / 2, HEIGHT - HeadlessGame.GROUND_HEIGHT, -20, HeadlessGame.BIRD_WIDTH, HeadlessGame.BIRD_HEIGHT,
+				HeadlessGame.BIRD_FRAMES);
+	}
+
+	//two pipes: one level with the bird, and the next one still on its way
+	private static PipeRing pipesAroundBird() {
+		PipeRing ring = new PipeRing(4, WIDTH + WIDTH / 2, HEIGHT, HeadlessGame.PIPE_WIDTH, HeadlessGame.PIPE_IMAGE_HEIGHT);
+		ring.spawn(300);
+		movePipes(ring, GameState.PIPE_SPAWN_TICKS);
+		ring.spawn(450);
+		movePipes(ring, 25);
+		return ring;
+	}
+
+	private static void movePipes(PipeRing ring, int ticks) {
+		for(int t = 0; t < ticks; t++) {
+			for(int p = 0; p < ring.size(); p++)
+				ring.get(p).movePipe();
+		}
+	}
+
+	//masks the size of the bundled sprites: a round bird and completely solid pipes, so this doesn't need the images
+	private static PixelCollision syntheticPixelCollision() {
+		int birdWidth = HeadlessGame.BIRD_WIDTH, birdHeight = HeadlessGame.BIRD_HEIGHT;
+		int[] birdPixels = new int[birdWidth * birdHeight];
+		for(int y = 0; y < birdHeight; y++) {
+			for(int x = 0; x < birdWidth; x++) {
+				double dx = (x - (birdWidth - 1) / 2.0) / (birdWidth / 2.0), dy = (y - (birdHeight - 1) / 2.0) / (birdHeight / 2.0);
+				birdPixels[y * birdWidth + x] = dx * dx + dy * dy <= 1 ? 0xff000000 : 0;
+			}
+		}
+		int[] pipePixels = new int[HeadlessGame.PIPE_WIDTH * HeadlessGame.PIPE_IMAGE_HEIGHT];
+		java.util.Arrays.fill(pipePixels, 0xff000000);
+
+		CollisionMask bird = CollisionMask.fromArgb(birdPixels, birdWidth, birdHeight);
+		CollisionMask pipe = CollisionMask.fromArgb(pipePixels, HeadlessGame.PIPE_WIDTH, HeadlessGame.PIPE_IMAGE_HEIGHT);
+		return new PixelCollision(new CollisionMask[] {bird, bird, bird}, pipe, pipe);
+	}
+
+	//a game with room for LIVE_PIPES pipes, all of them in use
+	private static GameState crowdedGame() {
+		GameState game = new GameState(WIDTH, HEIGHT, HeadlessGame.GROUND_WIDTH, HeadlessGame.GROUND_HEIGHT, HeadlessGame.BIRD_WIDTH,
+				HeadlessGame.BIRD_HEIGHT, HeadlessGame.BIRD_FRAMES, HeadlessGame.PIPE_WIDTH, HeadlessGame.PIPE_IMAGE_HEIGHT,
+				HeadlessGame.PIPE_IMAGE_HEIGHT, LIVE_PIPES);
+		fillWithPipes(game);
+		return game;
+	}
+
+	//restarts the game and lines up LIVE_PIPES pipes off the right side of the screen
+	private static void fillWithPipes(GameState game) {
+		game.restart();
+		game.step(true);
+		while(game.getPipes().size() < LIVE_PIPES)
+			game.getPipes().spawn(400);
+	}
+
+	//presses until a finished game has started again
+	private static void restart(GameState game) {
+		while(!game.isGameStarted() || game.isGameOver())
+			game.step(true);
+	}
+
+	//the fastest of a few runs of decoding every image on a pool of the given size, in milliseconds
+	private static double decodeTime(int threads) {
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		long best = Long.MAX_VALUE;
+		for(int i = 0; i < 5; i++) {
+			long start = System.nanoTime();
+			Assets.decodeAll(pool).join();
+			best = Math.min(best, System.nanoTime() - start);
+		}
+		pool.shutdown();
+		return best / 1e6;
+	}
+
+	private static boolean loadAssets() {
+		try {
+			Assets.load();
+			return true;
+		} catch (Exception e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Warms the operation up for a second, then runs it in batches for the given number of seconds and prints the results.
+	 */
+	static void run(String name, double seconds, Operation operation) {
+		long warmUpEnd = System.nanoTime() + 1000000000L;
+		while(System.nanoTime() < warmUpEnd)
+			batch(operation);
+
+		long gcCount = gcCount(), gcTime = gcTime();
+		long allocated = allocatedBytes();
+		long start = System.nanoTime(), end = start + (long)(seconds * 1e9), ops = 0, now;
+		do {
+			batch(operation);
+			ops += OPS_PER_BATCH;
+		} while((now = System.nanoTime()) < end);
+		allocated = allocatedBytes() - allocated;
+
+		double elapsed = (now - start) / 1e9;
+		System.out.printf("%-28s %14.0f %12.2f %12.2f %8d %8d%n", name, ops / elapsed, elapsed * 1e9 / ops, (double)allocated / ops,
+				gcCount() - gcCount, gcTime() - gcTime);
+	}
+
+	private static void batch(Operation operation) {
+		long result = 0;
+		for(int i = 0; i < OPS_PER_BATCH; i++)
+			result += operation.run();
+		sink = result;
+	}
+
+	//bytes allocated by this thread so far, or 0 if the JVM can't tell us
+	private static long allocatedBytes() {
+		java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		if(threads instanceof com.sun.management.ThreadMXBean)
+			return ((com.sun.management.ThreadMXBean)threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+		return 0;
+	}
+
+	private static long gcCount() {
+		long count = 0;
+		List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+		for(GarbageCollectorMXBean collector : collectors)
+			count += Math.max(0, collector.getCollectionCount());
+		return count;
+	}
+
+	private static long gcTime() {
+		long time = 0;
+		for(GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans())
+			time += Math.max(0, collector.getCollectionTime());
+		return time;
+	}
+}
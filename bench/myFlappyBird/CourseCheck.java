@@ -0,0 +1,140 @@
+package myFlappyBird;
+
+import java.util.PrimitiveIterator;
+import java.util.SplittableRandom;
+
+/**
+ * Checks the Course and Difficulty.ramp() against what they promise. Course.bottomPipeHeight() works out any pipe straight from its number, so it has
+ * to hand out exactly the numbers a SplittableRandom made from the same seed would, in order, and bottomPipeHeights() has to agree with it however
+ * far along the course it starts. Then games are played with a ramp, restarting whenever the bird crashes, and every pipe has to come out with the
+ * height its course number gives it and the gap and speed its number in the run gives it, never closer to the pipe in front than minSpacing(). Games
+ * with a ramp can't be recorded, so ReplayRecorder has to refuse one.
+ *
+ * Usage: CourseCheck [ticks]
+ * Exits with status 1 if anything didn't match.
+ */
+public class CourseCheck {
+	private static final int LOOKUPS = 100000;
+
+	//a ramp steep enough that a short run already goes through a few gaps and speeds
+	private static final Difficulty RAMP = Difficulty.ramp(160, 110, 4, 7, 2, 70);
+
+	private static int failures;
+
+	public static void main(String args[]) {
+		long ticks = args.length > 0 ? Long.parseLong(args[0]) : 2000000L;
+
+		//looking up pipe i directly against drawing the numbers one after the other, from the start and from far along the course
+		for(long seed : new long[] {0, 1, -1, 42, 0x9e3779b97f4a7c15L}) {
+			Course course = new Course(seed, HeadlessGame.GROUND_HEIGHT, HeadlessGame.PIPE_IMAGE_HEIGHT, RAMP);
+			SplittableRandom random = new SplittableRandom(seed);
+			for(int i = 0; i < LOOKUPS; i++) {
+				long drawn = random.nextLong();
+				if(course.nextLong(i) != drawn) {
+					fail("seed " + seed + ", pipe " + i + ": looked up " + course.nextLong(i) + " but SplittableRandom drew " + drawn);
+					break;
+				}
+			}
+			for(long from : new long[] {0, 12345, 1L << 40, Long.MAX_VALUE - LOOKUPS}) {
+				PrimitiveIterator.OfInt heights = course.bottomPipeHeights(from).limit(LOOKUPS).iterator();
+				for(long i = from; heights.hasNext(); i++) {
+					int height = heights.nextInt();
+					if(height != course.bottomPipeHeight(i) || height < HeadlessGame.GROUND_HEIGHT + 100 || height > HeadlessGame.PIPE_IMAGE_HEIGHT) {
+						fail("seed " + seed + ", pipe " + i + ": the stream gave " + height + ", the lookup " + course.bottomPipeHeight(i));
+						break;
+					}
+				}
+			}
+		}
+
+		//a pipe far along the course should cost the same to look up as the first one
+		Course course = new Course(7, HeadlessGame.GROUND_HEIGHT, HeadlessGame.PIPE_IMAGE_HEIGHT, RAMP);
+		System.out.printf("looking up pipe 0: %.1f ns, pipe 2^50: %.1f ns%n", lookupNanos(course, 0), lookupNanos(course, 1L << 50));
+
+		playRamp(ticks);
+
+		try {
+			new ReplayRecorder(newGame(1));
+			fail("ReplayRecorder recorded a game with a ramp, which Replay would play back as Difficulty.CLASSIC");
+		} catch(IllegalArgumentException e) {
+		}
+
+		if(failures > 0) {
+			System.out.println("FAILED: " + failures + " mismatches");
+			System.exit(1);
+		}
+		System.out.println("OK");
+	}
+
+	//plays games with the ramp, checking every pipe as it appears
+	private static void playRamp(long ticks) {
+		GameState game = newGame(3);
+		Course course = game.getCourse();
+		long checkedUpTo = game.getNextPipeIndex();
+		int inRun = 1, furthest = 0, smallestGap = Integer.MAX_VALUE, fastest = 0, pipes = 0;
+		checkPipe(game, course, checkedUpTo - 1, 0);
+		for(long tick = 0; tick < ticks && failures == 0; tick++) {
+			boolean wasOver = game.isGameOver();
+			game.step(HeadlessGame.shouldFlap(game) || game.isGameOver() && game.hitGround());
+			if(game.getNextPipeIndex() == checkedUpTo)
+				continue;
+
+			//a restart puts the first pipe of the new run on the screen straight away
+			if(wasOver && !game.isGameOver())
+				inRun = 0;
+			checkedUpTo = game.getNextPipeIndex();
+			PipeRing ring = game.getPipes();
+			Pipe newest = ring.get(ring.size() - 1);
+			smallestGap = Math.min(smallestGap, newest.getBottomY() - newest.getTopY() - HeadlessGame.PIPE_IMAGE_HEIGHT);
+			fastest = Math.max(fastest, game.scrollSpeed());
+			furthest = Math.max(furthest, inRun);
+			checkPipe(game, course, checkedUpTo - 1, inRun++);
+			pipes++;
+		}
+		System.out.printf("%d pipes checked, furthest pipe in a run %d, smallest gap %d, fastest speed %d%n", pipes, furthest, smallestGap, fastest);
+		if(furthest < 8)
+			fail("no run got far enough along the ramp to change its speed");
+	}
+
+	//the newest pipe on the screen has to be course pipe index, which is pipe number inRun of its run
+	private static void checkPipe(GameState game, Course course, long index, int inRun) {
+		PipeRing ring = game.getPipes();
+		Pipe newest = ring.get(ring.size() - 1);
+		int bottomHeight = HeadlessGame.HEIGHT - newest.getBottomY();
+		int gap = newest.getBottomY() - newest.getTopY() - HeadlessGame.PIPE_IMAGE_HEIGHT;
+		if(bottomHeight != course.bottomPipeHeight(index))
+			fail("pipe " + index + " is " + bottomHeight + " tall, the course says " + course.bottomPipeHeight(index));
+		if(gap != RAMP.gap(inRun))
+			fail("pipe " + inRun + " of a run has a gap of " + gap + ", the ramp says " + RAMP.gap(inRun));
+		if(game.scrollSpeed() != RAMP.speed(inRun))
+			fail("pipe " + inRun + " of a run moves " + game.scrollSpeed() + " a tick, the ramp says " + RAMP.speed(inRun));
+		if(ring.size() > 1 && newest.getX() - ring.get(ring.size() - 2).getX() < RAMP.minSpacing())
+			fail("pipe " + inRun + " of a run is closer than " + RAMP.minSpacing() + " to the one in front of it");
+	}
+
+	private static double lookupNanos(Course course, long index) {
+		long sum = 0;
+		int rounds = 5000000;
+		//warm up first, so both are timed compiled
+		for(int i = 0; i < rounds; i++)
+			sum += course.bottomPipeHeight(index + (i & 1023));
+		long start = System.nanoTime();
+		for(int i = 0; i < rounds; i++)
+			sum += course.bottomPipeHeight(index + (i & 1023));
+		double nanos = (System.nanoTime() - start) / (double)rounds;
+		if(sum == 42)
+			System.out.println();
+		return nanos;
+	}
+
+	private static GameState newGame(long seed) {
+		return new GameState(HeadlessGame.WIDTH, HeadlessGame.HEIGHT, HeadlessGame.GROUND_WIDTH, HeadlessGame.GROUND_HEIGHT, HeadlessGame.BIRD_WIDTH,
+				HeadlessGame.BIRD_HEIGHT, HeadlessGame.BIRD_FRAMES, HeadlessGame.PIPE_WIDTH, HeadlessGame.PIPE_IMAGE_HEIGHT,
+				HeadlessGame.PIPE_IMAGE_HEIGHT, GameState.pipesOnScreen(HeadlessGame.WIDTH, RAMP), seed, RAMP);
+	}
+
+	private static void fail(String message) {
+		System.out.println(message);
+		failures++;
+	}
+}
@@ -0,0 +1,107 @@
+package myFlappyBird;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Checks that the game creates no garbage once it's running. A real GameLoop drives a game the way FlappyBird does, with every frame drawn into an
+ * offscreen image: the game, the score and the FPS counter, with the loop's timings going to the FrameRate. After a warm up, so the JIT has compiled
+ * everything, the bytes allocated by the loop's thread are counted over a few thousand frames, and there have to be none.
+ *
+ * Now and then the JIT throws away some compiled drawing code and runs it slowly for a moment while it compiles it again, and the slow version
+ * allocates a Rectangle or two that the compiled one doesn't. That's not the game making garbage, so the frames are counted up to three times and
+ * one stretch with nothing allocated is enough. Anything allocated every frame, or even once a second, shows up in all of them.
+ *
+ * Usage: FrameAllocationCheck [frames measured]
+ * Exits with status 1 if anything was allocated. Flight Recorder must not be recording, since its events are objects.
+ */
+public class FrameAllocationCheck {
+	private static final int WIDTH = 600, HEIGHT = 800;
+	private static final int WARM_UP_FRAMES = 20000;
+	private static final int ATTEMPTS = 3;
+
+	public static void main(String args[]) throws Exception {
+		int measured = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+		java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		if(!(threads instanceof com.sun.management.ThreadMXBean)) {
+			System.out.println("This JVM can't count allocated bytes per thread");
+			System.exit(1);
+		}
+		Harness harness = new Harness((com.sun.management.ThreadMXBean)threads, measured);
+
+		//lots of ticks, so the game moves, pipes come and go and the bird crashes and restarts, and frames as fast as they can be drawn
+		GameLoop loop = new GameLoop(harness, 600, 0);
+		loop.setFrameRate(harness.fps);
+		loop.start();
+		harness.done.await();
+		loop.stop();
+
+		long bytes = 0;
+		for(int i = 0; i < harness.attempts; i++) {
+			bytes = harness.allocated[i];
+			System.out.printf("%d bytes allocated over %d frames (%.2f bytes/frame) and %d ticks%n", bytes, measured, (double)bytes / measured,
+					harness.ticks[i]);
+		}
+		if(bytes != 0) {
+			System.out.println("FAILED: frames allocate in steady state");
+			System.exit(1);
+		}
+		System.out.println("OK");
+	}
+
+	/**
+	 * The parts of FlappyBird a frame goes through, without the window.
+	 */
+	private static class Harness implements GameLoop.Game {
+		final FrameRate fps = new FrameRate();
+		final CountDownLatch done = new CountDownLatch(1);
+		private final com.sun.management.ThreadMXBean threads;
+		private final int measured;
+		private final GameRenderer renderer;
+		private final GameState game;
+		private final Graphics2D g;
+		private int frames, tick, tickBefore;
+		private long allocatedBefore;
+		final long[] allocated = new long[ATTEMPTS];
+		final int[] ticks = new int[ATTEMPTS];
+		int attempts;
+
+		Harness(com.sun.management.ThreadMXBean threads, int measured) throws Exception {
+			this.threads = threads;
+			this.measured = measured;
+			Assets.load();
+			renderer = new GameRenderer(WIDTH, HEIGHT);
+			game = renderer.newGameState();
+			g = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB).createGraphics();
+		}
+
+		public void update() {
+			game.step(HeadlessGame.shouldFlap(game) || game.isGameOver());
+			tick++;
+		}
+
+		public void render(double alpha) {
+			fps.calculateFPS(0);
+			renderer.draw(g, game, alpha, null);
+			fps.printFPS(g, WIDTH - 100, HEIGHT - 100);
+
+			frames++;
+			if(frames < WARM_UP_FRAMES || (frames - WARM_UP_FRAMES) % measured != 0 || attempts == ATTEMPTS)
+				return;
+			long now = threads.getCurrentThreadAllocatedBytes();
+			if(frames > WARM_UP_FRAMES) {
+				allocated[attempts] = now - allocatedBefore;
+				ticks[attempts] = tick - tickBefore;
+				if(allocated[attempts++] == 0 || attempts == ATTEMPTS) {
+					done.countDown();
+					return;
+				}
+			}
+			//read the counter again, so its own garbage isn't counted
+			allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+			tickBefore = tick;
+		}
+	}
+}
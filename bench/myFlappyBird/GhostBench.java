@@ -0,0 +1,122 @@
+package myFlappyBird;
+
+import java.awt.AlphaComposite;
+import java.awt.Composite;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.SplittableRandom;
+
+/**
+ * How long a frame takes to draw with more and more ghosts on the screen. The ghosts are real runs, played without a window by an Autopilot on a
+ * short budget, on a different course each, with a flap now and then left out or thrown in so they don't all fly the same line. The frame is drawn
+ * a few seconds into a new run, when most of them are still flying.
+ *
+ * Every count is drawn two ways: by GameRenderer itself, in one pass sorted by sprite with sprites faded ahead of time, and the way one bird is
+ * drawn, which is what ghosts would be without it: a separate image and a drawImage() per ghost, made see-through with an AlphaComposite. The first
+ * should also show 0 bytes/op.
+ *
+ * Usage: GhostBench [seconds per benchmark]
+ * The images need to be on the classpath.
+ */
+public class GhostBench {
+	private static final int WIDTH = 600, HEIGHT = 800;
+	private static final int[] GHOST_COUNTS = {0, 10, 100, 300, 1000};
+	private static final int MAX_TICKS = 60 * 10, DRAWN_TICK = 60 * 5;
+	private static final long AUTOPILOT_BUDGET_MICROS = 50;
+
+	public static void main(String args[]) throws Exception {
+		double seconds = args.length > 0 ? Double.parseDouble(args[0]) : 2;
+		Assets.load();
+		final GameRenderer renderer = new GameRenderer(WIDTH, HEIGHT);
+		final BufferedImage frame = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+		final Graphics2D g = frame.createGraphics();
+
+		//the naive way's sprites: each frame of the bird turned to each pose, as images of their own
+		final int step = Integer.getInteger("flappy.rotationStep", 5);
+		final BufferedImage[][] birds = new BufferedImage[3][Bird.poses(step)];
+		String[] names = {Assets.BIRD_UP, Assets.BIRD_NEUTRAL, Assets.BIRD_DOWN};
+		final int padding = Bird.rotationPadding(Assets.get(names[0]).getWidth(), Assets.get(names[0]).getHeight());
+		for(int i = 0; i < birds.length; i++) {
+			for(int pose = 0; pose < birds[i].length; pose++)
+				birds[i][pose] = Assets.rotate(Assets.get(names[i]), Bird.poseAngle(pose, step), padding);
+		}
+		final Composite faded = AlphaComposite.getInstance(AlphaComposite.SRC_OVER, 0.4f);
+
+		System.out.printf("%-28s %14s %12s %12s %8s %8s%n", "benchmark", "frames/s", "ns/frame", "bytes/frame", "gc", "gc ms");
+		for(int count : GHOST_COUNTS) {
+			final GhostTracks ghosts = record(count);
+			final GameState game = playTo(renderer, ghosts);
+			int flying = 0;
+			for(int run = 0; run < ghosts.size(); run++) {
+				if(ghosts.getLength(run) >= ghosts.getPlayhead())
+					flying++;
+			}
+			System.out.printf("%d ghosts, %d still flying on the drawn frame, %d KB of tracks%n", count, flying, ghosts.getTickCount() * 4 >> 10);
+
+			renderer.setGhosts(ghosts);
+			Benchmarks.run("batched, " + count + " ghosts", seconds, new Benchmarks.Operation() {
+				int frames;
+
+				public long run() {
+					renderer.draw(g, game, (frames++ & 7) / 8.0, null);
+					return frame.getRGB(WIDTH / 2, HEIGHT / 2);
+				}
+			});
+
+			renderer.setGhosts(null);
+			Benchmarks.run("drawImage each, " + count + " ghosts", seconds, new Benchmarks.Operation() {
+				int frames;
+
+				public long run() {
+					double alpha = (frames++ & 7) / 8.0;
+					renderer.draw(g, game, alpha, null);
+					int tick = ghosts.getPlayhead(), x = game.getBird().getX() - padding;
+					for(int run = 0; run < ghosts.size(); run++) {
+						if(tick > ghosts.getLength(run))
+							continue;
+						int now = ghosts.get(run, tick - 1), before = tick > 1 ? ghosts.get(run, tick - 2) : now;
+						int y = (int)Math.round(GhostTracks.y(before) + (GhostTracks.y(now) - GhostTracks.y(before)) * alpha);
+						Composite old = g.getComposite();
+						g.setComposite(faded);
+						g.drawImage(birds[GhostTracks.frame(now)][Bird.pose(GhostTracks.angle(now), step)], x, y - padding, null);
+						g.setComposite(old);
+					}
+					return frame.getRGB(WIDTH / 2, HEIGHT / 2);
+				}
+			});
+		}
+		g.dispose();
+	}
+
+	//plays count runs, each on a course of its own, with a few random mistakes
+	private static GhostTracks record(int count) {
+		GhostTracks ghosts = new GhostTracks();
+		SplittableRandom random = new SplittableRandom(count);
+		for(int i = 0; i < count; i++) {
+			GameState game = HeadlessGame.newGame(i);
+			Autopilot autopilot = new Autopilot(game, Autopilot.DEFAULT_HORIZON, AUTOPILOT_BUDGET_MICROS);
+			for(int tick = 0; tick < MAX_TICKS && !game.isGameOver(); tick++) {
+				boolean flap = autopilot.decide(game) != (random.nextInt(400) == 0);
+				boolean wasStarted = game.isGameStarted(), wasOver = game.isGameOver();
+				game.step(flap);
+				ghosts.tick(game, wasStarted, wasOver);
+			}
+			ghosts.endRun();
+		}
+		return ghosts;
+	}
+
+	//starts a new run that the ghosts race, and plays it up to the tick that's drawn
+	private static GameState playTo(GameRenderer renderer, GhostTracks ghosts) {
+		GameState game = renderer.newGameState(-1);
+		Autopilot autopilot = new Autopilot(game);
+		while(ghosts.getPlayhead() < DRAWN_TICK || !game.isGameStarted()) {
+			boolean wasStarted = game.isGameStarted(), wasOver = game.isGameOver();
+			game.step(autopilot.decide(game));
+			ghosts.tick(game, wasStarted, wasOver);
+			if(game.isGameOver())
+				throw new IllegalStateException("The autopilot crashed before tick " + DRAWN_TICK);
+		}
+		return game;
+	}
+}
@@ -0,0 +1,127 @@
+package myFlappyBird;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Measures input lag without a window. A real GameLoop drives a game the way FlappyBird does, drawing every frame into an offscreen image, while a
+ * second thread stands in for the Swing thread and presses flap at random moments. For every press it records how long the pressing thread was held
+ * up, and how long it took until a frame showing the flap was drawn.
+ *
+ * Each setting is run twice: once the old way, where a press takes the same lock as the game loop to set a flag, and once through an InputQueue.
+ * The "press blocked" columns show how long the Swing thread would have waited, which the lock free queue brings down to nothing.
+ *
+ * Usage: InputLatencyBench [seconds per run]
+ */
+public class InputLatencyBench {
+	private static final int WIDTH = 600, HEIGHT = 800;
+
+	public static void main(String args[]) throws Exception {
+		int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+		boolean draw = loadAssets();
+		System.out.println(draw ? "drawing frames with GameRenderer" : "the game's images aren't on the classpath, so frames are not drawn");
+		System.out.println("ticks/s  frames/s  input    press blocked p99 ms   max ms   key to frame p50 ms   p99 ms   max ms");
+		int[][] settings = {{60, 60}, {60, 144}, {120, 120}};
+		for(int[] setting : settings) {
+			run(setting[0], setting[1], seconds, draw, false);
+			run(setting[0], setting[1], seconds, draw, true);
+		}
+	}
+
+	private static void run(int ticksPerSecond, int framesPerSecond, int seconds, boolean draw, boolean queued) throws InterruptedException {
+		Harness harness = new Harness(draw, queued);
+		GameLoop loop = new GameLoop(harness, ticksPerSecond, framesPerSecond);
+		loop.start();
+
+		//press at random moments, a few times a second, like a player would
+		Random random = new Random(1);
+		FrameHistogram blocked = new FrameHistogram();
+		long end = System.nanoTime() + seconds * 1000000000L;
+		while(System.nanoTime() < end) {
+			LockSupport.parkNanos((50 + random.nextInt(250)) * 1000000L);
+			long pressed = System.nanoTime();
+			harness.press(pressed);
+			blocked.record(System.nanoTime() - pressed);
+		}
+		loop.stop();
+		Thread.sleep(100);
+
+		FrameHistogram latency = harness.latency;
+		synchronized(harness) {
+			System.out.printf("%7d %9d  %-8s %20.3f %8.3f %21.2f %8.2f %8.2f%n", ticksPerSecond, framesPerSecond, queued ? "queue" : "lock",
+					blocked.percentile(0.99) / 1e6, blocked.getMax() / 1e6, latency.percentile(0.5) / 1e6, latency.percentile(0.99) / 1e6,
+					latency.getMax() / 1e6);
+		}
+	}
+
+	/**
+	 * The parts of FlappyBird that matter for input lag, without the window.
+	 */
+	private static class Harness implements GameLoop.Game {
+		final boolean queued;
+		final InputQueue input = new InputQueue(64);
+		final FrameHistogram latency = new FrameHistogram();
+		final GameState game;
+		final GameRenderer renderer;
+		final BufferedImage frame = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+		final Graphics2D g = frame.createGraphics();
+		long lockedPress = InputQueue.EMPTY, unshownPress = InputQueue.EMPTY;
+
+		Harness(boolean draw, boolean queued) {
+			this.queued = queued;
+			renderer = draw ? new GameRenderer(WIDTH, HEIGHT) : null;
+			game = draw ? renderer.newGameState() : HeadlessGame.newGame();
+		}
+
+		void press(long nanos) {
+			if(queued)
+				input.offer(nanos);
+			else {
+				synchronized(this) {
+					if(lockedPress == InputQueue.EMPTY)
+						lockedPress = nanos;
+				}
+			}
+		}
+
+		@Override
+		public synchronized void update() {
+			long pressed;
+			if(queued)
+				pressed = input.drain();
+			else {
+				pressed = lockedPress;
+				lockedPress = InputQueue.EMPTY;
+			}
+			boolean flap = pressed != InputQueue.EMPTY;
+			if(flap && unshownPress == InputQueue.EMPTY)
+				unshownPress = pressed;
+			game.step(flap);
+
+			//keep the game going so there's always something to draw
+			if(game.isGameOver() && game.hitGround())
+				game.step(true);
+		}
+
+		@Override
+		public synchronized void render(double alpha) {
+			if(renderer != null)
+				renderer.draw(g, game, alpha, null);
+			if(unshownPress != InputQueue.EMPTY) {
+				latency.record(System.nanoTime() - unshownPress);
+				unshownPress = InputQueue.EMPTY;
+			}
+		}
+	}
+
+	private static boolean loadAssets() {
+		try {
+			Assets.load();
+			return true;
+		} catch (Exception e) {
+			return false;
+		}
+	}
+}
@@ -0,0 +1,16 @@
+package myFlappyBird;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A Java Flight Recorder event for every image Assets decodes, so asset loads show up on the same timeline as the FrameEvents.
+ */
+@Name("myFlappyBird.AssetLoad")
+@Label("Asset Load")
+@Category("Flappy Bird")
+public class AssetLoadEvent extends jdk.jfr.Event {
+	@Label("Asset")
+	String name;
+}
@@ -0,0 +1,445 @@
+package myFlappyBird;
+
+import java.awt.AlphaComposite;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Sprite cache for every image the game needs. Before this class existed, each new Pipe read both of its pipe images from disk, which caused a
+ * little hitch every time a pipe spawned and meant every live pipe carried its own copy of the same pixels. Now every image is decoded exactly
+ * once when load() is called at startup, converted into the format the screen prefers so Java2D can draw it without converting it every frame,
+ * and then the same reference is handed out to whoever asks for it.
+ *
+ * The images are looked up on the classpath next to this class (src/myFlappyBird), so the game no longer depends on files sitting on a desktop.
+ * The images handed out are shared, so callers must only ever draw them, never draw into them.
+ *
+ * Only the bird sprites are in the repo; the pipes, sky, ground and game over images never were. When one of those isn't on the classpath, a plain
+ * stand-in of the same size as the original is drawn instead and a warning is printed the first time, so the game still runs and lays out exactly
+ * the same. Putting the real images next to this class is all it takes to use them.
+ *
+ * The bird and pipe images also get a CollisionMask made from their alpha channel while they're loaded, for pixel perfect collisions.
+ *
+ * Decoding a PNG is mostly inflating and unfiltering pixels on one core, and the images don't depend on each other, so loadAsync() decodes them all at
+ * the same time on a small pool of worker threads, and the window can show that it's loading in the meantime. Nothing is handed out until every
+ * image and mask is done; then they're all swapped in at once, so nobody ever sees half of them.
+ */
+public final class Assets {
+	public static final String BIRD_UP = "birdUp.png", BIRD_NEUTRAL = "birdNeutral.png", BIRD_DOWN = "birdDown.png";
+	public static final String TOP_PIPE = "topPipe.png", BOTTOM_PIPE = "bottomPipe.png";
+	public static final String SKY = "flappyBirdSunnyBackground.png", GROUND = "ground.png", GAME_OVER = "flappyBirdGameOver.png";
+
+	//every image the game uses. The biggest ones come first so they're started first, since they take the longest.
+	private static final String[] ALL = {SKY, GAME_OVER, GROUND, TOP_PIPE, BOTTOM_PIPE, BIRD_UP, BIRD_NEUTRAL, BIRD_DOWN};
+
+	//the images that aren't in the repo, which get a stand-in when they're missing
+	private static final String[] OPTIONAL = {SKY, GAME_OVER, GROUND, TOP_PIPE, BOTTOM_PIPE};
+
+	//the images things can collide with
+	private static final String[] SOLID = {BIRD_UP, BIRD_NEUTRAL, BIRD_DOWN, TOP_PIPE, BOTTOM_PIPE};
+
+	//one thread per core, but at least two, since decoding also waits on reading the files
+	private static final ExecutorService loaders = Executors.newFixedThreadPool(
+			Math.min(ALL.length, Math.max(2, Runtime.getRuntime().availableProcessors())), runnable -> {
+				Thread thread = new Thread(runnable, "Asset loader");
+				thread.setDaemon(true);
+				return thread;
+			});
+
+	/**
+	 * Every image and mask, swapped in as a whole once they're all decoded.
+	 */
+	static final class Loaded {
+		final Map<String, BufferedImage> images;
+		final Map<String, CollisionMask> masks;
+
+		Loaded(Map<String, BufferedImage> images, Map<String, CollisionMask> masks) {
+			this.images = Collections.unmodifiableMap(images);
+			this.masks = Collections.unmodifiableMap(masks);
+		}
+	}
+
+	private static volatile Loaded loaded = new Loaded(new HashMap<String, BufferedImage>(), new HashMap<String, CollisionMask>());
+	private static CompletableFuture<Void> loading;
+	private static final AtomicInteger decodeCount = new AtomicInteger(), decodedThisLoad = new AtomicInteger();
+
+	//the benchmarks decode everything over and over, and the missing images only need pointing out once
+	private static final AtomicBoolean warnedMissing = new AtomicBoolean();
+
+	private Assets() {
+	}
+
+	/**
+	 * Decodes every image the game uses, and waits until they're all done. Calling this again after that never touches the disk again.
+	 *
+	 * @throws IOException - thrown if one of the bird sprites is missing from the classpath, or an image can't be decoded
+	 */
+	public static void load() throws IOException {
+		try {
+			loadAsync().join();
+		} catch(CompletionException e) {
+			if(e.getCause() instanceof UncheckedIOException)
+				throw ((UncheckedIOException)e.getCause()).getCause();
+			throw e;
+		}
+	}
+
+	/**
+	 * Starts decoding every image the game uses on the worker threads, unless that already started. If an earlier load failed, it's tried again.
+	 *
+	 * @return completes once every image can be handed out by get(), or with an UncheckedIOException if one couldn't be loaded
+	 */
+	public static synchronized CompletableFuture<Void> loadAsync() {
+		if(loading == null || loading.isCompletedExceptionally()) {
+			decodedThisLoad.set(0);
+			loading = decodeAll(loaders).thenAccept(result -> loaded = result);
+		}
+		return loading;
+	}
+
+	/**
+	 * Decodes every image and makes the masks, without handing any of them out.
+	 *
+	 * @param executor - runs the decoding, one task per image
+	 * @return completes with all of them
+	 */
+	static CompletableFuture<Loaded> decodeAll(Executor executor) {
+		List<CompletableFuture<BufferedImage>> decoding = new ArrayList<CompletableFuture<BufferedImage>>();
+		for(String name : ALL) {
+			decoding.add(CompletableFuture.supplyAsync(() -> {
+				try {
+					BufferedImage image = toCompatibleImage(isMissing(name) ? drawStandIn(name) : decode(name));
+					decodedThisLoad.incrementAndGet();
+					return image;
+				} catch(IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}, executor));
+		}
+
+		return CompletableFuture.allOf(decoding.toArray(new CompletableFuture<?>[0])).thenApply(done -> {
+			List<String> missing = new ArrayList<String>();
+			for(String name : ALL) {
+				if(isMissing(name))
+					missing.add(name);
+			}
+			if(!missing.isEmpty() && !warnedMissing.getAndSet(true))
+				System.err.println("Assets: " + missing + " not found on the classpath, drawing plain stand-ins instead");
+
+			Map<String, BufferedImage> images = new HashMap<String, BufferedImage>();
+			for(int i = 0; i < ALL.length; i++)
+				images.put(ALL[i], decoding.get(i).join());
+			Map<String, CollisionMask> masks = new HashMap<String, CollisionMask>();
+			for(String name : SOLID)
+				masks.put(name, createMask(images.get(name)));
+			return new Loaded(images, masks);
+		});
+	}
+
+	/**
+	 * @return true once every image has been loaded and can be handed out
+	 */
+	public static boolean isLoaded() {
+		return loaded.images.size() == ALL.length;
+	}
+
+	/**
+	 * @return how many of the images the current load has decoded so far, out of getAssetCount()
+	 */
+	public static int getDecodedCount() {
+		return decodedThisLoad.get();
+	}
+
+	/**
+	 * @return how many images the game uses
+	 */
+	public static int getAssetCount() {
+		return ALL.length;
+	}
+
+	/**
+	 * Returns the shared copy of an image. This never reads from disk; the image must have been decoded by load() beforehand.
+	 *
+	 * @param name - file name of the image, one of the constants in this class
+	 * @return the shared image
+	 */
+	public static BufferedImage get(String name) {
+		BufferedImage image = loaded.images.get(name);
+		if(image == null)
+			throw new IllegalStateException("Asset " + name + " was requested before Assets.load() decoded it");
+		return image;
+	}
+
+	/**
+	 * Returns the collision mask of one of the bird or pipe images, made when load() decoded it.
+	 *
+	 * @param name - file name of the image, one of the bird or pipe constants in this class
+	 * @return the shared mask
+	 */
+	public static CollisionMask getMask(String name) {
+		CollisionMask mask = loaded.masks.get(name);
+		if(mask == null)
+			throw new IllegalStateException("No collision mask for " + name + "; it is either not loaded yet or not a solid sprite");
+		return mask;
+	}
+
+	private static CollisionMask createMask(BufferedImage image) {
+		int width = image.getWidth(), height = image.getHeight();
+		return CollisionMask.fromArgb(image.getRGB(0, 0, width, height, null, 0, width), width, height);
+	}
+
+	/**
+	 * @return how many times an image has been decoded since the program started. Once load() has returned, this number should never change.
+	 */
+	public static int getDecodeCount() {
+		return decodeCount.get();
+	}
+
+	//true for an image that isn't in the repo and hasn't been put on the classpath either
+	private static boolean isMissing(String name) {
+		for(String optional : OPTIONAL) {
+			if(optional.equals(name))
+				return Assets.class.getResource(name) == null;
+		}
+		return false;
+	}
+
+	/**
+	 * Draws a plain stand-in for one of the images that aren't in the repo, the same size as the original so everything is laid out the same. The
+	 * sizes come from HeadlessGame, which with Trainer uses them without loading anything. Nothing is decoded, so it doesn't count towards
+	 * getDecodeCount().
+	 */
+	static BufferedImage drawStandIn(String name) {
+		BufferedImage image;
+		Graphics2D g;
+		switch(name) {
+			case SKY:
+				image = new BufferedImage(288, 512, BufferedImage.TYPE_INT_RGB);
+				g = image.createGraphics();
+				g.setPaint(new GradientPaint(0, 0, new Color(78, 192, 202), 0, 512, new Color(222, 247, 250)));
+				g.fillRect(0, 0, 288, 512);
+				break;
+			case GROUND:
+				image = new BufferedImage(HeadlessGame.GROUND_WIDTH, HeadlessGame.GROUND_HEIGHT, BufferedImage.TYPE_INT_RGB);
+				g = image.createGraphics();
+				g.setColor(new Color(222, 216, 149));
+				g.fillRect(0, 0, HeadlessGame.GROUND_WIDTH, HeadlessGame.GROUND_HEIGHT);
+				//stripes along the top, so the ground can be seen scrolling
+				g.setColor(new Color(115, 191, 46));
+				g.fillRect(0, 0, HeadlessGame.GROUND_WIDTH, 14);
+				g.setColor(new Color(84, 140, 34));
+				for(int x = 0; x < HeadlessGame.GROUND_WIDTH; x += 24)
+					g.fillRect(x, 0, 12, 14);
+				break;
+			case TOP_PIPE:
+			case BOTTOM_PIPE:
+				int width = HeadlessGame.PIPE_WIDTH, height = HeadlessGame.PIPE_IMAGE_HEIGHT, lipY = name.equals(TOP_PIPE) ? height - 36 : 0;
+				image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+				g = image.createGraphics();
+				g.setColor(new Color(115, 191, 46));
+				g.fillRect(4, 0, width - 8, height);
+				//the lip is at the open end: the bottom of the top pipe and the top of the bottom one
+				g.fillRect(0, lipY, width, 36);
+				g.setColor(new Color(84, 140, 34));
+				g.drawRect(4, 0, width - 9, height - 1);
+				g.drawRect(0, lipY, width - 1, 35);
+				break;
+			case GAME_OVER:
+				image = new BufferedImage(300, 80, BufferedImage.TYPE_INT_ARGB);
+				g = image.createGraphics();
+				g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+				g.setFont(new Font(Font.SANS_SERIF, Font.BOLD, 44));
+				int x = (300 - g.getFontMetrics().stringWidth("Game Over")) / 2;
+				g.setColor(Color.WHITE);
+				g.drawString("Game Over", x + 2, 58);
+				g.setColor(new Color(232, 97, 1));
+				g.drawString("Game Over", x, 56);
+				break;
+			default:
+				throw new IllegalArgumentException(name + " is in the repo, so it has no stand-in");
+		}
+		g.dispose();
+		return image;
+	}
+
+	private static BufferedImage decode(String name) throws IOException {
+		URL url = Assets.class.getResource(name);
+		if(url == null)
+			throw new IOException("Could not find " + name + " on the classpath");
+
+		AssetLoadEvent event = new AssetLoadEvent();
+		event.begin();
+		BufferedImage image = ImageIO.read(url);
+		event.name = name;
+		event.commit();
+		if(image == null)
+			throw new IOException("Could not decode " + name);
+		decodeCount.incrementAndGet();
+		return image;
+	}
+
+	/**
+	 * Copies the image into one that has the same pixel layout as the screen. Drawing an image whose layout doesn't match the screen forces Java2D
+	 * to convert every pixel each time it's drawn, which is exactly what we want to avoid for images drawn 60 times a second. On a machine without
+	 * a display there is no screen layout to match, so the image is returned as is.
+	 */
+	static BufferedImage toCompatibleImage(BufferedImage image) {
+		if(GraphicsEnvironment.isHeadless())
+			return image;
+
+		GraphicsConfiguration config = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration();
+		if(image.getColorModel().equals(config.getColorModel(image.getTransparency())))
+			return image;
+
+		BufferedImage compatible = createImage(image.getWidth(), image.getHeight(), image.getTransparency());
+		Graphics2D g = compatible.createGraphics();
+		g.drawImage(image, 0, 0, null);
+		g.dispose();
+		return compatible;
+	}
+
+	/**
+	 * Makes a resized copy of an image with high quality filtering. This is meant to be done once, away from the drawing, so nothing ever has to be
+	 * scaled while drawing. Unlike Image.getScaledInstance(), the copy is a plain BufferedImage in the screen's pixel layout, which Java2D can
+	 * accelerate.
+	 *
+	 * Bicubic filtering only looks at the few source pixels nearest to each new one, so shrinking an image to less than half its size in one go skips
+	 * pixels and comes out jagged. Instead the image is halved step by step until it's less than twice the size wanted, and only then resized the rest
+	 * of the way.
+	 *
+	 * @param image - the image to resize
+	 * @param width - width of the copy
+	 * @param height - height of the copy
+	 * @return the resized copy
+	 */
+	public static BufferedImage scale(BufferedImage image, int width, int height) {
+		BufferedImage step = image;
+		while(step.getWidth() >= width * 2 || step.getHeight() >= height * 2) {
+			int halfWidth = Math.max(width, step.getWidth() / 2), halfHeight = Math.max(height, step.getHeight() / 2);
+			step = resize(step, halfWidth, halfHeight, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+		}
+		if(step.getWidth() == width && step.getHeight() == height)
+			return step;
+		return resize(step, width, height, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+	}
+
+	private static BufferedImage resize(BufferedImage image, int width, int height, Object interpolation) {
+		BufferedImage scaled = createImage(width, height, image.getTransparency());
+		Graphics2D g = scaled.createGraphics();
+		g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, interpolation);
+		g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+		g.setRenderingHint(RenderingHints.KEY_ALPHA_INTERPOLATION, RenderingHints.VALUE_ALPHA_INTERPOLATION_QUALITY);
+		g.drawImage(image, 0, 0, width, height, null);
+		g.dispose();
+		return scaled;
+	}
+
+	/**
+	 * Makes a copy of an image turned around its middle, with filtering, on a canvas big enough for any angle. Like scale(), this is meant to be
+	 * done once ahead of time, never while drawing.
+	 *
+	 * @param image - the image to turn
+	 * @param degrees - how far to turn it clockwise
+	 * @param padding - how much empty space to add on every side, see Bird.rotationPadding(). The middle of the image stays in the middle.
+	 * @return the turned copy, padding * 2 wider and taller than the image
+	 */
+	public static BufferedImage rotate(BufferedImage image, double degrees, int padding) {
+		int width = image.getWidth(), height = image.getHeight();
+		BufferedImage rotated = createImage(width + padding * 2, height + padding * 2, Transparency.TRANSLUCENT);
+		Graphics2D g = rotated.createGraphics();
+		g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+		g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+		g.rotate(Math.toRadians(degrees), padding + width / 2.0, padding + height / 2.0);
+		g.drawImage(image, padding, padding, null);
+		g.dispose();
+		return rotated;
+	}
+
+	/**
+	 * Makes a see-through copy of an image, with every pixel's alpha multiplied by the given opacity. Drawing the copy normally looks the same as
+	 * drawing the image with an AlphaComposite of that opacity, but it's a plain blend, which Java2D does much faster than one with extra alpha.
+	 *
+	 * @param image - the image to fade
+	 * @param opacity - from 0 for invisible to 1 for unchanged
+	 * @return the faded copy
+	 */
+	public static BufferedImage fade(BufferedImage image, float opacity) {
+		BufferedImage faded = createImage(image.getWidth(), image.getHeight(), Transparency.TRANSLUCENT);
+		Graphics2D g = faded.createGraphics();
+		g.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC, opacity));
+		g.drawImage(image, 0, 0, null);
+		g.dispose();
+		return faded;
+	}
+
+	/**
+	 * @return the smallest rectangle holding every pixel of an image that isn't completely see-through, which is empty if there are none
+	 */
+	public static Rectangle visibleBounds(BufferedImage image) {
+		int width = image.getWidth(), height = image.getHeight();
+		int left = width, top = height, right = -1, bottom = -1;
+		int[] row = new int[width];
+		for(int j = 0; j < height; j++) {
+			image.getRGB(0, j, width, 1, row, 0, width);
+			for(int i = 0; i < width; i++) {
+				if(row[i] >>> 24 != 0) {
+					left = Math.min(left, i);
+					right = Math.max(right, i);
+					top = Math.min(top, j);
+					bottom = j;
+				}
+			}
+		}
+		return right < 0 ? new Rectangle() : new Rectangle(left, top, right - left + 1, bottom - top + 1);
+	}
+
+	/**
+	 * Makes an image that is the given image repeated side by side, so something that scrolls by drawing several copies of one image can be drawn
+	 * with a single drawImage call.
+	 *
+	 * @param image - the image to repeat
+	 * @param times - how many copies to put side by side
+	 * @return the repeated image
+	 */
+	public static BufferedImage tileHorizontally(BufferedImage image, int times) {
+		BufferedImage tiled = createImage(image.getWidth() * times, image.getHeight(), image.getTransparency());
+		Graphics2D g = tiled.createGraphics();
+		for(int i = 0; i < times; i++)
+			g.drawImage(image, image.getWidth() * i, 0, null);
+		g.dispose();
+		return tiled;
+	}
+
+	//creates an empty image in the screen's pixel layout, or a plain ARGB image if there is no screen
+	static BufferedImage createImage(int width, int height, int transparency) {
+		if(GraphicsEnvironment.isHeadless())
+			return new BufferedImage(width, height, transparency == Transparency.OPAQUE ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+
+		GraphicsConfiguration config = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration();
+		return config.createCompatibleImage(width, height, transparency);
+	}
+}
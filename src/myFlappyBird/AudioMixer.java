@@ -0,0 +1,203 @@
+package myFlappyBird;
+
+import java.util.Arrays;
+
+/**
+ * Plays the game's sound effects by mixing them itself, on one thread of its own, into a steady stream of small chunks for an AudioSink. Up to
+ * MAX_VOICES effects can play over each other; when one more starts, the one that has been playing longest is cut off to make room.
+ *
+ * play() is called from the game loop in the middle of a tick, so it must never wait or allocate. It only drops the effect and the time into an
+ * EffectQueue, a lock free ring like the one the key presses travel through, and the mixer thread starts the effect at the beginning of its next
+ * chunk.
+ * Mixing allocates nothing either: the voices, the chunk being mixed and its bytes are all arrays made once up front. A chunk is CHUNK_FRAMES
+ * samples (about 6ms), and the sink only buffers a few chunks, so an effect is heard a couple of chunks after it was asked for.
+ *
+ * How long effects waited to be mixed is kept in a FrameHistogram, so the latency can be checked, with or without a sound card (see BufferSink).
+ */
+public class AudioMixer implements Runnable {
+	public static final int MAX_VOICES = 16;
+	public static final int CHUNK_FRAMES = 256;
+	public static final int CHUNK_BYTES = CHUNK_FRAMES * 2;
+
+	/**
+	 * How big a sound card's buffer should be: a few chunks, enough not to run dry if the mixer thread is a little late.
+	 */
+	public static final int SINK_BUFFER_BYTES = CHUNK_BYTES * 4;
+
+	private final SoundEffects effects;
+	private final AudioSink sink;
+	private final EffectQueue requests = new EffectQueue(64);
+
+	//the voices. A voice with no samples is free.
+	private final short[][] voiceSamples = new short[MAX_VOICES][];
+	private final int[] voicePosition = new int[MAX_VOICES];
+	private final long[] voiceStarted = new long[MAX_VOICES];
+
+	private final int[] mix = new int[CHUNK_FRAMES];
+	private final byte[] chunk = new byte[CHUNK_BYTES];
+	private final FrameHistogram latency = new FrameHistogram();
+	private volatile float volume = 1;
+	private volatile boolean running;
+	private Thread thread;
+	private volatile long chunks;
+
+	/**
+	 * @param effects - the effects play() can play
+	 * @param sink - where the mixed sound goes
+	 */
+	public AudioMixer(SoundEffects effects, AudioSink sink) {
+		this.effects = effects;
+		this.sink = sink;
+	}
+
+	/**
+	 * Starts the mixer thread. It runs at the highest priority, since a late chunk is a click everyone can hear.
+	 */
+	public synchronized void start() {
+		if(running)
+			return;
+		running = true;
+		thread = new Thread(this, "Audio mixer");
+		thread.setDaemon(true);
+		thread.setPriority(Thread.MAX_PRIORITY);
+		thread.start();
+	}
+
+	/**
+	 * Stops the mixer thread and closes the sink.
+	 */
+	public void stop() throws InterruptedException {
+		Thread mixer;
+		synchronized(this) {
+			running = false;
+			mixer = thread;
+			thread = null;
+		}
+		if(mixer != null)
+			mixer.join();
+		sink.close();
+	}
+
+	@Override
+	public void run() {
+		while(running)
+			sink.write(mixChunk(), CHUNK_BYTES);
+	}
+
+	/**
+	 * Starts playing an effect. Only call this from one thread, the game loop.
+	 *
+	 * @param effect - SoundEffects.FLAP, SCORE or HIT
+	 * @return false if too many effects were waiting to start and this one was dropped
+	 */
+	public boolean play(int effect) {
+		return requests.offer(effect, System.nanoTime());
+	}
+
+	/**
+	 * Mixes the next chunk: starts every effect asked for since the last one, adds up every playing voice, and turns the sum into bytes. The mixer
+	 * thread calls this in a loop; it's only called directly to measure the mixing without a thread.
+	 *
+	 * @return the chunk, CHUNK_BYTES long. It's reused by the next call.
+	 */
+	byte[] mixChunk() {
+		while(!requests.isEmpty()) {
+			startVoice(requests.peekEffect(), requests.peekTimestamp());
+			requests.remove();
+		}
+
+		Arrays.fill(mix, 0);
+		for(int v = 0; v < MAX_VOICES; v++) {
+			short[] samples = voiceSamples[v];
+			if(samples == null)
+				continue;
+			int position = voicePosition[v], count = Math.min(CHUNK_FRAMES, samples.length - position);
+			for(int i = 0; i < count; i++)
+				mix[i] += samples[position + i];
+			position += count;
+			if(position == samples.length)
+				voiceSamples[v] = null;
+			voicePosition[v] = position;
+		}
+
+		//scale by the volume and clip anything that adds up past what 16 bits can hold, rather than letting it wrap around into a loud crackle
+		int gain = (int)(volume * 256);
+		for(int i = 0; i < CHUNK_FRAMES; i++) {
+			int sample = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, mix[i] * gain >> 8));
+			chunk[i * 2] = (byte)sample;
+			chunk[i * 2 + 1] = (byte)(sample >> 8);
+		}
+		chunks++;
+		return chunk;
+	}
+
+	//puts an effect in a free voice, or in place of the voice that has been playing longest
+	private void startVoice(int effect, long requested) {
+		int voice = 0;
+		for(int v = 0; v < MAX_VOICES; v++) {
+			if(voiceSamples[v] == null) {
+				voice = v;
+				break;
+			}
+			if(voiceStarted[v] < voiceStarted[voice])
+				voice = v;
+		}
+		long now = System.nanoTime();
+		voiceSamples[voice] = effects.get(effect);
+		voicePosition[voice] = 0;
+		voiceStarted[voice] = now;
+		synchronized(latency) {
+			latency.record(now - requested);
+		}
+	}
+
+	/**
+	 * @param volume - from 0 for silence to 1 for the effects as they are
+	 */
+	public void setVolume(float volume) {
+		this.volume = Math.max(0, Math.min(1, volume));
+	}
+
+	/**
+	 * @param fraction - which percentile, from 0 to 1
+	 * @return how long effects waited between play() and being mixed into a chunk, on that percentile, in nanoseconds. The sink's buffer adds
+	 * getSinkLatency() on top of this before it's heard.
+	 */
+	public long getMixLatency(double fraction) {
+		synchronized(latency) {
+			return latency.percentile(fraction);
+		}
+	}
+
+	public void resetMixLatency() {
+		synchronized(latency) {
+			latency.reset();
+		}
+	}
+
+	/**
+	 * @return how long sound waits in the sink's buffer before being heard, in nanoseconds
+	 */
+	public long getSinkLatency() {
+		return (long)(sink.getBufferSize() / (SoundEffects.FORMAT.getFrameRate() * SoundEffects.FORMAT.getFrameSize()) * 1e9);
+	}
+
+	/**
+	 * @return how many voices are playing right now. Only meaningful on the mixing thread, or once it's stopped.
+	 */
+	int getPlayingVoices() {
+		int playing = 0;
+		for(short[] samples : voiceSamples) {
+			if(samples != null)
+				playing++;
+		}
+		return playing;
+	}
+
+	/**
+	 * @return how many chunks have been mixed
+	 */
+	public long getChunks() {
+		return chunks;
+	}
+}
@@ -0,0 +1,25 @@
+package myFlappyBird;
+
+/**
+ * Where AudioMixer sends the sound it mixed: a sound card (LineSink), or just memory (BufferSink) for running without one.
+ */
+public interface AudioSink {
+	/**
+	 * Plays the mixed samples, in SoundEffects.FORMAT. A sink that plays in real time blocks here until it has room for them, which is what paces the
+	 * mixer.
+	 *
+	 * @param data - the samples
+	 * @param length - how many bytes of data to play
+	 */
+	void write(byte[] data, int length);
+
+	/**
+	 * @return how many bytes the sink can hold before write() has to wait, which is how far behind the mixer the sound coming out is
+	 */
+	int getBufferSize();
+
+	/**
+	 * Stops playing and lets go of the device, if there is one.
+	 */
+	void close();
+}
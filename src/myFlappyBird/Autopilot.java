@@ -0,0 +1,222 @@
+package myFlappyBird;
+
+import java.util.Arrays;
+
+/**
+ * Plays the game by looking ahead. Every tick it copies the real game into a game of its own, and searches the futures that follow from flapping or
+ * not on each of the next few ticks, running them through the game's real rules (GameState.step(), so Bird.fall() and the same collisions as the
+ * real game). It flaps only if not flapping leads to a crash sooner than flapping does.
+ *
+ * The search is depth first, and stops as soon as it finds a way to survive the whole horizon. Going back up the tree is done by restoring the
+ * snapshot saved at that depth, so the search creates no objects at all. Where the bird is and how fast it's going is all that can differ between two
+ * futures at the same depth, since the pipes don't care what the bird does, so every dead end found is remembered by those three numbers and never
+ * searched twice in the same tick.
+ *
+ * The search only gets a fixed budget of time per tick. When it runs out, the autopilot goes with whichever choice survived longer so far. The number
+ * of states searched per second and how long each decision took are kept, so the budget can be tuned.
+ *
+ * Running this class plays a game with no window and prints how it went. Usage: Autopilot [ticks] [budget in microseconds] [horizon in ticks]
+ */
+public class Autopilot {
+	public static final int DEFAULT_HORIZON = 50;
+	public static final int DEFAULT_BUDGET_MICROS = 500;
+
+	//the time is only checked every this many states, since reading the clock costs about as much as a step
+	private static final int CLOCK_INTERVAL = 16;
+	private static final int TABLE_SIZE = 1 << 16, TABLE_PROBES = 8;
+
+	private final GameState sim;
+	private final long[][] snapshots;
+	private final int horizon;
+	private final long budgetNanos;
+
+	//the dead ends found this tick. A key only counts if its stamp is this tick's.
+	private final long[] deadEnds = new long[TABLE_SIZE];
+	private final int[] deadEndReach = new int[TABLE_SIZE], deadEndStamps = new int[TABLE_SIZE];
+	private int stamp;
+
+	private long deadline, nodes;
+	private boolean outOfTime;
+
+	private final FrameHistogram decisionTimes = new FrameHistogram();
+	private long totalNodes, totalNanos, decisions, overBudget;
+
+	/**
+	 * @param game - the game to play. Only its rules are copied here; the state is copied on every decide().
+	 * @param horizon - how many ticks ahead to look
+	 * @param budgetMicros - how long each decision may take, in microseconds
+	 */
+	public Autopilot(GameState game, int horizon, long budgetMicros) {
+		sim = game.copy();
+		this.horizon = horizon;
+		budgetNanos = budgetMicros * 1000;
+		snapshots = new long[horizon + 1][];
+		for(int i = 0; i <= horizon; i++)
+			snapshots[i] = sim.newSnapshot();
+	}
+
+	public Autopilot(GameState game) {
+		this(game, DEFAULT_HORIZON, DEFAULT_BUDGET_MICROS);
+	}
+
+	/**
+	 * Decides whether to press flap on the next tick. A game that hasn't started yet is started, and a finished one is restarted once the bird is on
+	 * the ground.
+	 *
+	 * @param game - the game to decide for, made the same way as the one given to the constructor
+	 * @return true to flap
+	 */
+	public boolean decide(GameState game) {
+		if(!game.isGameStarted())
+			return true;
+		if(game.isGameOver())
+			return game.hitGround();
+
+		long start = System.nanoTime();
+		nodes = 0;
+		if(++stamp == 0) {
+			Arrays.fill(deadEndStamps, 0);
+			stamp = 1;
+		}
+		game.save(snapshots[0]);
+
+		//not flapping is tried first, with half the time, since a bird that doesn't need to flap shouldn't
+		int waiting = branch(false, start + budgetNanos / 2);
+		boolean flap = false;
+		if(waiting < horizon)
+			flap = branch(true, start + budgetNanos) > waiting;
+
+		long nanos = System.nanoTime() - start;
+		decisionTimes.record(nanos);
+		totalNanos += nanos;
+		totalNodes += nodes;
+		decisions++;
+		if(nanos > budgetNanos)
+			overBudget++;
+		return flap;
+	}
+
+	//how many ticks the bird survives at best after taking this choice now, searching until the deadline
+	private int branch(boolean flap, long deadline) {
+		this.deadline = deadline;
+		outOfTime = false;
+		sim.restore(snapshots[0]);
+		sim.step(flap);
+		return sim.isGameOver() ? 0 : search(1);
+	}
+
+	/**
+	 * Searches every future of the simulated game, which is depth ticks ahead of the real one.
+	 *
+	 * @return the furthest depth any of them survive to, up to the horizon
+	 */
+	private int search(int depth) {
+		nodes++;
+		if(depth == horizon)
+			return depth;
+		if(nodes % CLOCK_INTERVAL == 0 && System.nanoTime() > deadline)
+			outOfTime = true;
+		if(outOfTime)
+			return depth;
+
+		Bird bird = sim.getBird();
+		long key = key(depth, bird.getY(), bird.getVelocity());
+		int slot = find(key);
+		if(slot >= 0 && deadEndStamps[slot] == stamp && deadEnds[slot] == key)
+			return deadEndReach[slot];
+
+		//don't flap first, then flap, going back to this depth's snapshot in between
+		sim.save(snapshots[depth]);
+		int best = depth;
+		for(int choice = 0; choice < 2 && best < horizon && !outOfTime; choice++) {
+			if(choice == 1)
+				sim.restore(snapshots[depth]);
+			sim.step(choice == 1);
+			if(!sim.isGameOver())
+				best = Math.max(best, search(depth + 1));
+		}
+
+		//only a search that wasn't cut short is known to be a dead end
+		if(!outOfTime && best < horizon && slot >= 0) {
+			deadEnds[slot] = key;
+			deadEndReach[slot] = best;
+			deadEndStamps[slot] = stamp;
+		}
+		return best;
+	}
+
+	//a hash of everything that can differ between two futures at the same depth
+	private static long key(int depth, int y, double velocity) {
+		long key = Double.doubleToLongBits(velocity) * 0x9e3779b97f4a7c15L + y * 0xbf58476d1ce4e5b9L + depth;
+		key = (key ^ (key >>> 31)) * 0x94d049bb133111ebL;
+		return key ^ (key >>> 29);
+	}
+
+	//the slot holding the key, or a slot that's free this tick, or -1 if the few slots it could be in are all taken
+	private int find(long key) {
+		for(int i = 0; i < TABLE_PROBES; i++) {
+			int slot = (int)(key + i) & (TABLE_SIZE - 1);
+			if(deadEndStamps[slot] != stamp || deadEnds[slot] == key)
+				return slot;
+		}
+		return -1;
+	}
+
+	/**
+	 * @return how many future states were searched per second of searching, over every decision so far
+	 */
+	public double getNodesPerSecond() {
+		return totalNanos == 0 ? 0 : totalNodes * 1e9 / totalNanos;
+	}
+
+	/**
+	 * @return how many states the decisions searched on average
+	 */
+	public double getAverageNodes() {
+		return decisions == 0 ? 0 : (double)totalNodes / decisions;
+	}
+
+	/**
+	 * @param fraction - which percentile, from 0 to 1
+	 * @return how long decisions took on that percentile, in nanoseconds
+	 */
+	public long getDecisionTime(double fraction) {
+		return decisionTimes.percentile(fraction);
+	}
+
+	/**
+	 * @return how many decisions took longer than the budget
+	 */
+	public long getOverBudget() {
+		return overBudget;
+	}
+
+	public long getDecisions() {
+		return decisions;
+	}
+
+	public static void main(String args[]) {
+		long ticks = args.length > 0 ? Long.parseLong(args[0]) : 100000;
+		long budget = args.length > 1 ? Long.parseLong(args[1]) : DEFAULT_BUDGET_MICROS;
+		int horizon = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_HORIZON;
+
+		GameState game = HeadlessGame.newGame(1);
+		Autopilot autopilot = new Autopilot(game, horizon, budget);
+		int games = 0, bestScore = 0;
+		for(long i = 0; i < ticks; i++) {
+			boolean wasOver = game.isGameOver();
+			game.step(autopilot.decide(game));
+			if(!wasOver && game.isGameOver()) {
+				bestScore = Math.max(bestScore, game.getBird().getScore());
+				games++;
+			}
+		}
+		int score = game.getBird().getScore();
+		System.out.printf("%d ticks, %d crashes, best score %d, score of the game still going %d%n", ticks, games, Math.max(bestScore, score),
+				game.isGameOver() ? 0 : score);
+		System.out.printf("%d decisions with a budget of %d us: %.0f states each on average, %.2f million states per second%n",
+				autopilot.getDecisions(), budget, autopilot.getAverageNodes(), autopilot.getNodesPerSecond() / 1e6);
+		System.out.printf("decision time p50 %.1f us, p99 %.1f us, max %.1f us, %d over budget%n", autopilot.getDecisionTime(0.5) / 1e3,
+				autopilot.getDecisionTime(0.99) / 1e3, autopilot.getDecisionTime(1) / 1e3, autopilot.getOverBudget());
+	}
+}
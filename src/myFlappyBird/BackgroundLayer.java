@@ -0,0 +1,71 @@
+package myFlappyBird;
+
+import java.awt.Component;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
+
+/**
+ * A static layer of the screen (the sky) kept in video memory. A VolatileImage lives on the graphics card, so drawing it every frame is about as
+ * cheap as a copy can get, but the operating system is allowed to throw its contents away at any time, for example when the screen resolution
+ * changes or another program goes full screen. Because of that, the layer keeps the original picture around and paints it back into the
+ * VolatileImage whenever the contents were lost.
+ */
+public class BackgroundLayer {
+	private final BufferedImage source;
+	private VolatileImage image;
+
+	/**
+	 * @param source - the picture this layer shows. It should already be the size it will be drawn at.
+	 */
+	public BackgroundLayer(BufferedImage source) {
+		this.source = source;
+	}
+
+	/**
+	 * Draws the layer at the top left corner of the given graphics object, recreating or restoring the VolatileImage first if needed.
+	 *
+	 * @param g - graphics object to draw the layer with
+	 * @param target - the component being drawn on, used to create a VolatileImage that matches its screen. May be null when drawing offscreen.
+	 */
+	public void draw(Graphics g, Component target) {
+		GraphicsConfiguration config = target == null ? null : target.getGraphicsConfiguration();
+
+		//if the component isn't on a screen yet (or there is no screen at all), there's no video memory to use, so just draw the picture itself.
+		if(config == null) {
+			g.drawImage(source, 0, 0, null);
+			return;
+		}
+
+		do {
+			int status = image == null ? VolatileImage.IMAGE_INCOMPATIBLE : image.validate(config);
+			if(status == VolatileImage.IMAGE_INCOMPATIBLE) {
+				if(image != null)
+					image.flush();
+				image = config.createCompatibleVolatileImage(source.getWidth(), source.getHeight(), source.getTransparency());
+				restore();
+			}
+			else if(status == VolatileImage.IMAGE_RESTORED)
+				restore();
+
+			g.drawImage(image, 0, 0, null);
+		} while(image.contentsLost());
+	}
+
+	//paint the original picture back into the VolatileImage
+	private void restore() {
+		Graphics2D g = image.createGraphics();
+		g.drawImage(source, 0, 0, null);
+		g.dispose();
+	}
+
+	public int getWidth() {
+		return source.getWidth();
+	}
+
+	public int getHeight() {
+		return source.getHeight();
+	}
+}
@@ -1,33 +1,26 @@
 package myFlappyBird;
 
-import java.awt.Color;
-import java.awt.Graphics;
-import java.awt.Image;
-import java.awt.Point;
-import java.awt.image.BufferedImage;
-import java.awt.image.ImageObserver;
-import java.io.File;
-import java.io.IOException;
-import java.util.ArrayList;
-
-import javax.imageio.ImageIO;
-
 /**
  * Let me introduce you to my bird class! This class will contain all of the necessary information needed to create the
- * bird in Flappy Bird. It will include the coordinates of the bird, how fast it can flap, how fast is falls and a list
- * of sprites read in by the main program that will allow it to be animated! This class implements the ImageObserver class
- * due to the drawImage method from the Graphics library requiring it as a parameter. 	
+ * bird in Flappy Bird. It will include the coordinates of the bird, how fast it can flap, how fast is falls and which
+ * animation frame it is on! The bird knows nothing about images or the screen: it only needs the size of its sprite in
+ * pixels, which lets the game run without a display. Drawing the bird is up to whoever renders the game. 	
  * 
  * @author Darien Miller
  *
  */
-public class Bird implements ImageObserver {
-	private static final double AIR_RESISTANCE = 0.95, FLAP_RESISTANCE = 0.93;
+public class Bird {
+	static final double AIR_RESISTANCE = 0.95, FLAP_RESISTANCE = 0.93;
+	static final double GRAVITY = 0.6; // the gravity constant determines the rate at which the velocity changes over time
+
+	//how far the bird tilts, in degrees clockwise: nose up right after a flap, turning to nose straight down as it falls faster
+	static final int MAX_UP_ANGLE = -25, MAX_DOWN_ANGLE = 90;
+	static final double DEGREES_PER_VELOCITY = 8;
 	private final int WINDOW_HEIGHT, START_X, START_Y;
-	private double velocity, acceleration, gravity, flapForce;
-	private int x, y, frame, birdWidth, birdHeight;
-	private Integer score;//score must be an Integer because in the main class, we will convert its value to a string, and print it to the screen
-	private ArrayList<BufferedImage> birdSprites;
+	private double velocity, acceleration, flapForce;
+	private final int birdWidth, birdHeight, animationFrames;
+	private int x, y, previousY, frame;
+	private int score;//a plain int, so increasing it never creates an Integer. The renderer draws it digit by digit without turning it into a String.
 	
 	/**
 	 * Constructor to take initialize bird object with these specific values
@@ -36,30 +29,23 @@ public class Bird implements ImageObserver {
 	 * @param y - the y position of the bird in the window
 	 * @param windowHeight - how tall the window is. The bird class needs this information to prevent itself from
 	 * fall off of the screen on its descent.
+	 * @param birdWidth - width of the bird sprite in pixels
+	 * @param birdHeight - height of the bird sprite in pixels
+	 * @param animationFrames - how many sprites the bird cycles through to flap its wings
 	 */
-	public Bird(int x, int y, int windowHeight, double flapForce) {
-		gravity = 0.6; // the gravity constant determines the rate at which the velocity changes over time
+	public Bird(int x, int y, int windowHeight, double flapForce, int birdWidth, int birdHeight, int animationFrames) {
 		WINDOW_HEIGHT = windowHeight;
-		birdSprites = new ArrayList<BufferedImage>();//ArrayList of bird sprites that will be needed to animate the bird
+		this.birdWidth = birdWidth;
+		this.birdHeight = birdHeight;
+		this.animationFrames = animationFrames;
 		this.x = x;
 		this.y = y;
+		previousY = y;
 		this.flapForce = (flapForce > 0) ? -flapForce : flapForce;//We need to ensure that the flap force is negative, so if the value sent to the constructor
 		//is positive, assign the negative of that value to the flapForce
 		START_X = x;
 		START_Y = y;
-		score = new Integer(0);
-	}
-	
-	/**
-	 * Method to add bird sprites to the ArrayList of BufferedImages.  
-	 * 
-	 * @param birdSpritePath - The file path that leads to the bird image being read in from the main class.
-	 * @throws IOException - throw an Input - Output if the file read in can't be found
-	 */
-	public void addToSpriteList(File birdSpritePath) throws IOException {	
-		birdSprites.add(ImageIO.read(birdSpritePath));
-		birdWidth = birdSprites.get(0).getWidth();
-		birdHeight = birdSprites.get(0).getHeight();
+		score = 0;
 	}
 	
 	public int getBirdHeight() {
@@ -72,24 +58,78 @@ public class Bird implements ImageObserver {
 	
 	
 	/**
-	 * Method to cycle through the ArrayList of images, and print them to the screen in a way that resembles animation.
-	 * This is accomplished by printing out a image every frame that the paint() method in the main class. The variable "frame"
-	 * will be used to determine which image in the birdSprites ArrayList to print out on a particular frame of execution. 
-	 * @param g - graphics object to print out the image to the screen.
+	 * Method to cycle through the bird's sprites in a way that resembles animation. This is called once per tick of the game, so the
+	 * variable "frame" will be used by the renderer to determine which sprite to print out on that tick.
+	 * @param isGameOver - if the user crashed the bird into a pipe, the animation stops.
 	 */
-	public void animateBird(Graphics g, boolean isGameOver) {
-		g.drawImage(birdSprites.get(frame), x, y, this);
-		
+	public void nextFrame(boolean isGameOver) {
 		//if the user did not crash the bird into a pipe and cause a game over, increase the frame count.
 		if(!isGameOver)
 			frame++;
 		
 		//once the amount of frames is equal to the size of the array, set it back to 0, and allow the first image to be printed. This is what causes
 		//the illusion of animation: in place, the 
-		if(frame == birdSprites.size())
+		if(frame == animationFrames)
 			frame = 0;
 	}
 	
+	//return which animation frame the bird is on
+	public int getFrame() {
+		return frame;
+	}
+
+	/**
+	 * @return how far the bird is tilted for a given velocity, in degrees clockwise
+	 */
+	public static double angle(double velocity) {
+		return Math.max(MAX_UP_ANGLE, Math.min(MAX_DOWN_ANGLE, velocity * DEGREES_PER_VELOCITY));
+	}
+
+	public double getAngle() {
+		return angle(velocity);
+	}
+
+	/**
+	 * The bird's tilt rounded to one of a fixed set of angles, so sprites and collision masks can be rotated to each of them ahead of time. The
+	 * angles start at MAX_UP_ANGLE and go up by angleStep degrees.
+	 *
+	 * @param angleStep - how many degrees apart the angles are, or 0 for a bird that never tilts
+	 * @return which of the angles the bird is closest to, from 0 to poses(angleStep) - 1
+	 */
+	public int getPose(int angleStep) {
+		return pose(getAngle(), angleStep);
+	}
+
+	/**
+	 * @return which of the angles getPose() chooses from is closest to the given one
+	 */
+	public static int pose(double angle, int angleStep) {
+		if(angleStep <= 0)
+			return 0;
+		return Math.max(0, Math.min(poses(angleStep) - 1, (int)Math.round((angle - MAX_UP_ANGLE) / angleStep)));
+	}
+
+	/**
+	 * @return how many angles getPose() chooses from
+	 */
+	public static int poses(int angleStep) {
+		return angleStep <= 0 ? 1 : (MAX_DOWN_ANGLE - MAX_UP_ANGLE + angleStep - 1) / angleStep + 1;
+	}
+
+	/**
+	 * @return the angle of a pose, in degrees clockwise
+	 */
+	public static double poseAngle(int pose, int angleStep) {
+		return angleStep <= 0 ? 0 : Math.min(MAX_DOWN_ANGLE, MAX_UP_ANGLE + pose * angleStep);
+	}
+
+	/**
+	 * @return how much room a sprite of this size needs on every side to turn to any angle around its middle without its corners being cut off
+	 */
+	public static int rotationPadding(int width, int height) {
+		return (int)Math.ceil((Math.hypot(width, height) - Math.min(width, height)) / 2);
+	}
+	
 	//increase score lol
 	public void increaseScore() {
 		score++;
@@ -100,7 +140,7 @@ public class Bird implements ImageObserver {
 	}
 	
 	//return the score so it can be printed out
-	public Integer getScore() {
+	public int getScore() {
 		return score;
 	}
 	
@@ -114,6 +154,26 @@ public class Bird implements ImageObserver {
 		return y;
 	}
 	
+	//return the bird's y position at the start of the last tick
+	public int getPreviousY() {
+		return previousY;
+	}
+	
+	/**
+	 * Moves the bird back to where it was at some point during the last tick, for when it crashed into something partway through it. Its velocity
+	 * is left alone.
+	 * 
+	 * @param time - how far through the tick, from 0 to 1
+	 */
+	public void stopAt(double time) {
+		y = previousY + (int)Math.round((y - previousY) * time);
+	}
+	
+	//return the bird's y position blended between the last tick and the current one
+	public int getY(double alpha) {
+		return (int)Math.round(previousY + (y - previousY) * alpha);
+	}
+	
 	/**
 	 * This method will apply a force to the birds acceleration, which will then be added to the velocity
 	 */
@@ -127,19 +187,9 @@ public class Bird implements ImageObserver {
 	 * This method will apply the gravity constant to the bird's velocity every single frame, increasing its overall speed over time.
 	 */
 	public void fall() {
-		//continuously add a gravitational force to the object to force it to the ground. 
-		acceleration += gravity;
-		velocity += acceleration;
+		previousY = y;
 		
-		//Only apply air resistance to the velocity if the velocity is positive (object falling down). If applied to the object when soaring upwards, the
-		//force pushing it up would be opposed by air resistance, which only works upwards, not downwards.
-		if(velocity >= 0)
-			velocity *= AIR_RESISTANCE;
-		
-		//In order to restrict how fast the bird can flap upwards, I made up this idea of a force that, alongside gravity, also opposes the force of the 
-		//birds flap. This is to prevent the bird from soaring too high when the force is applied by the space bar.
-		else 
-			velocity *= FLAP_RESISTANCE;
+		velocity = nextVelocity(velocity, acceleration);
 		
 		//finally, add the velocity to the position.
 		y += (int)velocity;
@@ -156,20 +206,81 @@ public class Bird implements ImageObserver {
 		acceleration = 0;
 	}
 	
+	/**
+	 * The physics of one tick of falling, on plain numbers so that code simulating many birds at once (like the Trainer) uses exactly the same rules
+	 * as a Bird object does.
+	 * 
+	 * @param velocity - the bird's velocity before this tick
+	 * @param acceleration - any force applied this tick, such as a flap. Gravity is added on top of it.
+	 * @return the bird's velocity after this tick
+	 */
+	static double nextVelocity(double velocity, double acceleration) {
+		//continuously add a gravitational force to the object to force it to the ground. 
+		velocity += acceleration + GRAVITY;
+		
+		//Only apply air resistance to the velocity if the velocity is positive (object falling down). If applied to the object when soaring upwards, the
+		//force pushing it up would be opposed by air resistance, which only works upwards, not downwards.
+		if(velocity >= 0)
+			velocity *= AIR_RESISTANCE;
+		
+		//In order to restrict how fast the bird can flap upwards, I made up this idea of a force that, alongside gravity, also opposes the force of the 
+		//birds flap. This is to prevent the bird from soaring too high when the force is applied by the space bar.
+		else 
+			velocity *= FLAP_RESISTANCE;
+		return velocity;
+	}
+	
 	public double getVelocity() {
 		return velocity;
 	}
 	
+	double getAcceleration() {
+		return acceleration;
+	}
+	
 	public void reset() {
 		x = START_X;
 		y = START_Y;
+		previousY = y;
 	}
 	
-	@Override
-	public boolean imageUpdate(Image arg0, int arg1, int arg2, int arg3, int arg4, int arg5) {
-		// TODO Auto-generated method stub
-		return false;
+	//how many longs save() writes
+	static final int SNAPSHOT_SIZE = 7;
+	
+	/**
+	 * Writes everything about the bird that changes while playing into a snapshot, as plain numbers. See GameState.save().
+	 * 
+	 * @param snapshot - where to write
+	 * @param at - where in the snapshot to start
+	 * @return the position just after what was written
+	 */
+	int save(long[] snapshot, int at) {
+		snapshot[at] = x;
+		snapshot[at + 1] = y;
+		snapshot[at + 2] = previousY;
+		snapshot[at + 3] = frame;
+		snapshot[at + 4] = score;
+		snapshot[at + 5] = Double.doubleToRawLongBits(velocity);
+		snapshot[at + 6] = Double.doubleToRawLongBits(acceleration);
+		return at + SNAPSHOT_SIZE;
+	}
+	
+	/**
+	 * Puts the bird back the way save() found it.
+	 * 
+	 * @return the position just after what was read
+	 */
+	int restore(long[] snapshot, int at) {
+		x = (int)snapshot[at];
+		y = (int)snapshot[at + 1];
+		previousY = (int)snapshot[at + 2];
+		frame = (int)snapshot[at + 3];
+		score = (int)snapshot[at + 4];
+		velocity = Double.longBitsToDouble(snapshot[at + 5]);
+		acceleration = Double.longBitsToDouble(snapshot[at + 6]);
+		return at + SNAPSHOT_SIZE;
 	}
 	
 	
+	
 }
@@ -0,0 +1,78 @@
+package myFlappyBird;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A sink that keeps the mixed sound in memory instead of playing it, so the mixer can be run and measured on a machine without a sound card. The
+ * buffer is a ring holding the most recent sound.
+ *
+ * Made with a buffer size, it behaves like a sound card with that much buffer: it takes in sound only as fast as it would be played, and write()
+ * waits while the buffer is full, so the mixer runs at its real pace and the latency it adds can be measured. Made without one, it takes sound as
+ * fast as the mixer can make it, which measures how fast the mixing itself is.
+ */
+public class BufferSink implements AudioSink {
+	private final byte[] ring;
+	private final int bufferSize;
+	private final double bytesPerNano;
+	private volatile long written;
+	private long start;
+
+	/**
+	 * @param capacity - how many bytes of the most recent sound to keep
+	 * @param bufferSize - how many bytes a sound card would hold before playing them, or 0 to not wait at all
+	 */
+	public BufferSink(int capacity, int bufferSize) {
+		ring = new byte[capacity];
+		this.bufferSize = bufferSize;
+		bytesPerNano = SoundEffects.FORMAT.getFrameRate() * SoundEffects.FORMAT.getFrameSize() / 1e9;
+	}
+
+	@Override
+	public void write(byte[] data, int length) {
+		if(bufferSize > 0) {
+			//wait until the pretend sound card has played enough to make room
+			if(start == 0)
+				start = System.nanoTime();
+			long played;
+			while(written + length - (played = (long)((System.nanoTime() - start) * bytesPerNano)) > bufferSize)
+				LockSupport.parkNanos((long)((written + length - played - bufferSize) / bytesPerNano));
+		}
+
+		//copy into the ring in at most two pieces, wrapping around its end
+		int offset = 0;
+		while(offset < length) {
+			int at = (int)((written + offset) % ring.length);
+			int count = Math.min(length - offset, ring.length - at);
+			System.arraycopy(data, offset, ring, at, count);
+			offset += count;
+		}
+		written += length;
+	}
+
+	@Override
+	public int getBufferSize() {
+		return bufferSize;
+	}
+
+	@Override
+	public void close() {
+	}
+
+	/**
+	 * @return how many bytes have been written in total
+	 */
+	public long getWritten() {
+		return written;
+	}
+
+	/**
+	 * Copies the most recent sound out of the ring, oldest first.
+	 *
+	 * @param out - where to copy it to. Its length is how much is copied, at most the capacity.
+	 */
+	public void copyRecent(byte[] out) {
+		int length = (int)Math.min(Math.min(out.length, ring.length), written);
+		for(int i = 0; i < length; i++)
+			out[i] = ring[(int)((written - length + i) % ring.length)];
+	}
+}
@@ -0,0 +1,121 @@
+package myFlappyBird;
+
+/**
+ * Which pixels of a sprite are solid, packed 64 to a long. A pixel counts as solid if it's at least half opaque, so the soft edges of a sprite don't
+ * count as a hit. Each row of the sprite starts on a new long, with the leftmost pixel of every long in its lowest bit.
+ *
+ * Because 64 pixels fit in one long, two masks can be checked for overlapping solid pixels 64 pixels at a time with a single AND, instead of
+ * comparing pixel by pixel. Masks are made once when the images are loaded and never change, and like the rest of the game rules they don't depend
+ * on AWT, so they can be used without a display.
+ */
+public class CollisionMask {
+	private static final int ALPHA_THRESHOLD = 128;
+
+	private final int width, height, wordsPerRow;
+	private final long[] bits;
+
+	//the smallest box around the solid pixels, so masks whose solid parts are nowhere near each other are told apart without looking at any bits
+	private int solidLeft, solidTop, solidRight, solidBottom;
+
+	private CollisionMask(int width, int height) {
+		this.width = width;
+		this.height = height;
+		wordsPerRow = (width + 63) >>> 6;
+		bits = new long[wordsPerRow * height];
+	}
+
+	/**
+	 * Builds a mask from the pixels of a sprite.
+	 *
+	 * @param argb - the sprite's pixels, row by row, in the ARGB format BufferedImage.getRGB() returns
+	 * @param width - width of the sprite
+	 * @param height - height of the sprite
+	 * @return the mask
+	 */
+	public static CollisionMask fromArgb(int[] argb, int width, int height) {
+		CollisionMask mask = new CollisionMask(width, height);
+		for(int y = 0; y < height; y++) {
+			for(int x = 0; x < width; x++) {
+				if((argb[y * width + x] >>> 24) >= ALPHA_THRESHOLD)
+					mask.bits[y * mask.wordsPerRow + (x >>> 6)] |= 1L << (x & 63);
+			}
+		}
+		mask.findSolidBox();
+		return mask;
+	}
+
+	/**
+	 * Checks if any solid pixel of one mask lands on a solid pixel of another. Only the rows and columns where the boxes around the solid pixels of
+	 * both masks overlap are looked at, and each of those rows is compared 64 pixels at a time.
+	 *
+	 * @param a - the first mask
+	 * @param ax - x position of the first mask
+	 * @param ay - y position of the first mask
+	 * @param b - the second mask
+	 * @param bx - x position of the second mask
+	 * @param by - y position of the second mask
+	 * @return true if the masks touch
+	 */
+	public static boolean overlaps(CollisionMask a, int ax, int ay, CollisionMask b, int bx, int by) {
+		int left = Math.max(ax + a.solidLeft, bx + b.solidLeft), right = Math.min(ax + a.solidRight, bx + b.solidRight);
+		int top = Math.max(ay + a.solidTop, by + b.solidTop), bottom = Math.min(ay + a.solidBottom, by + b.solidBottom);
+		if(left >= right || top >= bottom)
+			return false;
+
+		for(int y = top; y < bottom; y++) {
+			int rowA = (y - ay) * a.wordsPerRow, rowB = (y - by) * b.wordsPerRow;
+			for(int x = left; x < right; x += 64) {
+				long both = word(a.bits, rowA, a.wordsPerRow, x - ax) & word(b.bits, rowB, b.wordsPerRow, x - bx);
+				int columns = right - x;
+				if(columns < 64)
+					both &= (1L << columns) - 1;
+				if(both != 0)
+					return true;
+			}
+		}
+		return false;
+	}
+
+	private void findSolidBox() {
+		solidLeft = width;
+		solidTop = height;
+		for(int y = 0; y < height; y++) {
+			for(int x = 0; x < width; x++) {
+				if(isSolid(x, y)) {
+					solidLeft = Math.min(solidLeft, x);
+					solidRight = Math.max(solidRight, x + 1);
+					solidTop = Math.min(solidTop, y);
+					solidBottom = Math.max(solidBottom, y + 1);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return the 64 pixels of a row starting at the given column, shifted so that column is in the lowest bit. Pixels past the right edge are 0.
+	 */
+	private static long word(long[] bits, int rowStart, int wordsPerRow, int column) {
+		int index = column >>> 6, shift = column & 63;
+		long word = bits[rowStart + index] >>> shift;
+		if(shift != 0 && index + 1 < wordsPerRow)
+			word |= bits[rowStart + index + 1] << (64 - shift);
+		return word;
+	}
+
+	/**
+	 * @return true if the pixel at (x, y) is solid
+	 */
+	public boolean isSolid(int x, int y) {
+		if(x < 0 || y < 0 || x >= width || y >= height)
+			return false;
+		return (bits[y * wordsPerRow + (x >>> 6)] & (1L << (x & 63))) != 0;
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+}
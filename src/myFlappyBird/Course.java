@@ -0,0 +1,75 @@
+package myFlappyBird;
+
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+/**
+ * The endless line of pipes a game plays through, worked out from a seed. The height of pipe number i is the i-th number the SplittableRandom made
+ * from that seed would hand out. SplittableRandom gets its i-th number by adding i steps of a fixed constant to the seed and scrambling the result,
+ * so it can be computed directly from i instead of by drawing the i-1 numbers before it. That means looking up any pipe, however far ahead, takes the
+ * same few multiplications, needs no Pipe objects and creates nothing, so a bot, a replay or a server can ask about upcoming pipes without running
+ * the game. The gap, speed and spacing of each pipe come from a pluggable Difficulty.
+ *
+ * The pipe images are very tall, and only part of the bottom one shows on the screen. Its visible height is picked between enough to stick out
+ * slightly over the ground and the whole image.
+ */
+public class Course {
+	//the step SplittableRandom adds to its seed for every number it hands out
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+	private final long seed;
+	private final int minBottomHeight, heightRange;
+	private final Difficulty difficulty;
+
+	/**
+	 * @param seed - seed for the pipe heights, the same one a SplittableRandom would take
+	 * @param groundHeight - height of the ground image in pixels
+	 * @param bottomPipeImageHeight - height of the bottom pipe image in pixels
+	 * @param difficulty - the gap, speed and spacing of each pipe
+	 */
+	public Course(long seed, int groundHeight, int bottomPipeImageHeight, Difficulty difficulty) {
+		this.seed = seed;
+		this.difficulty = difficulty;
+		minBottomHeight = groundHeight + 100;
+		heightRange = bottomPipeImageHeight - minBottomHeight + 1;
+	}
+
+	/**
+	 * @param index - number of the pipe since the course began, 0 being the first
+	 * @return how many pixels of the bottom pipe show on the screen
+	 */
+	public int bottomPipeHeight(long index) {
+		//scale the top 32 bits into the range instead of taking a remainder, which is faster and just as even
+		return minBottomHeight + (int)(((nextLong(index) >>> 32) * heightRange) >>> 32);
+	}
+
+	/**
+	 * @param fromIndex - number of the first pipe wanted
+	 * @return the heights of every pipe from that one on. The stream never ends, and each height is only worked out when it's asked for.
+	 */
+	public IntStream bottomPipeHeights(long fromIndex) {
+		return LongStream.iterate(fromIndex, i -> i + 1).mapToInt(this::bottomPipeHeight);
+	}
+
+	/**
+	 * @return the number a SplittableRandom made from this course's seed would hand out on its (index + 1)-th call to nextLong()
+	 */
+	long nextLong(long index) {
+		return mix64(seed + (index + 1) * GOLDEN_GAMMA);
+	}
+
+	//the same scrambling SplittableRandom uses
+	private static long mix64(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
+	public Difficulty getDifficulty() {
+		return difficulty;
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+}
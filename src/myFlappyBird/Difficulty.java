@@ -0,0 +1,95 @@
+package myFlappyBird;
+
+/**
+ * How hard each pipe of a run is: how big its gap is, how fast it scrolls, and how many ticks after the pipe before it it appears. Every value is
+ * worked out from the pipe's number in the run alone, so a difficulty never has to remember anything, and anything that knows the pipe number (the
+ * game, a bot looking ahead, a server) gets the same answer. A Course combines a difficulty with its random pipe heights.
+ *
+ * Write your own to try out other curves, or use one of the ones here.
+ */
+public interface Difficulty {
+	/**
+	 * The game as it always played: the same gap, speed and spacing for every pipe.
+	 */
+	Difficulty CLASSIC = constant(Pipe.PIPE_GAP, Pipe.SPEED, GameState.PIPE_SPAWN_TICKS);
+
+	/**
+	 * @param pipe - number of the pipe in the run, 0 being the first
+	 * @return how many pixels tall the gap between its top and bottom pipe is
+	 */
+	int gap(int pipe);
+
+	/**
+	 * @param pipe - number of the pipe in the run, 0 being the first
+	 * @return how many pixels it moves left every tick. From when it appears, the pipes in front of it and the ground move at that speed too.
+	 */
+	int speed(int pipe);
+
+	/**
+	 * @param pipe - number of the pipe in the run. Pipe 0 is there from the start, so this is only asked for later pipes.
+	 * @return how many ticks after the pipe before it this one appears
+	 */
+	int spawnTicks(int pipe);
+
+	/**
+	 * @return the fewest pixels there can ever be between two pipes, which decides how many pipes fit on the screen at once. Since all the pipes
+	 * move together, the space between two of them is the first one's speed times the ticks until the second, and never changes after that, so
+	 * the slowest speed times the fewest ticks is always enough.
+	 */
+	int minSpacing();
+
+	/**
+	 * @return a difficulty that never changes
+	 */
+	static Difficulty constant(final int gap, final int speed, final int spawnTicks) {
+		return new Difficulty() {
+			public int gap(int pipe) {
+				return gap;
+			}
+
+			public int speed(int pipe) {
+				return speed;
+			}
+
+			public int spawnTicks(int pipe) {
+				return spawnTicks;
+			}
+
+			public int minSpacing() {
+				return speed * spawnTicks;
+			}
+		};
+	}
+
+	/**
+	 * A difficulty that gets harder every few pipes: the gap shrinks by a pixel and the pipes speed up by a pixel per tick, until each reaches its
+	 * limit. The spacing stays the same in ticks, so faster pipes are also further apart. Pipes that are already on the screen speed up along with
+	 * the new one, so the space between them only ever grows.
+	 *
+	 * @param startGap - gap of the first pipes
+	 * @param minGap - the smallest the gap gets
+	 * @param startSpeed - speed of the first pipes
+	 * @param maxSpeed - the fastest the pipes get
+	 * @param pipesPerStep - how many pipes go by before the gap shrinks, and how many gap steps before the speed goes up
+	 * @param spawnTicks - ticks between two pipes
+	 */
+	static Difficulty ramp(final int startGap, final int minGap, final int startSpeed, final int maxSpeed, final int pipesPerStep, final int spawnTicks) {
+		return new Difficulty() {
+			public int gap(int pipe) {
+				return Math.max(minGap, startGap - pipe / pipesPerStep);
+			}
+
+			public int speed(int pipe) {
+				return Math.min(maxSpeed, startSpeed + pipe / (pipesPerStep * pipesPerStep));
+			}
+
+			public int spawnTicks(int pipe) {
+				return spawnTicks;
+			}
+
+			public int minSpacing() {
+				return Math.min(startSpeed, maxSpeed) * spawnTicks;
+			}
+		};
+	}
+}
@@ -0,0 +1,141 @@
+package myFlappyBird;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+
+/**
+ * The digits 0 to 9 drawn once in a given font and colour, so numbers like the score and the FPS can be drawn every frame by copying those images
+ * digit by digit. Drawing text with drawString() needs a String, which means turning the number into a new String every frame, and text layout
+ * allocates on top of that. Copying a few small images allocates nothing at all.
+ *
+ * The digits can also be put into a SpriteAtlas with addTo() and useAtlas(), so they're copied from the same image as everything else.
+ */
+public class DigitGlyphs {
+	private final BufferedImage[] digits = new BufferedImage[10];
+	private final int ascent, digitWidth;
+	private SpriteAtlas atlas;
+	private int firstSprite;
+
+	/**
+	 * @param font - font to draw the digits in
+	 * @param color - colour of the digits
+	 */
+	public DigitGlyphs(Font font, Color color) {
+		FontMetrics metrics = metrics(font);
+		ascent = metrics.getAscent();
+		int widest = 0;
+		for(char c = '0'; c <= '9'; c++)
+			widest = Math.max(widest, metrics.charWidth(c));
+		digitWidth = widest;
+		for(int i = 0; i < 10; i++)
+			digits[i] = renderText(String.valueOf((char)('0' + i)), font, color);
+	}
+
+	/**
+	 * Draws a number with its first digit at x and its baseline at y, the same place drawString() would put it. Every digit takes up the width of
+	 * the widest one, so numbers don't jiggle as they change.
+	 *
+	 * @param g - graphics object to draw with
+	 * @param value - the number to draw. Negative numbers are drawn as 0.
+	 * @param x - left edge of the number
+	 * @param y - baseline of the number
+	 * @return the x position just after the last digit
+	 */
+	public int drawNumber(Graphics g, int value, int x, int y) {
+		if(value < 0)
+			value = 0;
+
+		//count the digits first, then draw them from the last one back to the first
+		int length = length(value);
+		int top = y - ascent;
+		for(int i = length - 1; i >= 0; i--) {
+			if(atlas != null)
+				atlas.draw(g, firstSprite + value % 10, x + i * digitWidth, top);
+			else
+				g.drawImage(digits[value % 10], x + i * digitWidth, top, null);
+			value /= 10;
+		}
+		return x + length * digitWidth;
+	}
+
+	/**
+	 * Adds the ten digits to an atlas that's being built. Numbers are still drawn from their own images until useAtlas() is called with the atlas.
+	 */
+	public void addTo(SpriteAtlas.Builder builder) {
+		firstSprite = builder.add(digits[0]);
+		for(int i = 1; i < 10; i++)
+			builder.add(digits[i]);
+	}
+
+	/**
+	 * @param atlas - the atlas built from the builder given to addTo(), to draw the digits from from now on
+	 */
+	public void useAtlas(SpriteAtlas atlas) {
+		this.atlas = atlas;
+	}
+
+	/**
+	 * @return how many digits a number has. Negative numbers count as 0.
+	 */
+	public static int length(int value) {
+		int length = 1;
+		for(int rest = value / 10; rest > 0; rest /= 10)
+			length++;
+		return length;
+	}
+
+	/**
+	 * @return how tall the image of a digit is, from the top of its ascent to the bottom of its descent
+	 */
+	public int getHeight() {
+		return digits[0].getHeight();
+	}
+
+	/**
+	 * @return how far the digits reach above their baseline
+	 */
+	public int getAscent() {
+		return ascent;
+	}
+
+	/**
+	 * @return the width of a number with that many digits
+	 */
+	public int width(int length) {
+		return length * digitWidth;
+	}
+
+	/**
+	 * Draws a piece of text into its own image once, sized to fit, so it can be copied onto the screen every frame instead of laid out again.
+	 *
+	 * @param text - the text to draw
+	 * @param font - font to draw it in
+	 * @param color - colour of the text
+	 * @return an image of the text, whose top edge is at the top of the font's ascent
+	 */
+	public static BufferedImage renderText(String text, Font font, Color color) {
+		FontMetrics metrics = metrics(font);
+		BufferedImage image = new BufferedImage(Math.max(1, metrics.stringWidth(text)), metrics.getAscent() + metrics.getDescent(),
+				BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = image.createGraphics();
+		g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+		g.setFont(font);
+		g.setColor(color);
+		g.drawString(text, 0, metrics.getAscent());
+		g.dispose();
+		return Assets.toCompatibleImage(image);
+	}
+
+	//font metrics without needing anything on the screen
+	private static FontMetrics metrics(Font font) {
+		Graphics2D g = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB).createGraphics();
+		FontMetrics metrics = g.getFontMetrics(font);
+		g.dispose();
+		return metrics;
+	}
+}
@@ -0,0 +1,263 @@
+package myFlappyBird;
+
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+
+/**
+ * Draws only the parts of the screen that changed since the last frame. Most of a Flappy Bird frame is sky that stays put: between two frames only
+ * the bird, the pipes, the scrolling ground and the numbers move. This keeps the whole picture in an image of its own that survives from one frame to
+ * the next, works out which rectangles of it are out of date (the "damage"), redraws the scene clipped to just those rectangles, and copies only
+ * those rectangles onto the screen. On a slow machine that's a fraction of the pixels a full redraw touches.
+ *
+ * What counts as damage each frame:
+ * <ul>
+ * <li>the bird's old and new position, with room for it to be tilted</li>
+ * <li>the strip the ghosts of earlier runs cover, where it was and where it is now</li>
+ * <li>the strip every pipe covers, where it was and where it is now</li>
+ * <li>the ground, whenever it scrolled</li>
+ * <li>the score, whenever it changed</li>
+ * <li>anything added with damage(), such as the FPS counter</li>
+ * <li>the whole screen on the first frame, when the game starts, ends or restarts, and after damageAll()</li>
+ * </ul>
+ * Rectangles that touch are merged whenever the merged rectangle isn't bigger than the two were together, so a pipe moving a few pixels is one
+ * rectangle instead of two, but the ground and a pipe above it don't turn into one huge box. Every rectangle is redrawn with all the layers of the
+ * scene in order, so whatever else overlaps it, like the bird flying in front of a pipe, comes out right.
+ *
+ * The damage is worked out on the board the game is played on, and only turned into screen pixels when painting, so it works the same when the game
+ * is drawn bigger or smaller than the board. Each rectangle is grown by a pixel on every side then, since the scaled sprites are rounded to whole
+ * pixels.
+ */
+public class DirtyRenderer {
+	/**
+	 * Something that draws a whole frame. It will be called once per damaged rectangle with the clip set to that rectangle.
+	 */
+	public interface Scene {
+		void draw(Graphics g);
+	}
+
+	private static final int MAX_RECTANGLES = 32;
+
+	private final int width, height;
+	private BufferedImage frame;
+	private Graphics2D frameGraphics;
+	private double scale;
+	private final int[] x = new int[MAX_RECTANGLES], y = new int[MAX_RECTANGLES], w = new int[MAX_RECTANGLES], h = new int[MAX_RECTANGLES];
+	private int count;
+	private volatile boolean wholeScreen = true;
+
+	//where things were drawn last frame
+	private int lastBirdY, lastGroundX, lastScore, lastPipeCount;
+	private int[] lastPipeX = new int[8];
+	private boolean lastGameOver, lastStarted;
+	private final Rectangle scoreBounds = new Rectangle(), ghostBounds = new Rectangle(), lastGhostBounds = new Rectangle();
+
+	private long pixelsDrawn, frames, totalPixels;
+
+	/**
+	 * @param width - width of the board
+	 * @param height - height of the board
+	 */
+	public DirtyRenderer(int width, int height) {
+		this.width = width;
+		this.height = height;
+	}
+
+	/**
+	 * Marks a rectangle as needing to be redrawn this frame.
+	 */
+	public void damage(int rx, int ry, int rw, int rh) {
+		//clip to the screen first, and skip anything that's entirely off of it
+		int left = Math.max(0, rx), top = Math.max(0, ry), right = Math.min(width, rx + rw), bottom = Math.min(height, ry + rh);
+		if(left >= right || top >= bottom)
+			return;
+
+		//merge with every rectangle this one touches, as long as that doesn't mean redrawing pixels neither of them covered. Then check the grown
+		//rectangle again, until there's nothing left to merge with.
+		for(int i = 0; i < count; i++) {
+			int unionLeft = Math.min(left, x[i]), unionTop = Math.min(top, y[i]);
+			int unionRight = Math.max(right, x[i] + w[i]), unionBottom = Math.max(bottom, y[i] + h[i]);
+			long unionArea = (long)(unionRight - unionLeft) * (unionBottom - unionTop);
+			long areas = (long)(right - left) * (bottom - top) + (long)w[i] * h[i];
+			if(left <= x[i] + w[i] && x[i] <= right && top <= y[i] + h[i] && y[i] <= bottom && unionArea <= areas) {
+				left = unionLeft;
+				top = unionTop;
+				right = unionRight;
+				bottom = unionBottom;
+				count--;
+				x[i] = x[count];
+				y[i] = y[count];
+				w[i] = w[count];
+				h[i] = h[count];
+				i = -1;
+			}
+		}
+		if(count == MAX_RECTANGLES) {
+			wholeScreen = true;
+			return;
+		}
+		x[count] = left;
+		y[count] = top;
+		w[count] = right - left;
+		h[count] = bottom - top;
+		count++;
+	}
+
+	/**
+	 * Marks the whole screen as needing to be redrawn, for example after the window was covered up.
+	 */
+	public void damageAll() {
+		wholeScreen = true;
+	}
+
+	/**
+	 * Works out what the game changed since the last frame, and adds it to the damage.
+	 *
+	 * @param state - the game about to be drawn
+	 * @param alpha - the same alpha the frame will be drawn with
+	 * @param renderer - the renderer that draws the game, for where it puts the score
+	 */
+	public void track(GameState state, double alpha, GameRenderer renderer) {
+		Bird bird = state.getBird();
+		int birdY = bird.getY(alpha), groundX = state.getGroundX(alpha), score = bird.getScore();
+		PipeRing pipes = state.getPipes();
+
+		//the game over screen and restarting change most of the screen anyway
+		if(state.isGameOver() != lastGameOver || state.isGameStarted() != lastStarted)
+			wholeScreen = true;
+
+		//a bird that tilts is drawn turned on a bigger canvas, and may have turned without moving
+		int padding = state.getBirdAngleStep() > 0 ? Bird.rotationPadding(bird.getBirdWidth(), bird.getBirdHeight()) : 0;
+		damage(bird.getX() - padding, Math.min(birdY, lastBirdY) - padding, bird.getBirdWidth() + padding * 2,
+				Math.abs(birdY - lastBirdY) + bird.getBirdHeight() + padding * 2);
+
+		//the ghosts all fly in the bird's column, so one rectangle from the highest to the lowest covers them, where they were and where they are.
+		//Ghosts in between can move without the ends moving, so it's damaged every frame there are any.
+		renderer.getGhostBounds(state, alpha, ghostBounds);
+		damage(lastGhostBounds.x, lastGhostBounds.y, lastGhostBounds.width, lastGhostBounds.height);
+		damage(ghostBounds.x, ghostBounds.y, ghostBounds.width, ghostBounds.height);
+		lastGhostBounds.setBounds(ghostBounds);
+
+		//the pipes reach from the top of the screen down behind the ground, so damage their whole column above the ground where they were and where
+		//they are, unless a pipe is exactly where one was last frame (when the game is over and nothing moves)
+		int pipeWidth = pipes.getFirst().getWidth(), groundY = state.getGroundY();
+		for(int i = 0; i < lastPipeCount; i++) {
+			if(!pipeAt(pipes, alpha, lastPipeX[i]))
+				damage(lastPipeX[i], 0, pipeWidth, groundY);
+		}
+		for(int i = 0; i < pipes.size(); i++) {
+			int pipeX = pipes.get(i).getX(alpha);
+			if(!lastPipeAt(pipeX))
+				damage(pipeX, 0, pipeWidth, groundY);
+		}
+		if(lastPipeX.length < pipes.size())
+			lastPipeX = new int[pipes.getCapacity()];
+		for(int i = 0; i < pipes.size(); i++)
+			lastPipeX[i] = pipes.get(i).getX(alpha);
+		lastPipeCount = pipes.size();
+
+		if(groundX != lastGroundX)
+			damage(0, groundY, width, height - groundY);
+
+		if(score != lastScore) {
+			renderer.getScoreBounds(Math.max(score, lastScore), scoreBounds);
+			damage(scoreBounds.x, scoreBounds.y, scoreBounds.width, scoreBounds.height);
+		}
+
+		lastBirdY = birdY;
+		lastGroundX = groundX;
+		lastScore = score;
+		lastGameOver = state.isGameOver();
+		lastStarted = state.isGameStarted();
+	}
+
+	private static boolean pipeAt(PipeRing pipes, double alpha, int pipeX) {
+		for(int i = 0; i < pipes.size(); i++) {
+			if(pipes.get(i).getX(alpha) == pipeX)
+				return true;
+		}
+		return false;
+	}
+
+	private boolean lastPipeAt(int pipeX) {
+		for(int i = 0; i < lastPipeCount; i++) {
+			if(lastPipeX[i] == pipeX)
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Redraws the damaged rectangles of the kept frame and copies them onto the screen, then forgets the damage.
+	 *
+	 * @param screen - graphics object for the screen, with the top left corner of the board at 0, 0 and no scaling of its own
+	 * @param scene - draws a whole frame
+	 * @param scale - how many screen pixels the scene draws for every pixel of the board
+	 * @return how many pixels were redrawn
+	 */
+	public long paint(Graphics screen, Scene scene, double scale) {
+		//a new scale needs a kept frame of a new size, with nothing in it yet
+		if(scale != this.scale) {
+			if(frameGraphics != null)
+				frameGraphics.dispose();
+			frame = Assets.createImage(GameRenderer.scaled(width, scale), GameRenderer.scaled(height, scale), Transparency.OPAQUE);
+			frameGraphics = frame.createGraphics();
+			this.scale = scale;
+			wholeScreen = true;
+		}
+		if(wholeScreen) {
+			wholeScreen = false;
+			x[0] = 0;
+			y[0] = 0;
+			w[0] = width;
+			h[0] = height;
+			count = 1;
+		}
+
+		//the frame's graphics object is kept from one frame to the next, so only the clip changes
+		//turn the rectangles into pixels of the kept frame, in place
+		int frameWidth = frame.getWidth(), frameHeight = frame.getHeight();
+		for(int i = 0; i < count; i++) {
+			int left = Math.max(0, (int)Math.floor(x[i] * scale) - 1), top = Math.max(0, (int)Math.floor(y[i] * scale) - 1);
+			int right = Math.min(frameWidth, (int)Math.ceil((x[i] + w[i]) * scale) + 1);
+			int bottom = Math.min(frameHeight, (int)Math.ceil((y[i] + h[i]) * scale) + 1);
+			x[i] = left;
+			y[i] = top;
+			w[i] = right - left;
+			h[i] = bottom - top;
+		}
+
+		long pixels = 0;
+		for(int i = 0; i < count; i++) {
+			frameGraphics.setClip(x[i], y[i], w[i], h[i]);
+			scene.draw(frameGraphics);
+			pixels += (long)w[i] * h[i];
+		}
+		for(int i = 0; i < count; i++) {
+			int right = x[i] + w[i], bottom = y[i] + h[i];
+			screen.drawImage(frame, x[i], y[i], right, bottom, x[i], y[i], right, bottom, null);
+		}
+		count = 0;
+
+		pixelsDrawn = pixels;
+		totalPixels += pixels;
+		frames++;
+		return pixels;
+	}
+
+	/**
+	 * @return how many pixels the last frame redrew
+	 */
+	public long getPixelsDrawn() {
+		return pixelsDrawn;
+	}
+
+	/**
+	 * @return the average share of the screen redrawn per frame so far, from 0 to 1
+	 */
+	public double getAverageCoverage() {
+		return frames == 0 ? 0 : (double)totalPixels / frames / ((long)frame.getWidth() * frame.getHeight());
+	}
+}
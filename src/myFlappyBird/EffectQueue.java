@@ -0,0 +1,75 @@
+package myFlappyBird;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sound effects on their way from the game loop to the AudioMixer's thread, each one with the System.nanoTime() it was asked for at. It works just
+ * like InputQueue, with the effect number and its time kept side by side in two arrays, so neither has to give up any bits to the other.
+ *
+ * Exactly one thread may offer and exactly one thread may take effects out. Both slots are written before the tail counter is moved on, and the
+ * consumer only looks at slots below the tail, so it never sees an effect without its time. The counters only ever grow, and their low bits pick
+ * the slot.
+ */
+public class EffectQueue {
+	private final int[] effects;
+	private final long[] timestamps;
+	private final int mask;
+	private final AtomicLong head = new AtomicLong(), tail = new AtomicLong();
+
+	/**
+	 * @param capacity - most effects that can wait at once, rounded up to a power of two
+	 */
+	public EffectQueue(int capacity) {
+		int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+		effects = new int[size];
+		timestamps = new long[size];
+		mask = size - 1;
+	}
+
+	/**
+	 * Adds an effect. Only call from the one producing thread.
+	 *
+	 * @param effect - which effect to play
+	 * @param nanos - System.nanoTime() when it was asked for
+	 * @return false if the queue was full and the effect was dropped
+	 */
+	public boolean offer(int effect, long nanos) {
+		long t = tail.get();
+		if(t - head.get() == effects.length)
+			return false;
+		effects[(int)t & mask] = effect;
+		timestamps[(int)t & mask] = nanos;
+		tail.lazySet(t + 1);
+		return true;
+	}
+
+	/**
+	 * The rest of the methods are only for the one consuming thread.
+	 *
+	 * @return true if there's no effect waiting
+	 */
+	public boolean isEmpty() {
+		return head.get() == tail.get();
+	}
+
+	/**
+	 * @return the oldest waiting effect. Only call when the queue isn't empty.
+	 */
+	public int peekEffect() {
+		return effects[(int)head.get() & mask];
+	}
+
+	/**
+	 * @return when the oldest waiting effect was asked for. Only call when the queue isn't empty.
+	 */
+	public long peekTimestamp() {
+		return timestamps[(int)head.get() & mask];
+	}
+
+	/**
+	 * Takes the oldest effect out, once peekEffect() and peekTimestamp() have been read. Only call when the queue isn't empty.
+	 */
+	public void remove() {
+		head.lazySet(head.get() + 1);
+	}
+}
@@ -1,242 +1,692 @@
 package myFlappyBird;
 
+import java.awt.Canvas;
 import java.awt.Color;
-
-
+import java.awt.Component;
+import java.awt.DisplayMode;
 import java.awt.Font;
 import java.awt.Graphics;
-import java.awt.Image;
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.Toolkit;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
-import java.io.File;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferStrategy;
 import java.io.IOException;
-import java.util.LinkedList;
+import java.io.InterruptedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
-import javax.imageio.ImageIO;
+import javax.sound.sampled.LineUnavailableException;
 import javax.swing.JFrame;
 import javax.swing.JPanel;
-import javax.swing.Timer;
 
 @SuppressWarnings("serial")
 /**
- * The main class whereby the game logic will be invoked. The class inherits from the JPanel container, allowing me direct access to its methods, and it will
- * implement the ActionListener and KeyListener interfaces to determine how often the paint() method is called and allow keyboard input, respectively.
- * 
+ * The main class whereby the game is shown in a window. All of the rules of the game live in GameState and the drawing lives in GameRenderer, so this
+ * class is only the Swing side of things: the window, the keyboard and the game loop. The class inherits from the JPanel container, allowing me
+ * direct access to its methods, and it will implement the GameLoop.Game and KeyListener interfaces so the game loop can update and draw the game, and
+ * to allow keyboard input, respectively.
+ *
+ * The game loop calls update() and render() from its own thread while paint() runs on the Swing thread, so they lock on this panel to make sure the
+ * game is never drawn or changed halfway through a tick. Pressing the space bar doesn't touch the game or take that lock: keyPressed() only puts
+ * the time of the press into a lock free InputQueue, and the next tick takes it out. Once the first frame after that tick has been shown, the time
+ * from the key press to that frame is recorded as the input latency, which the F3 overlay and Java Flight Recorder (InputLatencyEvent) show.
+ *
+ * The game can be drawn two ways. In passive mode (-Dflappy.render=passive) the game loop asks Swing to repaint the panel, and Swing calls paint()
+ * whenever it gets around to it. In active mode, which is the default, the panel is swapped out for a Canvas with a page flipping BufferStrategy, and
+ * the game loop draws every frame itself and flips it onto the screen right away. Both modes share drawGame(), so they draw exactly the same thing,
+ * and both record how long each frame took to draw so the two can be compared (see RenderComparison).
+ *
+ * There is also a dirty rectangle mode (-Dflappy.render=dirty) for slow machines. Like active mode the game loop draws the frames itself, but a
+ * DirtyRenderer only redraws and copies to the screen the parts of the frame that changed, straight onto the canvas.
+ *
+ * The window can be resized, and the game is drawn as big as fits in it, with black bars on the sides that don't match its shape. On a high resolution
+ * screen it's drawn at the screen's real resolution too. The game itself is always played on the same 600x800 board; only GameRenderer's sprites
+ * are resized, in the background, whenever the window changes size (see SpriteCache).
+ *
+ * The window opens right away and shows a loading screen while Assets decodes the images on worker threads. Once the first frame of the game is on
+ * the screen, the time since the program was launched is sent to Java Flight Recorder as a StartupEvent (and printed with -Dflappy.stats=true).
+ *
+ * The bird tilts with its velocity, turned by pre-rotated sprites and collision masks -Dflappy.rotationStep degrees apart (5 by default, 0 to keep
+ * it level), see GameRenderer.
+ *
+ * Flapping, scoring and crashing play sound effects through an AudioMixer on the default sound output, unless started with -Dflappy.sound=false.
+ * Without a sound output the game just stays quiet.
+ *
+ * Pressing F2 (or starting with -Dflappy.autopilot=true) lets an Autopilot play instead of the space bar. Runs it played any part of aren't saved to
+ * the ScoreStore.
+ *
+ * Pressing F3 (or starting with -Dflappy.stats=true) shows how long the parts of each frame take, from the histograms kept by FrameRate.
+ *
+ * Starting with -Dflappy.record=file records the run, and adds it to that file when the window is closed. Starting with -Dflappy.replay=file plays
+ * the first run in that file back in real time instead of listening to the space bar (ReplayPlayer plays them back without a window,
+ * and FrameExporter turns them into PNG frames for a clip).
+ *
+ * Starting with -Dflappy.ghosts=true shows every earlier run of this session as a see-through ghost racing the bird, and -Dflappy.ghosts=file does
+ * the same with every run in that replay file as well (see GhostTracks).
+ *
+ * Every finished run is saved to a ScoreStore (-Dflappy.scores=file, by default .flappybird/scores.log in the home folder), so the best score is
+ * remembered between sessions and shown on the game over screen.
+ *
  * @author Darien Miller
  *
  */
-public class FlappyBird extends JPanel implements ActionListener, KeyListener{
+public class FlappyBird extends JPanel implements GameLoop.Game, KeyListener{
+	/**
+	 * The ways the game can be drawn.
+	 */
+	public enum RenderMode {
+		PASSIVE, ACTIVE, DIRTY
+	}
+
 	private static final int WIDTH = 600, HEIGHT = 800;
-	private int frames, groundX, groundY, groundImageWidth, groundSpeed = 5, highScore;
+	private static final int DEFAULT_TICKS_PER_SECOND = 60;
+	private static final int LOADING_REDRAW_MILLIS = 50;
+	private static final Color LOADING_SKY = new Color(0x4ec0ca);
+	private static final Font LOADING_FONT = new Font("Arial", Font.PLAIN, 30);
     private FrameRate FPS;
-	private Timer t;
+	private GameLoop loop;
+	private double alpha;
+	private final boolean activeRendering;
+	private final RenderMode mode;
+	private DirtyRenderer dirty;
 	private JFrame frame;
-	private Bird bird;
-	private LinkedList<Pipe> pipes;
-	private Image sky, ground, gameOver;
-	private boolean isGameOver, gameIsStarted;
+	private Canvas canvas;
+	private BufferStrategy strategy;
+	private volatile GameRenderer renderer;
+	private GameState game;
+	private final InputQueue input = new InputQueue(64);
+
+	//the press applied by the last ticks that no frame has shown yet, and when it was applied. Guarded by this.
+	private long unshownPress = InputQueue.EMPTY, unshownTick;
+	private ReplayRecorder recorder;
+	private Path recordFile;
+	private Replay.Playback playback;
+	private ScoreStore scores;
+	private AudioMixer audio;
+	private long runStart;
+	private Autopilot autopilot;
+	private volatile boolean autopilotOn = Boolean.getBoolean("flappy.autopilot");
+	private boolean assisted;
+	private GhostTracks ghosts;
+	private volatile boolean showStats = Boolean.getBoolean("flappy.stats");
+
+	//the size of what the game is drawn on in real screen pixels, and whether the bars beside the board need to be filled in again
+	private volatile int pixelWidth, pixelHeight;
+	private volatile boolean barsLost = true;
+
+	//startup timing, written once by whichever thread shows the first frame of the game
+	private final long windowStart;
+	private volatile long assetLoadTime;
+	private volatile long timeToFirstFrame = -1;
 
 	public FlappyBird() throws IOException {
+		this(RenderMode.valueOf(System.getProperty("flappy.render", "active").toUpperCase()));
+	}
+
+	/**
+	 * @param activeRendering - true to draw frames from the game loop through a BufferStrategy, false to let Swing repaint the panel
+	 * @throws IOException - thrown if one of the images could not be loaded
+	 */
+	public FlappyBird(boolean activeRendering) throws IOException {
+		this(activeRendering ? RenderMode.ACTIVE : RenderMode.PASSIVE);
+	}
+
+	/**
+	 * @param mode - how the game is drawn
+	 * @throws IOException - thrown if one of the images could not be loaded
+	 */
+	public FlappyBird(RenderMode mode) throws IOException {
+		windowStart = System.nanoTime();
+		this.mode = mode;
+		activeRendering = mode != RenderMode.PASSIVE;
+
+		//decode every image once up front, so nothing has to be read from disk while the game is running. That happens on worker threads, while
+		//everything that doesn't need the images is set up here and the window shows that it's loading.
+		CompletableFuture<Void> assets = Assets.loadAsync();
+		assets.thenRun(() -> assetLoadTime = System.nanoTime() - windowStart);
 		frame = new JFrame("Flappy Bird!");
-		gameOver = ImageIO.read(new File("C:\\Users\\Darien Miller\\Desktop\\flappyBirdGameOver.png"));
-		sky = ImageIO.read(new File("C:\\Users\\Darien Miller\\Desktop\\flappyBirdSunnyBackground.png")).getScaledInstance(WIDTH, HEIGHT, Image.SCALE_DEFAULT);
-		ground = ImageIO.read(new File("C:\\Users\\Darien Miller\\Desktop\\ground.png"));
-		groundY = HEIGHT - ground.getHeight(this);
-		groundImageWidth = ground.getWidth(this);
-		bird = new Bird(WIDTH / 2, HEIGHT / 2,  HEIGHT - ground.getHeight(this), -20);
-
-		//timer determines how often the actionPerformed method is called. In this case, it is called every 5 milliseconds.
-		t = new Timer(5, this);
+		String replayFile = System.getProperty("flappy.replay");
+		Replay replay = null;
+		if(replayFile != null) {
+			List<Replay> replays = Replay.load(Paths.get(replayFile));
+			if(replays.isEmpty())
+				throw new IOException("There are no runs in " + replayFile);
+			replay = replays.get(0);
+		}
+
+		//a replay isn't a real run, so it isn't saved
+		if(replay == null)
+			openScores();
+
+		//the game loop determines how often update() is called, and how many frames are drawn per second. Both can be changed with the
+		//flappy.tps and flappy.fps system properties, and the frame cap defaults to the refresh rate of the screen.
+		loop = new GameLoop(this, Integer.getInteger("flappy.tps", DEFAULT_TICKS_PER_SECOND), Integer.getInteger("flappy.fps", displayRefreshRate()));
 		FPS = new FrameRate();
-		pipes = new LinkedList<Pipe>();
-		pipes.add(new Pipe(WIDTH + WIDTH / 2, HEIGHT, ground.getHeight(this), new File("C:\\Users\\Darien Miller\\Desktop\\topPipe.png"), 
-				new File("C:\\Users\\Darien Miller\\Desktop\\bottomPipe.png")));
-		
-		bird.addToSpriteList(new File("C:\\Users\\Darien Miller\\Desktop\\smallBirdUp_75.png"));
-		bird.addToSpriteList(new File("C:\\Users\\Darien Miller\\Desktop\\smallBirdNeutral_75.png"));
-		bird.addToSpriteList(new File("C:\\Users\\Darien Miller\\Desktop\\smallBirdDown_75.png"));
-		
-		frame.add(this);
+		loop.setFrameRate(FPS);
+
+		if(mode == RenderMode.DIRTY) {
+			//the game loop draws onto the canvas, which only has to say when the window system wiped it, so the next frame is drawn in full
+			dirty = new DirtyRenderer(WIDTH, HEIGHT);
+			canvas = new Canvas() {
+				@Override
+				public void update(Graphics g) {
+					paint(g);
+				}
+
+				@Override
+				public void paint(Graphics g) {
+					dirty.damageAll();
+					barsLost = true;
+				}
+			};
+			canvas.setFocusable(false);
+			frame.add(canvas);
+		}
+		else if(activeRendering) {
+			//Swing should leave the window alone since the game loop draws every frame itself. The canvas must not take the keyboard focus away from
+			//the frame, or the key listener would stop hearing the space bar.
+			canvas = new Canvas();
+			canvas.setIgnoreRepaint(true);
+			canvas.setFocusable(false);
+			frame.setIgnoreRepaint(true);
+			frame.add(canvas);
+		}
+		else
+			frame.add(this);
+
+		//resize the sprites whenever the window changes size. The listener runs on the Swing thread, and the resizing itself happens in the background.
+		Component view = canvas != null ? canvas : this;
+		view.addComponentListener(new ComponentAdapter() {
+			@Override
+			public void componentResized(ComponentEvent e) {
+				resized(view);
+			}
+
+			@Override
+			public void componentShown(ComponentEvent e) {
+				resized(view);
+			}
+		});
 		frame.addKeyListener(this);
 		frame.setSize(WIDTH, HEIGHT);
-		frame.setResizable(false);
 		frame.setVisible(true);
 		frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-		
-		//These boolean assist in determining when to start, stop and restart the game. Initially, they will be false since the game hasn't
-		//started yet, and the player didn't kill the bird yet.
-		isGameOver = false;
-		gameIsStarted = false;
-		
-		t.start();
+		if(!"false".equals(System.getProperty("flappy.sound")))
+			openAudio();
+
+		waitForAssets(assets, view);
+		synchronized(this) {
+			renderer = new GameRenderer(WIDTH, HEIGHT);
+			if(scores != null)
+				renderer.setBestScore(scores.getHighScore());
+			if(replay != null) {
+				//the replay knows the sizes and collision rules it was recorded with, which aren't always the ones this renderer would pick
+				game = replay.newGame();
+				renderer.prepare(game);
+				playback = replay.play();
+			}
+			else
+				game = renderer.newGameState();
+			if(audio != null)
+				game.setListener(soundListener(audio));
+
+			String ghostFile = System.getProperty("flappy.ghosts");
+			if(ghostFile != null && !ghostFile.equals("false")) {
+				ghosts = ghostFile.equals("true") ? new GhostTracks() : GhostTracks.fromReplays(Replay.load(Paths.get(ghostFile)));
+				renderer.setGhosts(ghosts);
+			}
+
+			//the recording is saved when the window closes, which exits the program, so a shutdown hook does it
+			String record = System.getProperty("flappy.record");
+			if(record != null && playback == null) {
+				recordFile = Paths.get(record);
+				recorder = new ReplayRecorder(game);
+				Runtime.getRuntime().addShutdownHook(new Thread(this::saveRecording));
+			}
+		}
+		resized(view);
+
+		//a buffer strategy can only be made once the canvas is on the screen. Two buffers lets Java2D use page flipping if the screen supports it.
+		if(mode == RenderMode.ACTIVE) {
+			canvas.createBufferStrategy(2);
+			strategy = canvas.getBufferStrategy();
+		}
+
+		loop.start();
+	}
+
+	/**
+	 * Shows that the game is loading until every image is decoded.
+	 *
+	 * @throws IOException - thrown if one of the images could not be loaded
+	 */
+	private void waitForAssets(CompletableFuture<Void> assets, Component view) throws IOException {
+		while(!assets.isDone()) {
+			Graphics g = view.getGraphics();
+			if(g != null) {
+				try {
+					drawLoading(g, view.getWidth(), view.getHeight());
+				} finally {
+					g.dispose();
+				}
+			}
+			try {
+				assets.get(LOADING_REDRAW_MILLIS, TimeUnit.MILLISECONDS);
+			} catch(TimeoutException | ExecutionException e) {
+				//still loading, or failed, which Assets.load() below reports
+			} catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while loading the images");
+			}
+		}
+		Assets.load();
+	}
+
+	/**
+	 * Draws the loading screen: the colour of the sky, with how many of the images are decoded so far.
+	 */
+	private static void drawLoading(Graphics g, int width, int height) {
+		g.setColor(LOADING_SKY);
+		g.fillRect(0, 0, width, height);
+		g.setColor(Color.WHITE);
+		g.setFont(LOADING_FONT);
+		String text = "Loading " + Assets.getDecodedCount() + "/" + Assets.getAssetCount();
+		g.drawString(text, (width - g.getFontMetrics().stringWidth(text)) / 2, height / 2);
+	}
+
+	/**
+	 * Called after every frame has been handed to the screen. The first time, records how long startup took.
+	 */
+	private void frameShown() {
+		if(timeToFirstFrame < 0) {
+			long windowToFirstFrame = System.nanoTime() - windowStart;
+			timeToFirstFrame = System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+			StartupEvent event = new StartupEvent();
+			if(event.shouldCommit()) {
+				event.timeToFirstFrame = timeToFirstFrame;
+				event.windowToFirstFrame = windowToFirstFrame;
+				event.assetLoadTime = assetLoadTime;
+				event.commit();
+			}
+			if(showStats)
+				System.out.printf("First frame %d ms after launch, %.1f ms after making the window (images decoded in %.1f ms)%n", timeToFirstFrame,
+						windowToFirstFrame / 1e6, assetLoadTime / 1e6);
+		}
+		pressShown();
+	}
+
+	/**
+	 * @return how many milliseconds after the program was launched the first frame was shown, or -1 if it hasn't been yet
+	 */
+	public long getTimeToFirstFrame() {
+		return timeToFirstFrame;
+	}
+
+	/**
+	 * Works out how big the board can be drawn in the component it's drawn on, in real screen pixels, and has the sprites resized to match.
+	 */
+	private void resized(Component view) {
+		//the sprites aren't loaded yet; the constructor calls this again once they are
+		if(renderer == null)
+			return;
+		GraphicsConfiguration config = view.getGraphicsConfiguration();
+		double deviceScale = config == null ? 1 : config.getDefaultTransform().getScaleX();
+		int width = (int)Math.round(view.getWidth() * deviceScale), height = (int)Math.round(view.getHeight() * deviceScale);
+		if(width <= 0 || height <= 0)
+			return;
+		pixelWidth = width;
+		pixelHeight = height;
+		barsLost = true;
+		renderer.setScale(Math.min((double)width / WIDTH, (double)height / HEIGHT));
+	}
+
+	/**
+	 * Sets a graphics object up to draw the board in real screen pixels. It stops scaling for a high resolution screen, since the sprites are already
+	 * the right size, fills the bars beside the board if asked to, and moves 0, 0 to the top left corner of the board, centered in the window.
+	 *
+	 * @param g - graphics object to set up
+	 * @param scale - the scale the board is about to be drawn at
+	 * @param fillBars - true to fill the bars beside the board
+	 */
+	private void setUpBoard(Graphics g, double scale, boolean fillBars) {
+		Graphics2D g2 = (Graphics2D)g;
+		AffineTransform transform = g2.getTransform();
+		g2.setTransform(AffineTransform.getTranslateInstance(Math.round(transform.getTranslateX()), Math.round(transform.getTranslateY())));
+
+		int boardWidth = GameRenderer.scaled(WIDTH, scale), boardHeight = GameRenderer.scaled(HEIGHT, scale);
+		int width = pixelWidth, height = pixelHeight;
+		if(width == 0) {
+			width = boardWidth;
+			height = boardHeight;
+		}
+		int left = (width - boardWidth) / 2, top = (height - boardHeight) / 2;
+		if(fillBars && (left > 0 || top > 0)) {
+			g.setColor(Color.BLACK);
+			g.fillRect(0, 0, width, top);
+			g.fillRect(0, top + boardHeight, width, height - top - boardHeight);
+			g.fillRect(0, top, left, boardHeight);
+			g.fillRect(left + boardWidth, top, width - left - boardWidth, boardHeight);
+		}
+		g.translate(left, top);
+		g.clipRect(0, 0, boardWidth, boardHeight);
+	}
+
+	/**
+	 * Makes the sound effects and starts mixing them onto the default sound output. The game still works without sound.
+	 */
+	private void openAudio() {
+		try {
+			audio = new AudioMixer(SoundEffects.load(), new LineSink(AudioMixer.SINK_BUFFER_BYTES));
+			audio.start();
+		} catch(IOException | LineUnavailableException | IllegalArgumentException e) {
+			System.err.println("Playing without sound: " + e);
+		}
 	}
-	
+
+	/**
+	 * @return a listener that plays the sound effect for whatever the bird just did
+	 */
+	private static GameState.Listener soundListener(AudioMixer audio) {
+		return new GameState.Listener() {
+			@Override
+			public void flapped() {
+				audio.play(SoundEffects.FLAP);
+			}
+
+			@Override
+			public void scored() {
+				audio.play(SoundEffects.SCORE);
+			}
+
+			@Override
+			public void crashed() {
+				audio.play(SoundEffects.HIT);
+			}
+		};
+	}
+
+	/**
+	 * Opens the score log. The game still works without it, it just won't remember scores.
+	 */
+	private void openScores() {
+		Path file = Paths.get(System.getProperty("flappy.scores", Paths.get(System.getProperty("user.home"), ".flappybird", "scores.log").toString()));
+		try {
+			scores = new ScoreStore(file, 10, 1 << 22);
+			Runtime.getRuntime().addShutdownHook(new Thread(scores::close));
+		} catch(IOException e) {
+			System.err.println("Could not open the score log " + file + ": " + e);
+		}
+	}
+
 	public static void main(String args[]) throws IOException {
 		new FlappyBird();
 	}
-	
-	public void paint(Graphics g) {
-		super.paint(g);
-		g.drawImage(sky, 0, 0, this);
-		printPipes(g);
-		bird.animateBird(g, isGameOver);
-		g.drawImage(ground, groundX, groundY, this);
-		g.drawImage(ground, groundX + groundImageWidth, groundY, this);
-		printScore(g);
-		endGame(g);
-		FPS.limitFPSTo60();
-		FPS.printFPS(g, WIDTH - 100, HEIGHT - 100);
-	}
-	
-	
-	@Override
-	public void actionPerformed(ActionEvent e) {
-	
-		//The method call is called outside of the if statement because even after getting a gameover, we want the bird to fall down to
-		//the ground. Everything else in the if statement is not called, and thus not updated when the game is over, causing everything to stop moving!
-		
-		
-		//if the player did not start the game yet, simply move the ground and nothing else
-		if(!gameIsStarted) {
-			moveGround();
-		}
-		//otherwise, let the bird start falling once the player has started the game
-		else
-			bird.fall();
-		
-		//animate the pipes, check to see if the bird collided with either the ground or the pipe as long as the game is running
-		if(!isGameOver && gameIsStarted) {
-			moveGround();
-			isGameOver = hitGround();
+
+	/**
+	 * @return the refresh rate of the screen, or 60 if the screen doesn't report one.
+	 */
+	private static int displayRefreshRate() {
+		if(GraphicsEnvironment.isHeadless())
+			return 60;
+		int refreshRate = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDisplayMode().getRefreshRate();
+		return refreshRate == DisplayMode.REFRESH_RATE_UNKNOWN ? 60 : refreshRate;
+	}
+
+	/**
+	 * Stops the game loop and closes the window.
+	 */
+	public void close() {
+		loop.stop();
+		frame.dispose();
+		saveRecording();
+		if(audio != null) {
 			try {
-				addPipe();
-			} catch (IOException e1) {
-				e1.printStackTrace();
+				audio.stop();
+			} catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
 			}
-			
-			movePipes();
-			frames++;
 		}
-		
-		//System.out.println(bird.getVelocity());
-		FPS.calculateFPS(0);
-		repaint();
-		
 	}
-	
+
 	/**
-	 * Method to draw the game over mesage to the screen.
-	 * @param g
+	 * Adds the run recorded so far to the record file, once.
 	 */
-	public void endGame(Graphics g) {
-		if(isGameOver)
-			g.drawImage(gameOver, WIDTH / 4, 100, this);
+	private synchronized void saveRecording() {
+		if(recorder == null)
+			return;
+		try {
+			recorder.save(recordFile);
+		} catch(IOException e) {
+			System.err.println("Could not save the replay to " + recordFile + ": " + e);
+		}
+		recorder = null;
+	}
+
+	public FrameRate getFrameRate() {
+		return FPS;
 	}
-	
-	public void printPipes(Graphics g) {
-		for(Pipe p : pipes)
-			p.printPipe(g);
+
+	public synchronized void paint(Graphics g) {
+		long start = System.nanoTime();
+		super.paint(g);
+
+		//Swing can paint the window before the images are loaded
+		if(game == null) {
+			drawLoading(g, getWidth(), getHeight());
+			return;
+		}
+		Graphics board = g.create();
+		try {
+			drawGame(board);
+		} finally {
+			board.dispose();
+		}
+		FPS.addFrameTime(System.nanoTime() - start);
+		frameShown();
 	}
-	
+
 	/**
-	 * checks to see if the bird hit the ground, which counts as a game over.
+	 * Called once a frame has been handed to the screen. If a flap was applied since the last frame, this is the first frame that shows it, so record
+	 * how long it took from the key press to here.
 	 */
-	public boolean hitGround() {
-		if(bird.getY() + bird.getBirdHeight() >= groundY)
-			return true;
-		return false;
+	private void pressShown() {
+		if(unshownPress == InputQueue.EMPTY)
+			return;
+		long now = System.nanoTime();
+		FPS.recordInputLatency(now - unshownPress);
+		InputLatencyEvent event = new InputLatencyEvent();
+		if(event.shouldCommit()) {
+			event.queueTime = unshownTick - unshownPress;
+			event.displayTime = now - unshownTick;
+			event.total = now - unshownPress;
+			event.commit();
+		}
+		unshownPress = InputQueue.EMPTY;
 	}
-	
+
 	/**
-	 * This method will produce movement in the pipes, and check to see whether or not a bird has hit them, which will cause a game over, or if
-	 * a bird has passed in between, earning the player a point.
+	 * Draws one whole frame of the game, with the bars beside it. Used by both the passive paint() path and the active rendering path.
 	 */
-	public void movePipes() {
-		for(int i = 0; i < pipes.size() && !isGameOver; i++) {
-			pipes.get(i).pipeMeetsBird(bird);
-			pipes.get(i).movePipe();
-			isGameOver = pipes.get(i).pipeHitsBird(bird);
-		}	
-		
+	public void drawGame(Graphics g) {
+		FPS.calculateFPS(0);
+		setUpBoard(g, renderer.getScale(), true);
+		drawScene(g);
 	}
-	
-	public void printScore(Graphics g) {
-		g.setColor(Color.WHITE);
-		g.setFont(new Font("Arial", Font.PLAIN, 40));
-		g.drawString(bird.getScore().toString(), WIDTH / 2, 50);
+
+	//everything on the board, without counting it as a frame, since the dirty mode draws the scene once per damaged rectangle
+	private void drawScene(Graphics g) {
+		double scale = renderer.getScale();
+		renderer.draw(g, game, alpha, activeRendering ? canvas : this);
+		FPS.setScale(scale);
+		FPS.printFPS(g, GameRenderer.scaled(WIDTH - 100, scale), GameRenderer.scaled(HEIGHT - 100, scale));
+		if(showStats)
+			FPS.printStats(g, GameRenderer.scaled(10, scale), GameRenderer.scaled(HEIGHT - 200, scale));
 	}
 
-	public void moveGround() {
-		groundX -= groundSpeed;
-		
-		if(groundX <= -groundImageWidth ) 
-			groundX = 0;
+	@Override
+	public void render(double alpha) {
+		synchronized(this) {
+			this.alpha = alpha;
+			if(mode == RenderMode.DIRTY) {
+				renderDirty();
+				return;
+			}
+			if(activeRendering) {
+				renderActive();
+				return;
+			}
+		}
+		repaint();
 	}
-	
-	public void addPipe() throws IOException {
-		
-		//every 100 frames, add a new pipe to the linkedlist of pipes. The more frames, the bigger the gap between each pipe object in the list. The less frames,
-		//the smaller the gap.
-		if(frames == 80) {
-			pipes.add(new Pipe(WIDTH + WIDTH / 2, HEIGHT, ground.getHeight(this), new File("C:\\Users\\Darien Miller\\Desktop\\topPipe.png"), 
-					new File("C:\\Users\\Darien Miller\\Desktop\\bottomPipe.png")));
-			frames = 0;
+
+	/**
+	 * Draws a frame straight into the back buffer and flips it onto the screen. The inner loop redraws the frame if the back buffer was lost and
+	 * restored while we were drawing it, and the outer loop starts over if it was lost again before it could be shown.
+	 */
+	private void renderActive() {
+		long start = System.nanoTime();
+		do {
+			do {
+				Graphics g = strategy.getDrawGraphics();
+				try {
+					drawGame(g);
+				} finally {
+					g.dispose();
+				}
+			} while(strategy.contentsRestored());
+			strategy.show();
+		} while(strategy.contentsLost());
+
+		//on some platforms (Linux) drawing is buffered, so make sure the frame actually reaches the screen now
+		Toolkit.getDefaultToolkit().sync();
+		FPS.addFrameTime(System.nanoTime() - start);
+		frameShown();
+	}
+
+	/**
+	 * Redraws only what changed since the last frame, straight onto the canvas.
+	 */
+	private void renderDirty() {
+		long start = System.nanoTime();
+		FPS.calculateFPS(0);
+		dirty.track(game, alpha, renderer);
+
+		//a little more than the area the FPS counter covers, since it's drawn every frame. The stats overlay covers too much to bother.
+		dirty.damage(WIDTH - 100, HEIGHT - 125, 100, 35);
+		if(showStats)
+			dirty.damageAll();
+
+		Graphics g = canvas.getGraphics();
+		if(g == null)
+			return;
+		try {
+			//the bars beside the board never change, so they're only filled in after the window was resized or uncovered
+			double scale = renderer.getScale();
+			setUpBoard(g, scale, barsLost);
+			barsLost = false;
+			dirty.paint(g, this::drawScene, scale);
+		} finally {
+			g.dispose();
 		}
-		
-		//if a pipe is off of the screen, remove it from the list as it will no longer be needed. We are using a linkedlist instead of an arraylist due to 
-		//an element from the front in a linkedlist taking O(1) time instead of O(n) time in an arraylist.  
-		if(pipes.get(0).getX() <= -pipes.get(0).getWidth())
-			pipes.remove(0);
+		Toolkit.getDefaultToolkit().sync();
+		FPS.addFrameTime(System.nanoTime() - start);
+		frameShown();
+	}
+
+	/**
+	 * @return the dirty rectangle renderer, or null when not drawing in dirty mode
+	 */
+	public DirtyRenderer getDirtyRenderer() {
+		return dirty;
 	}
-	
+
 	@Override
-	public void keyPressed(KeyEvent key) {
-		//if the player presses the space bar while the game is running, make the bird flap
-		if(key.getKeyCode() == KeyEvent.VK_SPACE && !isGameOver && gameIsStarted)
-			bird.flap();
-		
-		//pressing the space bar here will start the game by setting the gameIsStarted boolean to true  
-		else if(key.getKeyCode() == KeyEvent.VK_SPACE && !gameIsStarted) {
-			gameIsStarted = true;
-			bird.flap();
-		}
-
-		//pressing the space bar here will restart the game by resetting all of the values to their initial states 
-		else if(key.getKeyCode() == KeyEvent.VK_SPACE && isGameOver && hitGround()) {
-			bird.reset();
-			bird.flap();
-			pipes.clear();
-			gameIsStarted = false;
-			if(bird.getScore() > highScore)
-				highScore = bird.getScore();
-			bird.setScore(0);
-			isGameOver = false;
-			try {
-				pipes.add(new Pipe(WIDTH + WIDTH / 2, HEIGHT, ground.getHeight(this), new File("C:\\Users\\Darien Miller\\Desktop\\topPipe.png"), 
-						new File("C:\\Users\\Darien Miller\\Desktop\\bottomPipe.png")));
-			} catch (IOException e) {
-				// TODO Auto-generated catch block
-				e.printStackTrace();
+	public synchronized void update() {
+		//a replay stands still once its last tick has played, so it ends in the state it was recorded in
+		if(playback != null) {
+			if(!playback.isFinished()) {
+				boolean wasStarted = game.isGameStarted(), wasOver = game.isGameOver();
+				game.step(playback.nextTick());
+				if(ghosts != null)
+					ghosts.tick(game, wasStarted, wasOver);
 			}
-			frames  = 0;
+			return;
+		}
+
+		//every press since the last tick counts as one flap, timed from the first of them
+		long pressed = input.drain();
+		boolean flap = pressed != InputQueue.EMPTY;
+
+		//the autopilot presses instead of the player while it's on. It's only made the first time it's needed, since it keeps a copy of the game.
+		if(autopilotOn) {
+			if(autopilot == null)
+				autopilot = new Autopilot(game);
+			flap = autopilot.decide(game);
+			pressed = InputQueue.EMPTY;
+			assisted = true;
+		}
+		if(pressed != InputQueue.EMPTY && unshownPress == InputQueue.EMPTY) {
+			unshownPress = pressed;
+			unshownTick = System.nanoTime();
+		}
+
+		boolean wasStarted = game.isGameStarted(), wasOver = game.isGameOver();
+		game.step(flap);
+		if(recorder != null)
+			recorder.tick(flap);
+		if(ghosts != null)
+			ghosts.tick(game, wasStarted, wasOver);
+
+		//time every run, and save it the tick it ends. The store only queues the write, so this never waits for the disk.
+		if(!wasStarted && game.isGameStarted()) {
+			runStart = System.nanoTime();
+			assisted = autopilotOn;
+		}
+		if(!wasOver && game.isGameOver() && scores != null && !assisted) {
+			scores.record(game.getBird().getScore(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - runStart));
+			renderer.setBestScore(scores.getHighScore());
 		}
-			
+	}
+
+	@Override
+	public void keyPressed(KeyEvent key) {
+		//queue the time the space bar was pressed. The game decides on the next tick whether that flaps, starts or restarts the game.
+		if(key.getKeyCode() == KeyEvent.VK_SPACE)
+			input.offer(System.nanoTime());
+		
+		//F2 turns the autopilot on or off
+		else if(key.getKeyCode() == KeyEvent.VK_F2)
+			autopilotOn = !autopilotOn;
+
+		//F3 shows or hides the frame time overlay
+		else if(key.getKeyCode() == KeyEvent.VK_F3)
+			showStats = !showStats;
 	}
 
 	@Override
 	public void keyReleased(KeyEvent arg0) {
 		// TODO Auto-generated method stub
-		
+
 	}
 
 	@Override
 	public void keyTyped(KeyEvent arg0) {
 		// TODO Auto-generated method stub
-		
+
 	}
 
 
-	
+
 }
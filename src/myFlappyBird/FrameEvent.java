@@ -0,0 +1,41 @@
+package myFlappyBird;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * A Java Flight Recorder event for every frame the game loop runs, with how long each part of the frame took. Recording the game with JFR (for example
+ * java -XX:StartFlightRecording=filename=flappy.jfr ...) puts these next to the garbage collections and asset loads on the same timeline, so a
+ * stutter can be matched up with whatever caused it. When no recording is running, the event costs next to nothing.
+ */
+@Name("myFlappyBird.Frame")
+@Label("Frame")
+@Category("Flappy Bird")
+@Description("One pass of the game loop: the ticks it ran, drawing the frame and waiting for the next one")
+@StackTrace(false)
+public class FrameEvent extends jdk.jfr.Event {
+	@Label("Ticks")
+	@Description("How many simulation ticks ran this frame")
+	int ticks;
+
+	@Label("Update Time")
+	@Timespan(Timespan.NANOSECONDS)
+	long updateTime;
+
+	@Label("Render Time")
+	@Timespan(Timespan.NANOSECONDS)
+	long renderTime;
+
+	@Label("Sleep Time")
+	@Timespan(Timespan.NANOSECONDS)
+	long sleepTime;
+
+	@Label("Frame Interval")
+	@Description("Time since the previous frame started")
+	@Timespan(Timespan.NANOSECONDS)
+	long frameInterval;
+}
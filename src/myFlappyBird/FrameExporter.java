@@ -0,0 +1,234 @@
+package myFlappyBird;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Turns a run into a numbered PNG per tick (frame-00000.png, frame-00001.png, ...) without a window, for making clips. Capturing the screen while the
+ * game plays drops frames whenever the capture can't keep up; here the game simply waits, so every tick is in the folder no matter how slow the disk or
+ * the encoder is.
+ *
+ * The frames are drawn by the same GameRenderer.draw() the window uses, into a fixed set of reused images. Encoding a PNG takes far longer than drawing
+ * the frame, so that happens on a pool of worker threads: once a frame is drawn it's handed to the pool, and the game goes straight on to the next one
+ * in another free image. When every image is still waiting to be encoded, nextFrame() waits for one to come back, which is what keeps the pipeline
+ * bounded; the number of images is the most frames that are ever in memory at once. How many were in use, how long drawing had to wait for one, and
+ * how many frames per second were written are kept so the number of images and workers can be tuned.
+ *
+ * Usage: FrameExporter folder [replay file, or "autopilot"] [scale] [most frames]
+ * The first run in the replay file is exported, or without one the Autopilot plays a new game. The images need to be on the classpath.
+ */
+public class FrameExporter implements AutoCloseable {
+	private static final int WIDTH = 600, HEIGHT = 800;
+	private static final int DEFAULT_FRAMES = 60 * 60;
+
+	private final Path folder;
+	private final int buffers;
+	private final BlockingQueue<BufferedImage> free;
+	private final ExecutorService encoders;
+	private final AtomicInteger written = new AtomicInteger();
+	private volatile IOException failure;
+
+	private int submitted;
+	private long waitNanos, buffersInUse;
+	private int maxBuffersInUse;
+	private final long start = System.nanoTime();
+	private long end;
+
+	/**
+	 * @param folder - where the frames are written. It's created if it doesn't exist.
+	 * @param width - width of the frames in pixels
+	 * @param height - height of the frames in pixels
+	 * @param buffers - how many frames can be drawn but not written yet
+	 * @param workers - how many threads encode frames
+	 * @throws IOException - thrown if the folder can't be created
+	 */
+	public FrameExporter(Path folder, int width, int height, int buffers, int workers) throws IOException {
+		this.folder = Files.createDirectories(folder);
+		this.buffers = buffers;
+		free = new ArrayBlockingQueue<BufferedImage>(buffers);
+		for(int i = 0; i < buffers; i++)
+			free.add(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB));
+
+		AtomicInteger threads = new AtomicInteger();
+		encoders = Executors.newFixedThreadPool(workers, task -> {
+			Thread thread = new Thread(task, "Frame encoder " + threads.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * @return an image to draw the next frame into, waiting until one has been written if they're all in use. Whatever was drawn in it before is
+	 * still there.
+	 * @throws IOException - thrown if writing an earlier frame failed
+	 */
+	public BufferedImage nextFrame() throws IOException, InterruptedException {
+		checkFailure();
+		BufferedImage frame = free.poll();
+		if(frame == null) {
+			long waitStart = System.nanoTime();
+			frame = free.take();
+			waitNanos += System.nanoTime() - waitStart;
+		}
+		return frame;
+	}
+
+	/**
+	 * Hands a frame from nextFrame() over to be written as the next file. It must not be drawn into again.
+	 */
+	public void submit(BufferedImage frame) {
+		int inUse = buffers - free.size();
+		buffersInUse += inUse;
+		maxBuffersInUse = Math.max(maxBuffersInUse, inUse);
+
+		Path file = folder.resolve(String.format("frame-%05d.png", submitted++));
+		encoders.execute(() -> {
+			try {
+				if(failure == null && !ImageIO.write(frame, "png", file.toFile()))
+					throw new IOException("No PNG writer available");
+				written.incrementAndGet();
+			} catch(IOException e) {
+				failure = e;
+			} finally {
+				free.add(frame);
+			}
+		});
+	}
+
+	private void checkFailure() throws IOException {
+		if(failure != null)
+			throw new IOException("Could not write a frame to " + folder, failure);
+	}
+
+	/**
+	 * Waits for every submitted frame to be written, and stops the workers. If the waiting is interrupted, the workers finish the frames they have on
+	 * their own, the interrupt is passed on, and an InterruptedIOException says not every frame is on disk yet.
+	 *
+	 * @throws IOException - thrown if writing any of the frames failed, or if waiting for them was interrupted
+	 */
+	@Override
+	public void close() throws IOException {
+		encoders.shutdown();
+		try {
+			encoders.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted with " + (submitted - written.get()) + " frames still being written to " + folder);
+		} finally {
+			end = System.nanoTime();
+		}
+		checkFailure();
+	}
+
+	/**
+	 * @return how many frames have been written to disk
+	 */
+	public int getFramesWritten() {
+		return written.get();
+	}
+
+	/**
+	 * @return frames written per second, from when the exporter was made until it was closed (or until now, if it's still open)
+	 */
+	public double getFramesPerSecond() {
+		return written.get() * 1e9 / ((end != 0 ? end : System.nanoTime()) - start);
+	}
+
+	/**
+	 * @return how many of the images were drawn but not written yet when a frame was submitted, on average. Always near the total means the encoders
+	 * are what's holding things up.
+	 */
+	public double getAverageBuffersInUse() {
+		return submitted == 0 ? 0 : (double)buffersInUse / submitted;
+	}
+
+	public int getMaxBuffersInUse() {
+		return maxBuffersInUse;
+	}
+
+	public int getBuffers() {
+		return buffers;
+	}
+
+	/**
+	 * @return how long nextFrame() spent waiting for a free image in total, in nanoseconds
+	 */
+	public long getWaitTime() {
+		return waitNanos;
+	}
+
+	public static void main(String args[]) throws Exception {
+		if(args.length == 0) {
+			System.out.println("Usage: FrameExporter folder [replay file, or \"autopilot\"] [scale] [most frames]");
+			return;
+		}
+		Path folder = Paths.get(args[0]);
+		String source = args.length > 1 ? args[1] : "autopilot";
+		double scale = args.length > 2 ? Double.parseDouble(args[2]) : 1;
+		int maxFrames = args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_FRAMES;
+
+		Assets.load();
+		GameRenderer renderer = new GameRenderer(WIDTH, HEIGHT, scale);
+		GameState game;
+		Replay.Playback playback = null;
+		Autopilot autopilot = null;
+		if(source.equals("autopilot")) {
+			game = renderer.newGameState();
+			autopilot = new Autopilot(game);
+		}
+		else {
+			List<Replay> replays = Replay.load(Paths.get(source));
+			if(replays.isEmpty())
+				throw new IOException("There are no runs in " + source);
+			game = replays.get(0).newGame();
+			renderer.prepare(game);
+			playback = replays.get(0).play();
+		}
+
+		//one worker per processor, and enough images that every worker has one to encode while the next few are drawn
+		int workers = Runtime.getRuntime().availableProcessors();
+		long drawNanos = 0;
+		int frames = 0;
+		FrameExporter exporter = new FrameExporter(folder, GameRenderer.scaled(WIDTH, scale), GameRenderer.scaled(HEIGHT, scale), workers * 2 + 2,
+				workers);
+		try {
+			for(; frames < maxFrames && (playback == null || !playback.isFinished()); frames++) {
+				if(playback != null)
+					game.step(playback.nextTick());
+				else
+					game.step(autopilot.decide(game));
+
+				BufferedImage frame = exporter.nextFrame();
+				long drawStart = System.nanoTime();
+				Graphics2D g = frame.createGraphics();
+				renderer.draw(g, game, 1, null);
+				g.dispose();
+				drawNanos += System.nanoTime() - drawStart;
+				exporter.submit(frame);
+			}
+		} finally {
+			exporter.close();
+		}
+
+		System.out.printf("%d frames written to %s at %.1f frames per second, %d encoders%n", exporter.getFramesWritten(), folder,
+				exporter.getFramesPerSecond(), workers);
+		System.out.printf("drawing: %.2f ms per frame, %.0f ms waiting for a free image in total%n", drawNanos / 1e6 / Math.max(1, frames),
+				exporter.getWaitTime() / 1e6);
+		System.out.printf("images in use: %.1f on average, %d at most, of %d%n", exporter.getAverageBuffersInUse(), exporter.getMaxBuffersInUse(),
+				exporter.getBuffers());
+	}
+}
@@ -0,0 +1,78 @@
+package myFlappyBird;
+
+/**
+ * A histogram of times in nanoseconds that never allocates once it's made, so it's cheap enough to record several times every frame. Instead of
+ * keeping every sample, it counts samples in buckets: each power of two is split into 16 buckets, so whatever the size of a sample, the bucket it
+ * lands in is at most about 6% wider than the sample. That's precise enough to tell a 16 ms frame from a 17 ms one, and covers anything from a
+ * nanosecond to years in under a thousand counters.
+ */
+public class FrameHistogram {
+	private static final int SUB_BUCKET_BITS = 4, SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+	private final long[] counts = new long[(64 - SUB_BUCKET_BITS) * SUB_BUCKETS];
+	private long count, max;
+
+	/**
+	 * Adds one sample.
+	 *
+	 * @param nanos - the time to record. Negative times are counted as 0.
+	 */
+	public void record(long nanos) {
+		if(nanos < 0)
+			nanos = 0;
+		counts[bucket(nanos)]++;
+		count++;
+		if(nanos > max)
+			max = nanos;
+	}
+
+	/**
+	 * @param fraction - which percentile to find, from 0 to 1 (0.5 for the median, 0.99 for the 99th percentile)
+	 * @return a time that the given fraction of samples are at or below, rounded up to the edge of its bucket, or 0 if there are no samples
+	 */
+	public long percentile(double fraction) {
+		if(count == 0)
+			return 0;
+		long target = Math.max(1, (long)Math.ceil(fraction * count));
+		long seen = 0;
+		for(int i = 0; i < counts.length; i++) {
+			seen += counts[i];
+			if(seen >= target)
+				return Math.min(upperBound(i), max);
+		}
+		return max;
+	}
+
+	public long getMax() {
+		return max;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public void reset() {
+		java.util.Arrays.fill(counts, 0);
+		count = 0;
+		max = 0;
+	}
+
+	//small values get a bucket each. Bigger ones are grouped by their highest bit, then by the 4 bits after it.
+	private static int bucket(long value) {
+		if(value < SUB_BUCKETS)
+			return (int)value;
+		int magnitude = 63 - Long.numberOfLeadingZeros(value);
+		int sub = (int)(value >>> (magnitude - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return (magnitude - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+	}
+
+	//the biggest value that lands in a bucket
+	private static long upperBound(int bucket) {
+		if(bucket < SUB_BUCKETS)
+			return bucket;
+		int magnitude = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+		long sub = bucket % SUB_BUCKETS;
+		long width = 1L << (magnitude - SUB_BUCKET_BITS);
+		return ((SUB_BUCKETS + sub) * width) + width - 1;
+	}
+}
@@ -3,24 +3,49 @@ package myFlappyBird;
 import java.awt.Color;
 import java.awt.Font;
 import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
 
 /**
- * Frame rate class designed to calculate framerate and limit it to 60 FPS.
+ * Frame rate class designed to calculate framerate. Limiting the frame rate is now the job of the GameLoop, which paces itself off of System.nanoTime()
+ * instead of sleeping on the Swing thread.
+ * 
+ * An average over a whole second hides the single slow frames that make the game stutter, so the game loop also hands every frame's timings to
+ * recordFrame(), which keeps a FrameHistogram each for the time spent updating, rendering, sleeping, and between the starts of two frames. Once a
+ * second the median (p50), 99th percentile (p99) and worst frame of each are worked out, and printStats() can show them on screen as an overlay.
+ * They're only turned into text when the overlay is actually drawn, so with it hidden, recording frames creates no garbage at all.
+ * FlappyBird also hands over the time from every flap key press to the first frame showing it, through recordInputLatency().
  * 
  * @author Darien Miller
  *
  */
 public class FrameRate {
-	private String frameRate;
-	private long lastTime, startTicksFor60FPS;
-    private long delta, maxFPS;
+	private static final Font FPS_FONT = new Font("Arial", Font.PLAIN, 20);
+	private volatile int framesPerSecond;
+	private long lastTime;
+    private long delta;
     private int frameCount;
+    private DigitGlyphs digits;
+    private BufferedImage label;
+    private volatile double scale = 1;
+    private double glyphScale;
+    private Font statsFont = STATS_FONT;
+    private long frameTimeTotal, frameTimeCount;
+    
+    private static final long STATS_WINDOW = TimeUnit.SECONDS.toNanos(1);
+    private static final Font STATS_FONT = new Font("Monospaced", Font.PLAIN, 14);
+    private static final String[] PHASES = {"update", "render", "sleep", "frame", "input"};
+    private final FrameHistogram[] histograms = {new FrameHistogram(), new FrameHistogram(), new FrameHistogram(), new FrameHistogram(),
+    		new FrameHistogram()};
+    private long statsWindowStart = System.nanoTime();
+    
+    //p50, p99 and max of each phase over the last full second, -1 for a phase with no frames. Guarded by this.
+    private final long[] stats = new long[PHASES.length * 3];
+    private boolean hasStats, statsFormatted;
+    private String[] statsLines = {"collecting frame times..."};
     
     public FrameRate (){
-    	startTicksFor60FPS = System.currentTimeMillis();
 	    lastTime = System.currentTimeMillis();
-	    frameRate = "FPS 0";
-        maxFPS = 60;
     }
     
     /**
@@ -33,7 +58,6 @@ public class FrameRate {
      * result in a much lower recorded framerate. If there is no delay, simply supply a 0.
      */
     public void calculateFPS(int delay){
-    	startTicksFor60FPS = System.currentTimeMillis(); 
         long current = System.currentTimeMillis();
         delta += (current - lastTime) - delay;
         lastTime = current;
@@ -41,38 +65,149 @@ public class FrameRate {
 
         if(delta > 1000){
             delta -= 1000;
-            frameRate = String.format("FPS: %s", frameCount);
+            framesPerSecond = frameCount;
             frameCount = 0;	
         }
     }
     
+    /**
+     * Draws the frame rate with its baseline at y. The "FPS: " label and the digits are drawn into images the first time, and after that only
+     * copied, so drawing the frame rate every frame allocates nothing.
+     */
     public void printFPS(Graphics g, int x, int y) {
-    	g.setColor(Color.black);
-    	g.setFont(new Font("Arial", Font.PLAIN, 20));
-		g.drawString(frameRate, x, y);
+    	double scale = this.scale;
+    	if(digits == null || glyphScale != scale) {
+    		Font font = FPS_FONT.deriveFont((float)(FPS_FONT.getSize2D() * scale));
+    		digits = new DigitGlyphs(font, Color.black);
+    		label = DigitGlyphs.renderText("FPS: ", font, Color.black);
+    		statsFont = STATS_FONT.deriveFont((float)(STATS_FONT.getSize2D() * scale));
+    		glyphScale = scale;
+    	}
+    	g.drawImage(label, x, y - digits.getAscent(), null);
+    	digits.drawNumber(g, framesPerSecond, x + label.getWidth(), y);
+    }
+    
+    /**
+     * Records how long it took to draw one frame, so the average can be compared between the different ways of drawing the game.
+     * 
+     * @param nanos - time spent drawing the frame in nanoseconds
+     */
+    public synchronized void addFrameTime(long nanos) {
+    	frameTimeTotal += nanos;
+    	frameTimeCount++;
     }
     
     /**
-     * This method will ensure that when calculating the fps, it will never exceed 60. This is accomplished by forcing
-     * the thread to sleep for a certain amount of milliseconds. In order to achieve an fps of 60 or lower, at least 16
-     * milliseconds must go by with each frame, resulting in 1000 ms by 60 frames, or 1 sec (1000 ms = 1 sec).
-     * If the difference in time between when this class was instantiated and when this method was called is less than
-     * 16 milliseconds, delay the thread for the difference between 16 and the frameTicks value. What this accomplishes
-     * is ensuring at least 16 milliseconds is spent on each frame. Ex frameTicks = 6. 16 - 6 = 10; Sleep for 10 ms.
+     * @return the average time spent drawing a frame in milliseconds since the last reset, or 0 if no frames were drawn yet
      */
-    public void limitFPSTo60()  {
-    	long frameTicks = System.currentTimeMillis() - startTicksFor60FPS;
-    	if(frameTicks < 1000.0 / maxFPS) {
-			try {
-				Thread.sleep((1000 / maxFPS) - frameTicks);
-			} catch (InterruptedException e) {
-				e.printStackTrace();
-			}
+    public synchronized double getAverageFrameTime() {
+    	return frameTimeCount == 0 ? 0 : frameTimeTotal / 1000000.0 / frameTimeCount;
+    }
+    
+    public synchronized long getFrameTimeCount() {
+    	return frameTimeCount;
+    }
+    
+    public synchronized void resetFrameTimes() {
+    	frameTimeTotal = 0;
+    	frameTimeCount = 0;
+    }
+    
+    /**
+     * Records how long each part of one pass of the game loop took. This only adds to the histograms, except once a second when the percentiles
+     * shown by printStats() are worked out.
+     * 
+     * @param updateNanos - time spent running ticks
+     * @param renderNanos - time spent drawing the frame
+     * @param sleepNanos - time spent waiting for the next frame
+     * @param intervalNanos - time since the previous frame started
+     */
+    public synchronized void recordFrame(long updateNanos, long renderNanos, long sleepNanos, long intervalNanos) {
+    	histograms[0].record(updateNanos);
+    	histograms[1].record(renderNanos);
+    	histograms[2].record(sleepNanos);
+    	histograms[3].record(intervalNanos);
+    	
+    	long now = System.nanoTime();
+    	if(now - statsWindowStart >= STATS_WINDOW) {
+    		for(int i = 0; i < histograms.length; i++) {
+    			FrameHistogram h = histograms[i];
+    			if(h.getCount() == 0) {
+    				stats[i * 3] = -1;
+    				continue;
+    			}
+    			stats[i * 3] = h.percentile(0.5);
+    			stats[i * 3 + 1] = h.percentile(0.99);
+    			stats[i * 3 + 2] = h.getMax();
+    			h.reset();
+    		}
+    		hasStats = true;
+    		statsFormatted = false;
+    		statsWindowStart = now;
+    	}
+    }
+    
+    //the lines of the overlay, made from the numbers of the last full second the first time they're asked for after it
+    private synchronized String[] statsLines() {
+    	if(hasStats && !statsFormatted) {
+    		String[] lines = new String[PHASES.length];
+    		for(int i = 0; i < lines.length; i++) {
+    			if(stats[i * 3] < 0)
+    				lines[i] = String.format("%-6s none", PHASES[i]);
+    			else
+    				lines[i] = String.format("%-6s p50 %6.2f  p99 %6.2f  max %6.2f ms", PHASES[i], stats[i * 3] / 1e6, stats[i * 3 + 1] / 1e6,
+    						stats[i * 3 + 2] / 1e6);
+    		}
+    		statsLines = lines;
+    		statsFormatted = true;
     	}
+    	return statsLines;
+    }
+    
+    /**
+     * Records how long it took from a flap key press until the first frame showing it was on the screen. Shown by printStats() as "input".
+     * 
+     * @param nanos - the latency in nanoseconds
+     */
+    public synchronized void recordInputLatency(long nanos) {
+    	histograms[4].record(nanos);
     }
-	
+    
+    /**
+     * Draws the percentiles of the last full second, one line per part of the frame.
+     */
+    public void printStats(Graphics g, int x, int y) {
+    	String[] lines = statsLines();
+    	g.setColor(Color.black);
+    	g.setFont(statsFont);
+    	int lineHeight = (int)Math.round(16 * glyphScale);
+    	for(int i = 0; i < lines.length; i++)
+    		g.drawString(lines[i], x, y + i * lineHeight);
+    }
+    
+    /**
+     * Sets how big the FPS counter and the overlay are drawn, for when the game is drawn bigger or smaller than its board. The text is drawn again at
+     * the new size the next time printFPS() is called.
+     * 
+     * @param scale - 1 for the normal size
+     */
+    public void setScale(double scale) {
+    	this.scale = scale;
+    }
+    
+    /**
+     * @return the lines printStats() would draw right now
+     */
+    public String[] getStatsLines() {
+    	return statsLines().clone();
+    }
+    
     public String getFrameRate(){
-        return frameRate;
+        return "FPS: " + framesPerSecond;
+    }
+    
+    public int getFramesPerSecond() {
+    	return framesPerSecond;
     }
 
 }
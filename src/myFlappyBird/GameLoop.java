@@ -0,0 +1,175 @@
+package myFlappyBird;
+
+import java.util.concurrent.locks.LockSupport;
+
+import jdk.jfr.EventType;
+
+/**
+ * The game loop that drives the whole game on its own thread. The simulation is advanced at a fixed number of ticks per second no matter how fast
+ * the screen is drawn, so the bird falls and the pipes move at the same speed on every machine. Frames are drawn as often as the frame cap allows,
+ * and each frame is told how far along we are between the last tick and the next one (alpha), so it can draw everything slightly ahead of the last
+ * tick and the motion looks smooth even when there are more frames than ticks.
+ *
+ * All timing is done with System.nanoTime(). To wait for the next frame, the loop sleeps while there is plenty of time left, and then spins for the
+ * last little bit, because Thread.sleep() can wake up a millisecond or more late, which is enough to make a frame miss its deadline.
+ *
+ * Every pass through the loop is timed: how long the ticks took, how long drawing took, how long it slept and how long it's been since the last frame
+ * started. Those go to the FrameRate given to setFrameRate(), if any, and to a FrameEvent for Java Flight Recorder. The event is only made while a
+ * recording wants it, so when nothing is recording, a pass through the loop creates no objects at all (FrameAllocationCheck checks this).
+ */
+public class GameLoop implements Runnable {
+	private static final long NANOS_PER_SECOND = 1000000000L;
+
+	//once this little time is left before a deadline, stop sleeping and spin instead, since sleep can oversleep by about this much.
+	private static final long SPIN_THRESHOLD = 2000000L;
+
+	//if the game falls this many ticks behind (for example after the window was dragged), drop the backlog instead of trying to catch up all at once.
+	private static final int MAX_TICKS_PER_FRAME = 10;
+
+	//whether a Flight Recorder recording wants FrameEvents right now
+	private static final EventType FRAME_EVENTS = EventType.getEventType(FrameEvent.class);
+
+	/**
+	 * Anything the loop can drive. update() advances the simulation by one fixed tick and render() draws a frame.
+	 */
+	public interface Game {
+		void update();
+
+		/**
+		 * @param alpha - how far we are between the previous tick and the next one, from 0 to 1. Used to interpolate positions.
+		 */
+		void render(double alpha);
+	}
+
+	private final Game game;
+	private volatile int ticksPerSecond, maxFramesPerSecond;
+	private volatile boolean running;
+	private Thread thread;
+	private volatile FrameRate frameRate;
+
+	/**
+	 * @param game - the game to drive
+	 * @param ticksPerSecond - how many times per second the simulation is updated
+	 * @param maxFramesPerSecond - the most frames that will be drawn per second, or 0 to draw as fast as possible
+	 */
+	public GameLoop(Game game, int ticksPerSecond, int maxFramesPerSecond) {
+		this.game = game;
+		setTicksPerSecond(ticksPerSecond);
+		setMaxFramesPerSecond(maxFramesPerSecond);
+	}
+
+	public synchronized void start() {
+		if(running)
+			return;
+		running = true;
+		thread = new Thread(this, "Game Loop");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	public synchronized void stop() {
+		running = false;
+		if(thread != null)
+			thread.interrupt();
+		thread = null;
+	}
+
+	@Override
+	public void run() {
+		long previous = System.nanoTime();
+		long lag = 0;
+		long nextFrame = previous;
+		long lastFrameStart = previous;
+
+		while(running) {
+			FrameEvent event = FRAME_EVENTS.isEnabled() ? new FrameEvent() : null;
+			if(event != null)
+				event.begin();
+			long now = System.nanoTime();
+			long interval = now - lastFrameStart;
+			lastFrameStart = now;
+			lag += now - previous;
+			previous = now;
+
+			//run as many fixed ticks as the time that has passed calls for
+			long tickNanos = NANOS_PER_SECOND / ticksPerSecond;
+			int ticks = 0;
+			while(lag >= tickNanos && ticks < MAX_TICKS_PER_FRAME) {
+				game.update();
+				lag -= tickNanos;
+				ticks++;
+			}
+			if(lag >= tickNanos)
+				lag = 0;
+
+			long updated = System.nanoTime();
+			game.render((double) lag / tickNanos);
+			long rendered = System.nanoTime();
+
+			//wait until the next frame is due. If there is no frame cap, still wake up in time for the next tick.
+			int fps = maxFramesPerSecond;
+			long frameNanos = fps > 0 ? NANOS_PER_SECOND / fps : 0;
+			nextFrame += frameNanos;
+			now = System.nanoTime();
+			if(nextFrame < now)
+				nextFrame = now;
+			if(frameNanos > 0)
+				sleepUntil(nextFrame);
+			else
+				Thread.yield();
+			long slept = System.nanoTime();
+
+			FrameRate stats = frameRate;
+			if(stats != null)
+				stats.recordFrame(updated - lastFrameStart, rendered - updated, slept - rendered, interval);
+			if(event != null) {
+				event.ticks = ticks;
+				event.updateTime = updated - lastFrameStart;
+				event.renderTime = rendered - updated;
+				event.sleepTime = slept - rendered;
+				event.frameInterval = interval;
+				event.commit();
+			}
+		}
+	}
+
+	/**
+	 * Waits until System.nanoTime() reaches the deadline by sleeping while there is a lot of time left and spinning for the rest.
+	 */
+	private void sleepUntil(long deadline) {
+		long remaining;
+		while(running && (remaining = deadline - System.nanoTime()) > 0) {
+			if(remaining > SPIN_THRESHOLD)
+				LockSupport.parkNanos(remaining - SPIN_THRESHOLD);
+			else
+				Thread.onSpinWait();
+		}
+	}
+
+	/**
+	 * @param frameRate - where to record the timings of every frame, or null to not record them
+	 */
+	public void setFrameRate(FrameRate frameRate) {
+		this.frameRate = frameRate;
+	}
+
+	public int getTicksPerSecond() {
+		return ticksPerSecond;
+	}
+
+	public void setTicksPerSecond(int ticksPerSecond) {
+		if(ticksPerSecond <= 0)
+			throw new IllegalArgumentException("ticks per second must be positive: " + ticksPerSecond);
+		this.ticksPerSecond = ticksPerSecond;
+	}
+
+	public int getMaxFramesPerSecond() {
+		return maxFramesPerSecond;
+	}
+
+	public void setMaxFramesPerSecond(int maxFramesPerSecond) {
+		if(maxFramesPerSecond < 0)
+			throw new IllegalArgumentException("frame cap can't be negative: " + maxFramesPerSecond);
+		this.maxFramesPerSecond = maxFramesPerSecond;
+	}
+}
@@ -0,0 +1,567 @@
+package myFlappyBird;
+
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Font;
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Draws a GameState with the game's sprites. This is the only place that knows which image belongs to which part of the game, so the Swing window
+ * and anything else that wants to show the game (for example drawing it into an offscreen image) all draw it the same way. The sprites come from
+ * the Assets cache, which must be loaded before a renderer is made.
+ *
+ * The game itself always plays on a board of the size the renderer was made with, but it can be drawn bigger or smaller than that, for a resized
+ * window or a high resolution screen. Every sprite is then resized once, ahead of time, to exactly the size it's drawn at, and the whole set is
+ * swapped in when it's ready, so nothing is ever scaled while drawing a frame. setScale() does the resizing on a background thread, and until it's
+ * done frames keep being drawn with the previous set. The resized sprites are kept in a SpriteCache of limited size (-Dflappy.spriteCacheMB, 64 by
+ * default), so going back to a size used before is quick.
+ *
+ * Every sprite but the sky is then packed into one SpriteAtlas per size, and each frame is drawn by copying parts of that one image. The pipe images
+ * are far taller than the screen, so most of each pipe used to be drawn off of it; instead a pipe is cut into its lip (the cap at the end by the gap)
+ * a short piece of its body, which is repeated down however much of the body is on the screen. That only works if the body really is one row
+ * repeated, which is checked on the original image; a pipe that isn't is packed whole. The sky stays an image of its own, since it covers the whole
+ * screen, has nothing to see through and already lives in video memory (see BackgroundLayer).
+ *
+ * The bird tilts with its velocity, like in the real game. Turning it with a rotated, filtered drawImage() every frame would be slow, so every frame
+ * of its animation is turned to every angle it can be drawn at ahead of time, and those go into the atlas too. The angles are -Dflappy.rotationStep
+ * degrees apart (5 by default, 0 for a bird that doesn't tilt): a smaller step turns more smoothly, but takes more memory and more time to make
+ * whenever the sprites are resized. Games made by newGameState() collide with the turned bird's pixels as well, through masks turned the same way.
+ * A game can turn its bird by a different step, like a replay recorded with another -Dflappy.rotationStep. Call prepare() with such a game when it's
+ * made, and the sprites are turned again for its step before its first frame; until then it's drawn with the poses the sprites have.
+ *
+ * With setGhosts(), earlier runs are drawn as see-through birds racing the real one, behind it (see GhostTracks). There can be hundreds of them, so
+ * they're drawn in one pass that never allocates: every ghost's sprite and height are worked out first, then they're sorted by sprite with a
+ * counting sort into arrays kept from frame to frame, and every ghost using the same sprite is drawn one after the other. The see-through sprites are
+ * faded ahead of time and packed into the atlas with the rest, so a ghost is drawn with a plain blend like any other sprite instead of switching to
+ * an AlphaComposite for every ghost, and they're cut down to the pixels that can be seen, since blending is most of what drawing a ghost costs.
+ */
+public class GameRenderer {
+	private static final String[] BIRD_FRAMES = {Assets.BIRD_UP, Assets.BIRD_NEUTRAL, Assets.BIRD_DOWN};
+	private static final SpriteCache cache = new SpriteCache(Long.getLong("flappy.spriteCacheMB", 64) << 20);
+	private static final int ROTATION_STEP = Math.max(0, Math.min(Bird.MAX_DOWN_ANGLE - Bird.MAX_UP_ANGLE,
+			Integer.getInteger("flappy.rotationStep", 5)));
+
+	//how see-through the ghosts are, from 0 for invisible to 1 for solid
+	private static final float GHOST_OPACITY = 0.4f;
+
+	//the turned bird masks for each angle step, made the first time a game with that step is made
+	private static final ConcurrentHashMap<Integer, CollisionMask[][]> rotatedMasks = new ConcurrentHashMap<Integer, CollisionMask[][]>();
+
+	//one thread resizes sprites for every renderer, so a window being dragged around doesn't start a thread per size
+	private static final ExecutorService scaler = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "Sprite scaler");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final int width, height;
+	private volatile Sprites sprites;
+	private volatile double wantedScale;
+	private volatile int wantedAngleStep = ROTATION_STEP;
+	private final BufferedImage ground;
+	private final int birdWidth, birdHeight, pipeWidth, topPipeHeight, bottomPipeHeight;
+	private int bestScore;
+
+	//the ghosts, and where the drawing pass sorts them, which is grown when there are more ghosts than fit
+	private GhostTracks ghosts;
+	private int[] ghostKeys = new int[0], ghostY = new int[0], sortedGhostY = new int[0];
+	private int[] ghostCounts;
+
+	/**
+	 * Every sprite at one scale, with the bird turned by one angle step, packed into one atlas.
+	 */
+	private static class Sprites {
+		final double scale;
+		final int angleStep;
+		final int width, height;
+		final SpriteAtlas atlas;
+		final int[] birdSprites = new int[BIRD_FRAMES.length];
+		final int[][] birdPoses = new int[BIRD_FRAMES.length][];
+		final int birdPadding;
+		//the faded birds for the ghosts: every frame level, then every frame turned to every pose (see ghostSprite()). Each is cut down to the
+		//pixels that can be seen, and ghostLeft and ghostTop say where that part was in the whole sprite.
+		final int[] ghostSprites, ghostLeft, ghostTop;
+		final PipeSprite topPipe, bottomPipe;
+		final int groundStrip, gameOver, bestLabel;
+		final BackgroundLayer sky;
+		final DigitGlyphs scoreDigits;
+
+		Sprites(int boardWidth, int boardHeight, double scale, int angleStep) {
+			this.scale = scale;
+			this.angleStep = angleStep;
+			width = scaled(boardWidth, scale);
+			height = scaled(boardHeight, scale);
+			SpriteAtlas.Builder builder = new SpriteAtlas.Builder();
+			//the bird as it is, and turned to every pose. The bird is resized first and then turned, which comes out sharper than the other way round.
+			BufferedImage firstFrame = get(BIRD_FRAMES[0], scale);
+			birdPadding = angleStep > 0 ? Bird.rotationPadding(firstFrame.getWidth(), firstFrame.getHeight()) : 0;
+			ghostSprites = new int[BIRD_FRAMES.length * (1 + (angleStep > 0 ? Bird.poses(angleStep) : 0))];
+			ghostLeft = new int[ghostSprites.length];
+			ghostTop = new int[ghostSprites.length];
+			for(int i = 0; i < birdSprites.length; i++) {
+				BufferedImage frame = get(BIRD_FRAMES[i], scale);
+				birdSprites[i] = builder.add(frame);
+				addGhost(builder, i, Assets.fade(frame, GHOST_OPACITY));
+				birdPoses[i] = new int[angleStep > 0 ? Bird.poses(angleStep) : 0];
+				for(int pose = 0; pose < birdPoses[i].length; pose++) {
+					BufferedImage turned = Assets.rotate(frame, Bird.poseAngle(pose, angleStep), birdPadding);
+					birdPoses[i][pose] = builder.add(turned);
+					addGhost(builder, ghostSprite(i, pose, true), Assets.fade(turned, GHOST_OPACITY));
+				}
+			}
+			topPipe = new PipeSprite(builder, Assets.TOP_PIPE, true, scale);
+			bottomPipe = new PipeSprite(builder, Assets.BOTTOM_PIPE, false, scale);
+			gameOver = builder.add(get(Assets.GAME_OVER, scale));
+
+			//the ground scrolls by drawing two copies of it side by side, so put both copies into one sprite to only need one draw
+			groundStrip = builder.add(Assets.tileHorizontally(get(Assets.GROUND, scale), 2));
+
+			//stretch the sky over the whole board, and keep it in video memory since it never changes
+			sky = new BackgroundLayer(cache.get(Assets.SKY, width, height));
+
+			//the score is drawn from images of the digits made once here, so drawing it never allocates. Text is drawn at the right size rather than
+			//resized, so it stays sharp.
+			Font font = new Font("Arial", Font.PLAIN, Math.max(1, scaled(40, scale)));
+			scoreDigits = new DigitGlyphs(font, Color.WHITE);
+			scoreDigits.addTo(builder);
+			bestLabel = builder.add(DigitGlyphs.renderText("Best: ", font, Color.WHITE));
+
+			atlas = builder.build();
+			scoreDigits.useAtlas(atlas);
+		}
+
+		int x(int x) {
+			return scaled(x, scale);
+		}
+
+		//which of the faded birds to draw a ghost with
+		int ghostSprite(int frame, int pose, boolean tilted) {
+			return tilted ? BIRD_FRAMES.length + frame * Bird.poses(angleStep) + pose : frame;
+		}
+
+		//a ghost is blended every time it's drawn, even where it can't be seen, and a turned bird is mostly empty corners, so only keep what can be
+		//seen of it
+		void addGhost(SpriteAtlas.Builder builder, int key, BufferedImage ghost) {
+			Rectangle seen = Assets.visibleBounds(ghost);
+			if(seen.isEmpty())
+				seen.setBounds(0, 0, 1, 1);
+			ghostSprites[key] = builder.add(ghost.getSubimage(seen.x, seen.y, seen.width, seen.height));
+			ghostLeft[key] = seen.x;
+			ghostTop[key] = seen.y;
+		}
+	}
+
+	private static BufferedImage get(String name, double scale) {
+		BufferedImage image = Assets.get(name);
+		return cache.get(name, Math.max(1, scaled(image.getWidth(), scale)), Math.max(1, scaled(image.getHeight(), scale)));
+	}
+
+	//how tall the piece of a pipe's body that's repeated is, on the board. Taller means fewer copies per pipe, but more of it drawn off the screen.
+	private static final int PIPE_TILE = 128;
+
+	/**
+	 * A pipe in the atlas: the lip, and a piece of the body to repeat, or the whole pipe if its body isn't one row repeated.
+	 */
+	private static class PipeSprite {
+		final boolean lipAtBottom;
+		final int height, lip, lipRows, body;
+
+		PipeSprite(SpriteAtlas.Builder builder, String name, boolean lipAtBottom, double scale) {
+			this.lipAtBottom = lipAtBottom;
+			BufferedImage pipe = get(name, scale);
+			height = pipe.getHeight();
+
+			//resizing blurs the edge between the lip and the body a little, so keep a couple more rows with the lip than it really has
+			int originalLip = lipRows(Assets.get(name), lipAtBottom);
+			int rows = originalLip < 0 ? height : Math.min(height, scaled(originalLip, scale) + 2);
+			if(rows >= height - 2) {
+				lipRows = height;
+				lip = builder.add(pipe);
+				body = -1;
+			}
+			else {
+				lipRows = rows;
+				lip = builder.add(pipe, lipAtBottom ? height - rows : 0, rows);
+
+				//a piece from the middle of the body, well away from where resizing blurred its ends
+				int bodyRows = height - rows, tile = Math.min(bodyRows, Math.max(1, scaled(PIPE_TILE, scale)));
+				body = builder.add(pipe, (lipAtBottom ? 0 : rows) + (bodyRows - tile) / 2, tile);
+			}
+		}
+
+		/**
+		 * Draws the pipe with its top left corner at x, y, leaving out any of the body that's above or below the screen.
+		 */
+		void draw(Graphics g, SpriteAtlas atlas, int x, int y, int screenHeight) {
+			if(body < 0) {
+				atlas.draw(g, lip, x, y);
+				return;
+			}
+			if(lipAtBottom) {
+				int lipTop = y + height - lipRows, bodyTop = Math.max(0, y);
+				atlas.drawTiled(g, body, x, bodyTop, lipTop - bodyTop);
+				atlas.draw(g, lip, x, lipTop);
+			}
+			else {
+				atlas.draw(g, lip, x, y);
+				int bodyTop = y + lipRows;
+				atlas.drawTiled(g, body, x, bodyTop, Math.min(y + height, screenHeight) - bodyTop);
+			}
+		}
+	}
+
+	/**
+	 * Works out how tall the lip of a pipe is: every row from the far end of the pipe that's the same as the row at the far end is body, and the rows
+	 * left over at the end by the gap are the lip.
+	 *
+	 * @param pipe - the pipe image
+	 * @param lipAtBottom - true for a pipe hanging from the top of the screen, false for one standing on the ground
+	 * @return how many rows the lip has, or -1 if less than half the pipe is body, so it isn't worth cutting up
+	 */
+	static int lipRows(BufferedImage pipe, boolean lipAtBottom) {
+		int width = pipe.getWidth(), height = pipe.getHeight();
+		int[] farEnd = pipe.getRGB(0, lipAtBottom ? 0 : height - 1, width, 1, null, 0, width);
+		int[] row = new int[width];
+		int bodyRows = 1;
+		while(bodyRows < height) {
+			pipe.getRGB(0, lipAtBottom ? bodyRows : height - 1 - bodyRows, width, 1, row, 0, width);
+			if(!Arrays.equals(row, farEnd))
+				break;
+			bodyRows++;
+		}
+		return bodyRows * 2 < height ? -1 : height - bodyRows;
+	}
+
+	/**
+	 * @param width - width of the area the game is drawn in
+	 * @param height - height of the area the game is drawn in
+	 */
+	public GameRenderer(int width, int height) {
+		this(width, height, 1);
+	}
+
+	/**
+	 * @param width - width of the board the game is played on
+	 * @param height - height of the board the game is played on
+	 * @param scale - how many pixels to draw for every pixel of the board. The sprites are resized to it right away.
+	 */
+	public GameRenderer(int width, int height, double scale) {
+		this.width = width;
+		this.height = height;
+		ground = Assets.get(Assets.GROUND);
+		BufferedImage bird = Assets.get(BIRD_FRAMES[0]);
+		birdWidth = bird.getWidth();
+		birdHeight = bird.getHeight();
+		pipeWidth = Assets.get(Assets.TOP_PIPE).getWidth();
+		topPipeHeight = Assets.get(Assets.TOP_PIPE).getHeight();
+		bottomPipeHeight = Assets.get(Assets.BOTTOM_PIPE).getHeight();
+		wantedScale = scale;
+		sprites = new Sprites(width, height, scale, ROTATION_STEP);
+		ghostCounts = new int[sprites.ghostSprites.length + 1];
+	}
+
+	/**
+	 * @return a position or size on the board in pixels at the given scale, the same way the sprites are sized and placed
+	 */
+	public static int scaled(int value, double scale) {
+		return (int)Math.round(value * scale);
+	}
+
+	/**
+	 * Starts resizing every sprite for drawing at a new scale on a background thread. Frames are drawn at the old scale until that's done. If the scale
+	 * changes again before then, for example while a window is being dragged bigger, sizes nobody wants anymore are skipped.
+	 *
+	 * @param scale - how many pixels to draw for every pixel of the board
+	 */
+	public void setScale(double scale) {
+		if(scale <= 0 || scale == wantedScale)
+			return;
+		wantedScale = scale;
+		scaler.execute(() -> {
+			int angleStep = wantedAngleStep;
+			if(scale == wantedScale && (scale != sprites.scale || angleStep != sprites.angleStep))
+				publish(new Sprites(width, height, scale, angleStep));
+		});
+	}
+
+	/**
+	 * Turns the bird's sprites by the angle step of a game that's about to be drawn, if it isn't the step they already have, like for a replay
+	 * recorded with another -Dflappy.rotationStep. This takes as long as making the renderer did, so call it where a game is made rather than while
+	 * drawing. It waits until the sprites are ready.
+	 *
+	 * @param state - the game that will be drawn
+	 */
+	public void prepare(GameState state) {
+		int angleStep = state.getBirdAngleStep();
+		if(angleStep <= 0 || angleStep == wantedAngleStep)
+			return;
+		wantedAngleStep = angleStep;
+		publish(new Sprites(width, height, wantedScale, angleStep));
+	}
+
+	//swaps in a new set of sprites, unless the scale or the angle step they were made for was changed while they were being made, in which case
+	//whoever changed it is making the set that's wanted now
+	private synchronized void publish(Sprites s) {
+		if(s.scale == wantedScale && s.angleStep == wantedAngleStep)
+			sprites = s;
+	}
+
+	/**
+	 * @return the scale of the sprites frames are currently drawn with
+	 */
+	public double getScale() {
+		return sprites.scale;
+	}
+
+	/**
+	 * @return the cache of resized sprites shared by every renderer
+	 */
+	public static SpriteCache getSpriteCache() {
+		return cache;
+	}
+
+	/**
+	 * @return a new game whose sizes match the sprites this renderer draws, using pixel perfect collisions
+	 */
+	public GameState newGameState() {
+		return newGameState(new SplittableRandom().nextLong());
+	}
+
+	/**
+	 * @param seed - seed for the pipe heights, so the same run can be played again
+	 * @return a new game whose sizes match the sprites this renderer draws, using pixel perfect collisions
+	 */
+	public GameState newGameState(long seed) {
+		GameState state = new GameState(width, height, ground.getWidth(), ground.getHeight(), birdWidth, birdHeight, BIRD_FRAMES.length, pipeWidth,
+				topPipeHeight, bottomPipeHeight, GameState.pipesOnScreen(width), seed);
+
+		//since we have the real sprites, collide with their actual pixels
+		state.setPixelCollision(newPixelCollision());
+		return state;
+	}
+
+	/**
+	 * @return pixel perfect collisions using the masks of the loaded sprites, with the bird tilting by -Dflappy.rotationStep
+	 */
+	public static PixelCollision newPixelCollision() {
+		return newPixelCollision(ROTATION_STEP);
+	}
+
+	/**
+	 * @param angleStep - how many degrees apart the bird's poses are, or 0 for a bird that doesn't tilt
+	 * @return pixel perfect collisions using the masks of the loaded sprites
+	 */
+	public static PixelCollision newPixelCollision(int angleStep) {
+		CollisionMask topPipe = Assets.getMask(Assets.TOP_PIPE), bottomPipe = Assets.getMask(Assets.BOTTOM_PIPE);
+		if(angleStep <= 0) {
+			CollisionMask[] birdMasks = {Assets.getMask(Assets.BIRD_UP), Assets.getMask(Assets.BIRD_NEUTRAL), Assets.getMask(Assets.BIRD_DOWN)};
+			return new PixelCollision(birdMasks, topPipe, bottomPipe);
+		}
+		BufferedImage bird = Assets.get(BIRD_FRAMES[0]);
+		int padding = Bird.rotationPadding(bird.getWidth(), bird.getHeight());
+		return new PixelCollision(rotatedMasks.computeIfAbsent(angleStep, step -> rotateMasks(step, padding)), angleStep, padding, topPipe, bottomPipe);
+	}
+
+	//the mask of every frame of the bird turned to every pose, from the original sprites
+	private static CollisionMask[][] rotateMasks(int angleStep, int padding) {
+		CollisionMask[][] masks = new CollisionMask[BIRD_FRAMES.length][Bird.poses(angleStep)];
+		for(int i = 0; i < masks.length; i++) {
+			BufferedImage frame = Assets.get(BIRD_FRAMES[i]);
+			for(int pose = 0; pose < masks[i].length; pose++) {
+				BufferedImage turned = Assets.rotate(frame, Bird.poseAngle(pose, angleStep), padding);
+				int width = turned.getWidth(), height = turned.getHeight();
+				masks[i][pose] = CollisionMask.fromArgb(turned.getRGB(0, 0, width, height, null, 0, width), width, height);
+			}
+		}
+		return masks;
+	}
+
+	/**
+	 * Draws one whole frame of the game, with the top left corner of the board at 0, 0 and every position multiplied by getScale(). The graphics object
+	 * must not scale anything itself, or the sprites would be resized again while drawing.
+	 *
+	 * @param g - graphics object to draw with
+	 * @param state - the game to draw
+	 * @param alpha - how far between the previous tick and the next one this frame is, from 0 to 1
+	 * @param target - the component being drawn on, or null when drawing offscreen
+	 */
+	public void draw(Graphics g, GameState state, double alpha, Component target) {
+		//read the sprites once, so a new set swapped in halfway through doesn't mix two scales in one frame
+		Sprites s = sprites;
+		s.sky.draw(g, target);
+		printPipes(g, s, state, alpha);
+		printGhosts(g, s, state, alpha);
+
+		Bird bird = state.getBird();
+		//a game whose bird tilts is drawn with the turned sprites, which are bigger than the bird by the padding on every side
+		if(state.getBirdAngleStep() > 0 && s.angleStep > 0)
+			s.atlas.draw(g, s.birdPoses[bird.getFrame()][bird.getPose(s.angleStep)], s.x(bird.getX()) - s.birdPadding,
+					s.x(bird.getY(alpha)) - s.birdPadding);
+		else
+			s.atlas.draw(g, s.birdSprites[bird.getFrame()], s.x(bird.getX()), s.x(bird.getY(alpha)));
+
+		//only the part of the ground strip that's on the screen
+		int groundX = s.x(state.getGroundX(alpha)), left = Math.max(0, -groundX);
+		s.atlas.draw(g, s.groundStrip, groundX + left, s.x(state.getGroundY()), left, 0,
+				Math.min(s.atlas.getWidth(s.groundStrip) - left, s.width - groundX - left), s.atlas.getHeight(s.groundStrip));
+		printScore(g, s, bird);
+		endGame(g, s, state);
+	}
+
+	private void printPipes(Graphics g, Sprites s, GameState state, double alpha) {
+		PipeRing pipes = state.getPipes();
+		for(int i = 0; i < pipes.size(); i++) {
+			Pipe p = pipes.get(i);
+			int x = s.x(p.getX(alpha));
+			s.topPipe.draw(g, s.atlas, x, s.x(p.getTopY()), s.height);
+			s.bottomPipe.draw(g, s.atlas, x, s.x(p.getBottomY()), s.height);
+		}
+	}
+
+	/**
+	 * Draws every ghost that's still flying at this point of the run, sorted by sprite. Ghosts are only shown while a run is being played.
+	 */
+	private void printGhosts(Graphics g, Sprites s, GameState state, double alpha) {
+		GhostTracks tracks = ghosts;
+		if(tracks == null || !state.isGameStarted() || state.isGameOver() || tracks.getPlayhead() == 0)
+			return;
+		int tick = tracks.getPlayhead(), runs = tracks.size();
+		if(ghostY.length < runs) {
+			int size = Math.max(runs, ghostY.length * 2);
+			ghostKeys = new int[size];
+			ghostY = new int[size];
+			sortedGhostY = new int[size];
+		}
+
+		//which sprite every ghost is drawn with, counting how many use each one
+		boolean tilted = state.getBirdAngleStep() > 0 && s.angleStep > 0;
+		if(ghostCounts.length != s.ghostSprites.length + 1)
+			ghostCounts = new int[s.ghostSprites.length + 1];
+		Arrays.fill(ghostCounts, 0);
+		int count = 0;
+		for(int run = 0; run < runs; run++) {
+			//a run that was over by this tick crashed, so it's gone
+			if(tick > tracks.getLength(run))
+				continue;
+			int now = tracks.get(run, tick - 1);
+			int key = s.ghostSprite(GhostTracks.frame(now), Bird.pose(GhostTracks.angle(now), s.angleStep), tilted);
+			ghostKeys[count] = key;
+			ghostY[count] = ghostY(tracks, run, tick, alpha);
+			ghostCounts[key + 1]++;
+			count++;
+		}
+
+		//a counting sort: where each sprite's ghosts start, then every ghost put in its sprite's place, which leaves each count at the end of its place
+		for(int key = 1; key < ghostCounts.length; key++)
+			ghostCounts[key] += ghostCounts[key - 1];
+		for(int i = 0; i < count; i++)
+			sortedGhostY[ghostCounts[ghostKeys[i]]++] = ghostY[i];
+
+		int padding = tilted ? s.birdPadding : 0, x = s.x(state.getBird().getX()) - padding, start = 0;
+		for(int key = 0; key < ghostCounts.length - 1; key++) {
+			int sprite = s.ghostSprites[key], left = x + s.ghostLeft[key], top = s.ghostTop[key] - padding;
+			for(int i = start; i < ghostCounts[key]; i++)
+				s.atlas.draw(g, sprite, left, s.x(sortedGhostY[i]) + top);
+			start = ghostCounts[key];
+		}
+	}
+
+	//the top of a ghost between the previous tick and this one, on the board, the same way Bird.getY(alpha) does it
+	private static int ghostY(GhostTracks tracks, int run, int tick, double alpha) {
+		int y = GhostTracks.y(tracks.get(run, tick - 1)), previousY = tick > 1 ? GhostTracks.y(tracks.get(run, tick - 2)) : y;
+		return (int)Math.round(previousY + (y - previousY) * alpha);
+	}
+
+	/**
+	 * Finds the strip printGhosts() draws the ghosts in this frame, on the board, with room for them to be tilted.
+	 *
+	 * @param state - the game about to be drawn
+	 * @param alpha - the same alpha the frame will be drawn with
+	 * @param bounds - set to the area the ghosts cover, or to an empty rectangle if none are drawn
+	 */
+	public void getGhostBounds(GameState state, double alpha, Rectangle bounds) {
+		GhostTracks tracks = ghosts;
+		bounds.setBounds(0, 0, 0, 0);
+		if(tracks == null || !state.isGameStarted() || state.isGameOver() || tracks.getPlayhead() == 0)
+			return;
+		int tick = tracks.getPlayhead(), top = Integer.MAX_VALUE, bottom = Integer.MIN_VALUE;
+		for(int run = 0; run < tracks.size(); run++) {
+			if(tick <= tracks.getLength(run)) {
+				int y = ghostY(tracks, run, tick, alpha);
+				top = Math.min(top, y);
+				bottom = Math.max(bottom, y);
+			}
+		}
+		if(top > bottom)
+			return;
+		Bird bird = state.getBird();
+		int padding = state.getBirdAngleStep() > 0 && sprites.angleStep > 0 ? Bird.rotationPadding(birdWidth, birdHeight) : 0;
+		bounds.setBounds(bird.getX() - padding, top - padding, birdWidth + padding * 2, bottom - top + birdHeight + padding * 2);
+	}
+
+	/**
+	 * @param ghosts - earlier runs to draw as ghosts behind the bird, or null for none. They're read while drawing, so they must only be changed by
+	 * the thread that draws, or while it's locked out.
+	 */
+	public void setGhosts(GhostTracks ghosts) {
+		this.ghosts = ghosts;
+	}
+
+	public GhostTracks getGhosts() {
+		return ghosts;
+	}
+
+	private void printScore(Graphics g, Sprites s, Bird bird) {
+		s.scoreDigits.drawNumber(g, bird.getScore(), s.x(width / 2), s.x(50));
+	}
+
+	/**
+	 * Finds the area a score is drawn in by printScore(), on the board.
+	 *
+	 * @param score - the score
+	 * @param bounds - set to the area the score covers
+	 */
+	public void getScoreBounds(int score, Rectangle bounds) {
+		Sprites s = sprites;
+		DigitGlyphs digits = s.scoreDigits;
+		int top = (int)Math.floor(50 - digits.getAscent() / s.scale);
+		bounds.setBounds(width / 2, top, (int)Math.ceil(digits.width(DigitGlyphs.length(score)) / s.scale) + 1,
+				(int)Math.ceil(digits.getHeight() / s.scale) + 1);
+	}
+
+	/**
+	 * Method to draw the game over mesage to the screen, with the best score ever underneath it.
+	 */
+	private void endGame(Graphics g, Sprites s, GameState state) {
+		if(state.isGameOver()) {
+			int left = s.x(width / 4);
+			s.atlas.draw(g, s.gameOver, left, s.x(100));
+			int best = Math.max(bestScore, Math.max(state.getHighScore(), state.getBird().getScore()));
+			int baseline = s.x(100) + s.atlas.getHeight(s.gameOver) + s.x(60);
+			s.atlas.draw(g, s.bestLabel, left, baseline - s.scoreDigits.getAscent());
+			s.scoreDigits.drawNumber(g, best, left + s.atlas.getWidth(s.bestLabel), baseline);
+		}
+	}
+
+	/**
+	 * @param bestScore - the best score from earlier sessions, shown when the game is over
+	 */
+	public void setBestScore(int bestScore) {
+		this.bestScore = bestScore;
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+}
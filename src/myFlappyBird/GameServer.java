@@ -0,0 +1,303 @@
+package myFlappyBird;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hosts games for other machines, with the server running the physics and the collisions, so a client can't claim a score it didn't get. A client
+ * only ever sends the moments it pressed flap; the server plays every session's GameState forward itself and sends back where the bird is and what
+ * the score is.
+ *
+ * Everything runs on one thread, around a non-blocking Selector: it accepts connections, reads flaps, and on every tick steps every session at once,
+ * writing each session's update into that session's outgoing buffer. Only after all sessions have been stepped are the buffers flushed to the
+ * sockets, so a tick costs one write per client, and a client that reads too slowly just has updates skipped instead of holding up everyone else.
+ * With no threads per connection and no locks, thousands of sessions share one tick. (Java 17 has no virtual threads, which is why this isn't
+ * written as one blocking thread per connection.)
+ *
+ * The protocol is a few fixed size binary messages:
+ *
+ * <pre>
+ * server -> client, once:     long seed                           (the session's Course, so the client can draw the pipes itself)
+ * client -> server:           byte 'F', long timestamp            (flap on the next tick. The timestamp is the client's own, sent back unread.)
+ * server -> client, per tick: int tick, int birdY, int score, byte flags (1 = started, 2 = game over), long timestamp of the last flap applied
+ * </pre>
+ *
+ * A client that sends anything else is out of step with the protocol, and there's no telling where its next message starts, so its session is
+ * closed.
+ *
+ * Usage: GameServer [port] [ticks per second]
+ */
+public class GameServer implements Runnable {
+	static final int HELLO_SIZE = 8, FLAP_SIZE = 9, UPDATE_SIZE = 21;
+	static final byte FLAP = 'F';
+	static final int FLAG_STARTED = 1, FLAG_GAME_OVER = 2;
+
+	//room for a couple of seconds of updates if a client stops reading for a moment
+	private static final int OUT_BUFFER = UPDATE_SIZE * 128;
+
+	private final ServerSocketChannel server;
+	private final Selector selector;
+	private final long tickNanos;
+	private final SplittableRandom seeds = new SplittableRandom();
+	private final List<Session> sessions = new ArrayList<>();
+	private final FrameHistogram tickTimes = new FrameHistogram();
+	private volatile boolean running;
+	private Thread thread;
+	private int tick;
+
+	/**
+	 * One connected client and the game it's playing.
+	 */
+	private static class Session {
+		final SocketChannel channel;
+		final SelectionKey key;
+		final GameState game;
+		final ByteBuffer in = ByteBuffer.allocate(FLAP_SIZE * 16), out = ByteBuffer.allocate(OUT_BUFFER);
+		boolean flap;
+		long flapTimestamp;
+
+		Session(SocketChannel channel, SelectionKey key, GameState game) {
+			this.channel = channel;
+			this.key = key;
+			this.game = game;
+		}
+	}
+
+	/**
+	 * @param port - port to listen on, or 0 for any free port
+	 * @param ticksPerSecond - how many times per second every session is stepped
+	 * @throws IOException - thrown if the port can't be opened
+	 */
+	public GameServer(int port, int ticksPerSecond) throws IOException {
+		tickNanos = TimeUnit.SECONDS.toNanos(1) / ticksPerSecond;
+		selector = Selector.open();
+		server = ServerSocketChannel.open();
+		server.bind(new InetSocketAddress(port), 1024);
+		server.configureBlocking(false);
+		server.register(selector, SelectionKey.OP_ACCEPT);
+	}
+
+	public static void main(String args[]) throws IOException, InterruptedException {
+		int port = args.length > 0 ? Integer.parseInt(args[0]) : 7777;
+		int ticksPerSecond = args.length > 1 ? Integer.parseInt(args[1]) : 60;
+		GameServer server = new GameServer(port, ticksPerSecond);
+		System.out.printf("Serving Flappy Bird on port %d at %d ticks per second%n", server.getPort(), ticksPerSecond);
+		server.start();
+		server.thread.join();
+	}
+
+	/**
+	 * Starts serving on a thread of its own.
+	 */
+	public synchronized void start() {
+		if(running)
+			return;
+		running = true;
+		thread = new Thread(this, "Game server");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Stops the server and disconnects every client.
+	 */
+	public void stop() throws InterruptedException {
+		Thread serving;
+		synchronized(this) {
+			running = false;
+			serving = thread;
+			thread = null;
+		}
+		selector.wakeup();
+		if(serving != null)
+			serving.join();
+	}
+
+	@Override
+	public void run() {
+		long nextTick = System.nanoTime() + tickNanos;
+		try {
+			while(running) {
+				long wait = nextTick - System.nanoTime();
+				if(wait <= 0) {
+					long start = System.nanoTime();
+					tick();
+					synchronized(tickTimes) {
+						tickTimes.record(System.nanoTime() - start);
+					}
+					nextTick += tickNanos;
+					//if the server fell far behind, don't try to make up every missed tick in a burst
+					if(System.nanoTime() - nextTick > tickNanos * 10)
+						nextTick = System.nanoTime() + tickNanos;
+					continue;
+				}
+
+				//wait for network events until the next tick is due. select() counts in milliseconds, so round down and let selectNow() cover the rest.
+				long millis = TimeUnit.NANOSECONDS.toMillis(wait);
+				if(millis > 0)
+					selector.select(millis);
+				else
+					selector.selectNow();
+				handleEvents();
+			}
+		} catch(IOException e) {
+			System.err.println("Game server stopped: " + e);
+		} finally {
+			//close() takes each session out of the list, so go from the back
+			for(int i = sessions.size() - 1; i >= 0; i--)
+				close(sessions.get(i));
+			try {
+				server.close();
+			} catch(IOException e) {
+				System.err.println("Game server: could not close the listening socket: " + e);
+			}
+			try {
+				selector.close();
+			} catch(IOException e) {
+				System.err.println("Game server: could not close the selector: " + e);
+			}
+		}
+	}
+
+	private void handleEvents() throws IOException {
+		Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+		while(keys.hasNext()) {
+			SelectionKey key = keys.next();
+			keys.remove();
+			if(!key.isValid())
+				continue;
+			if(key.isAcceptable())
+				accept();
+			else {
+				Session session = (Session)key.attachment();
+				if(key.isReadable())
+					read(session);
+				if(key.isValid() && key.isWritable())
+					flush(session);
+			}
+		}
+	}
+
+	private void accept() throws IOException {
+		SocketChannel channel;
+		while((channel = server.accept()) != null) {
+			channel.configureBlocking(false);
+			channel.socket().setTcpNoDelay(true);
+			long seed = seeds.nextLong();
+			SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+			Session session = new Session(channel, key, HeadlessGame.newGame(seed));
+			key.attach(session);
+			sessions.add(session);
+			session.out.putLong(seed);
+			flush(session);
+		}
+	}
+
+	//remembers the flaps a client sent. They're applied on the next tick, just like the space bar in FlappyBird.
+	private void read(Session session) {
+		try {
+			if(session.channel.read(session.in) < 0) {
+				close(session);
+				return;
+			}
+		} catch(IOException e) {
+			close(session);
+			return;
+		}
+		session.in.flip();
+		while(session.in.remaining() >= FLAP_SIZE) {
+			byte type = session.in.get();
+			long timestamp = session.in.getLong();
+			if(type != FLAP) {
+				System.err.println("Game server: closing " + session.channel.socket().getRemoteSocketAddress() + ", it sent unknown message type "
+						+ (type & 0xFF));
+				close(session);
+				return;
+			}
+			session.flap = true;
+			session.flapTimestamp = timestamp;
+		}
+		session.in.compact();
+	}
+
+	/**
+	 * Steps every session, queues an update for each, and then sends them all.
+	 */
+	private void tick() {
+		tick++;
+		for(int i = 0; i < sessions.size(); i++) {
+			Session session = sessions.get(i);
+			GameState game = session.game;
+			game.step(session.flap);
+			session.flap = false;
+
+			//a client that isn't keeping up misses this update rather than making the buffer grow
+			if(session.out.remaining() >= UPDATE_SIZE) {
+				int flags = (game.isGameStarted() ? FLAG_STARTED : 0) | (game.isGameOver() ? FLAG_GAME_OVER : 0);
+				session.out.putInt(tick).putInt(game.getBird().getY()).putInt(game.getBird().getScore()).put((byte)flags).putLong(session.flapTimestamp);
+			}
+		}
+		for(int i = sessions.size() - 1; i >= 0; i--)
+			flush(sessions.get(i));
+	}
+
+	//writes as much of a session's queued updates as the socket takes, and asks to hear when it can take the rest
+	private void flush(Session session) {
+		if(!session.channel.isOpen())
+			return;
+		session.out.flip();
+		try {
+			session.channel.write(session.out);
+		} catch(IOException e) {
+			session.out.clear();
+			close(session);
+			return;
+		}
+		boolean more = session.out.hasRemaining();
+		session.out.compact();
+		session.key.interestOps(more ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+	}
+
+	private void close(Session session) {
+		session.key.cancel();
+		try {
+			session.channel.close();
+		} catch(IOException e) {
+			System.err.println("Game server: could not close the connection to " + session.channel.socket().getRemoteSocketAddress() + ": " + e);
+		}
+		sessions.remove(session);
+	}
+
+	/**
+	 * @return the port the server is listening on
+	 */
+	public int getPort() {
+		return server.socket().getLocalPort();
+	}
+
+	/**
+	 * @param fraction - which percentile, from 0 to 1
+	 * @return how long stepping and queuing every session took on that percentile of ticks, in nanoseconds
+	 */
+	public long getTickTime(double fraction) {
+		synchronized(tickTimes) {
+			return tickTimes.percentile(fraction);
+		}
+	}
+
+	public void resetTickTimes() {
+		synchronized(tickTimes) {
+			tickTimes.reset();
+		}
+	}
+}
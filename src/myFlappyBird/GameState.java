@@ -0,0 +1,574 @@
+package myFlappyBird;
+
+import java.util.SplittableRandom;
+
+/**
+ * All of the rules of the game, with nothing to do with drawing it. This class owns the bird, the pipes, the scrolling ground and the game over
+ * logic, and moves everything forward one tick at a time through step(). It never touches Swing, AWT or any images, and it only needs the sizes of
+ * the sprites as plain numbers, so the game can be run on a machine with no display at all, as fast as the processor allows. That makes it usable
+ * for tests, bots and servers, while FlappyBird is just one way of showing it on the screen.
+ *
+ * The pipes live in a PipeRing with just enough slots for every pipe that can be on the screen at once, so a running game doesn't create any objects,
+ * not even when it's restarted.
+ *
+ * The only randomness in the game is the height of the pipes, and it all comes from a Course made from a seed. Two games made with the same seed
+ * and the same sizes, and given the same flaps on the same ticks, end up in exactly the same state, which is what lets a Replay play a run back.
+ * Pipes are numbered from the start of the course, and a restarted game carries on with the next pipe, so every run still gets new heights. How big
+ * the gaps are, how fast the pipes go and how often they come is up to the course's Difficulty, counted from the first pipe of each run. When a
+ * faster pipe comes, the pipes already on the screen and the ground speed up with it, so nothing ever catches up with anything else.
+ *
+ * Everything that changes while the game is played can be saved into a snapshot, a long[] of plain numbers, and restored from it later, without
+ * creating any objects either way. That lets something like the Autopilot try out thousands of futures on a copy of the game every tick, always
+ * going back to the same starting point.
+ *
+ * Collisions are swept by default: instead of only checking where the bird and the pipes end up after each tick, their whole movement during the
+ * tick is checked (see Pipe.timeOfImpact() and PixelCollision.timeOfImpact()), so a bird can't slip through the corner of a pipe between two ticks
+ * however fast things move. When the bird crashes partway through a tick, it and the pipes are put back where they were at that moment. Scoring
+ * isn't swept: a pipe scores on the tick after its middle reached the bird, the same as it always has. setSweptCollision(false) only checks the end
+ * of each tick instead.
+ *
+ * Anything that wants to react the moment the bird flaps, scores or crashes, like the sound effects, can set a Listener. It only hears about what
+ * happened and can't change the game, so a game with a listener plays out exactly like one without.
+ */
+public class GameState {
+	/**
+	 * Hears about the moments in the game that something should react to. Called from step(), in the middle of a tick.
+	 */
+	public interface Listener {
+		void flapped();
+
+		void scored();
+
+		void crashed();
+	}
+
+	//every this many ticks a new pipe is added in Difficulty.CLASSIC. The more ticks, the bigger the gap between each pipe.
+	public static final int PIPE_SPAWN_TICKS = 80;
+
+	private static final double FLAP_FORCE = -20;
+
+	private final int width, height, groundWidth, groundHeight, birdWidth, birdHeight, birdFrames, pipeWidth, topPipeImageHeight,
+			bottomPipeImageHeight;
+	private final Course course;
+	private final Difficulty difficulty;
+	private long nextPipe;
+	private int pipeInRun, nextSpawnTicks;
+	private int frames, groundX, previousGroundX, groundY, highScore;
+	private Bird bird;
+	private PipeRing pipes;
+	private PixelCollision pixelCollision;
+	private Listener listener;
+	private boolean isGameOver, gameIsStarted;
+	private boolean sweptCollision = true;
+
+	/**
+	 * Sets up a fresh game that is waiting for the first flap to start.
+	 *
+	 * @param width - width of the game area in pixels
+	 * @param height - height of the game area in pixels
+	 * @param groundWidth - width of the ground image in pixels, used to know when the scrolling ground wraps around
+	 * @param groundHeight - height of the ground image in pixels
+	 * @param birdWidth - width of the bird sprite in pixels
+	 * @param birdHeight - height of the bird sprite in pixels
+	 * @param birdFrames - how many sprites the bird's flapping animation has
+	 * @param pipeWidth - width of the pipe images in pixels
+	 * @param topPipeImageHeight - height of the top pipe image in pixels
+	 * @param bottomPipeImageHeight - height of the bottom pipe image in pixels
+	 */
+	public GameState(int width, int height, int groundWidth, int groundHeight, int birdWidth, int birdHeight, int birdFrames, int pipeWidth,
+			int topPipeImageHeight, int bottomPipeImageHeight) {
+		this(width, height, groundWidth, groundHeight, birdWidth, birdHeight, birdFrames, pipeWidth, topPipeImageHeight, bottomPipeImageHeight,
+				pipesOnScreen(width));
+	}
+
+	/**
+	 * Same as the other constructor, but with a chosen number of pipe slots instead of just enough for the pipes that fit on the screen.
+	 *
+	 * @param pipeCapacity - the most pipes that can be alive at once
+	 */
+	public GameState(int width, int height, int groundWidth, int groundHeight, int birdWidth, int birdHeight, int birdFrames, int pipeWidth,
+			int topPipeImageHeight, int bottomPipeImageHeight, int pipeCapacity) {
+		this(width, height, groundWidth, groundHeight, birdWidth, birdHeight, birdFrames, pipeWidth, topPipeImageHeight, bottomPipeImageHeight,
+				pipeCapacity, new SplittableRandom().nextLong());
+	}
+
+	/**
+	 * Same as the other constructors, but with the seed the pipe heights are picked from, so the same run can be played again.
+	 *
+	 * @param pipeCapacity - the most pipes that can be alive at once
+	 * @param seed - seed for the pipe heights
+	 */
+	public GameState(int width, int height, int groundWidth, int groundHeight, int birdWidth, int birdHeight, int birdFrames, int pipeWidth,
+			int topPipeImageHeight, int bottomPipeImageHeight, int pipeCapacity, long seed) {
+		this(width, height, groundWidth, groundHeight, birdWidth, birdHeight, birdFrames, pipeWidth, topPipeImageHeight, bottomPipeImageHeight,
+				pipeCapacity, seed, Difficulty.CLASSIC);
+	}
+
+	/**
+	 * Same as the other constructors, but with a chosen difficulty. Use pipesOnScreen(width, difficulty) for the pipe capacity.
+	 *
+	 * @param pipeCapacity - the most pipes that can be alive at once
+	 * @param seed - seed for the pipe heights
+	 * @param difficulty - the gap, speed and spacing of each pipe in a run
+	 */
+	public GameState(int width, int height, int groundWidth, int groundHeight, int birdWidth, int birdHeight, int birdFrames, int pipeWidth,
+			int topPipeImageHeight, int bottomPipeImageHeight, int pipeCapacity, long seed, Difficulty difficulty) {
+		this.width = width;
+		this.height = height;
+		this.groundWidth = groundWidth;
+		this.groundHeight = groundHeight;
+		this.birdWidth = birdWidth;
+		this.birdHeight = birdHeight;
+		this.birdFrames = birdFrames;
+		this.pipeWidth = pipeWidth;
+		this.topPipeImageHeight = topPipeImageHeight;
+		this.bottomPipeImageHeight = bottomPipeImageHeight;
+		this.difficulty = difficulty;
+		course = new Course(seed, groundHeight, bottomPipeImageHeight, difficulty);
+		groundY = height - groundHeight;
+		bird = new Bird(width / 2, height / 2, height - groundHeight, FLAP_FORCE, birdWidth, birdHeight, birdFrames);
+		pipes = new PipeRing(pipeCapacity, width + width / 2, height, pipeWidth, topPipeImageHeight);
+		addNewPipe();
+
+		//These boolean assist in determining when to start, stop and restart the game. Initially, they will be false since the game hasn't
+		//started yet, and the player didn't kill the bird yet.
+		isGameOver = false;
+		gameIsStarted = false;
+	}
+
+	/**
+	 * Moves the game forward by one tick.
+	 *
+	 * @param flap - true if the player pressed the flap button since the last tick. Depending on the state of the game this flaps, starts or
+	 * restarts the game.
+	 */
+	public void step(boolean flap) {
+		if(flap)
+			press();
+
+		previousGroundX = groundX;
+		//the same for the pipes, which only move while the game is running. movePipes() overwrites it for the ones that do.
+		for(int i = 0; i < pipes.size(); i++)
+			pipes.get(i).holdStill();
+
+		//The method call is called outside of the if statement because even after getting a gameover, we want the bird to fall down to
+		//the ground. Everything else in the if statement is not called, and thus not updated when the game is over, causing everything to stop moving!
+
+		//if the player did not start the game yet, simply move the ground and nothing else
+		if(!gameIsStarted) {
+			moveGround();
+		}
+		//otherwise, let the bird start falling once the player has started the game
+		else
+			bird.fall();
+
+		//animate the pipes, check to see if the bird collided with either the ground or the pipe as long as the game is running
+		if(!isGameOver && gameIsStarted) {
+			moveGround();
+			isGameOver = hitGround();
+			addPipe();
+
+			movePipes();
+			frames++;
+			if(isGameOver && listener != null)
+				listener.crashed();
+		}
+
+		bird.nextFrame(isGameOver);
+	}
+
+	/**
+	 * What pressing the flap button does, depending on whether the game is running, waiting to start, or over.
+	 */
+	private void press() {
+		//if the player presses the space bar while the game is running, make the bird flap
+		if(!isGameOver && gameIsStarted)
+			flap();
+
+		//pressing the space bar here will start the game by setting the gameIsStarted boolean to true
+		else if(!gameIsStarted) {
+			gameIsStarted = true;
+			flap();
+		}
+
+		//pressing the space bar here will restart the game by resetting all of the values to their initial states
+		else if(isGameOver && hitGround()) {
+			restart();
+			flap();
+		}
+	}
+
+	private void flap() {
+		bird.flap();
+		if(listener != null)
+			listener.flapped();
+	}
+
+	/**
+	 * Puts the game back to how it was before it started, keeping the high score. The pipe slots are reused, not recreated.
+	 */
+	public void restart() {
+		bird.reset();
+		pipes.clear();
+		gameIsStarted = false;
+		if(bird.getScore() > highScore)
+			highScore = bird.getScore();
+		bird.setScore(0);
+		isGameOver = false;
+		pipeInRun = 0;
+		addNewPipe();
+		frames = 0;
+	}
+
+	/**
+	 * checks to see if the bird hit the ground, which counts as a game over.
+	 */
+	public boolean hitGround() {
+		if(bird.getY() + bird.getBirdHeight() >= groundY)
+			return true;
+		return false;
+	}
+
+	/**
+	 * This method will produce movement in the pipes, and check to see whether or not a bird has hit them, which will cause a game over, or if
+	 * a bird has passed in between, earning the player a point. On a tick where the bird hit the ground nothing moves and nothing scores, whichever
+	 * way collisions are checked.
+	 */
+	public void movePipes() {
+		if(isGameOver)
+			return;
+		int score = bird.getScore();
+
+		if(sweptCollision)
+			movePipesSwept();
+
+		//with pixel perfect collisions, move every pipe and then only check the ones that are level with the bird
+		else if(pixelCollision != null) {
+			for(int i = 0; i < pipes.size(); i++) {
+				Pipe pipe = pipes.get(i);
+				pipe.pipeMeetsBird(bird);
+				pipe.movePipe();
+			}
+			isGameOver = pixelCollision.hits(bird, pipes);
+		}
+		else {
+			for(int i = 0; i < pipes.size() && !isGameOver; i++) {
+				Pipe pipe = pipes.get(i);
+				pipe.pipeMeetsBird(bird);
+				pipe.movePipe();
+				isGameOver = pipe.pipeHitsBird(bird);
+			}
+		}
+
+		if(bird.getScore() != score && listener != null)
+			listener.scored();
+	}
+
+	/**
+	 * movePipes() with swept collisions: the pipes that got past the bird by the end of the last tick score, just like in the other two ways, then
+	 * every pipe moves, the earliest moment during the tick that the bird touched anything is found, and if there was a crash everything is put back
+	 * where it was at that moment.
+	 */
+	private void movePipesSwept() {
+		//the bird was still flying at the end of the last tick, so whatever it had got past by then is its point, whatever happens during this one
+		for(int i = 0; i < pipes.size(); i++)
+			pipes.get(i).pipeMeetsBird(bird);
+
+		double impact = Pipe.NEVER;
+		if(pixelCollision != null) {
+			for(int i = 0; i < pipes.size(); i++)
+				pipes.get(i).movePipe();
+			impact = Math.min(impact, pixelCollision.timeOfImpact(bird, pipes));
+		}
+		else {
+			//each pipe only needs itself and the bird, so it can be checked as soon as it's moved
+			for(int i = 0; i < pipes.size(); i++) {
+				Pipe pipe = pipes.get(i);
+				pipe.movePipe();
+				impact = Math.min(impact, pipe.timeOfImpact(bird));
+			}
+		}
+
+		if(impact != Pipe.NEVER) {
+			isGameOver = true;
+			if(impact < 1) {
+				bird.stopAt(impact);
+				for(int i = 0; i < pipes.size(); i++)
+					pipes.get(i).stopAt(impact);
+			}
+		}
+	}
+
+	public void moveGround() {
+		groundX -= scrollSpeed();
+
+		if(groundX <= -groundWidth)
+			groundX = 0;
+	}
+
+	public void addPipe() {
+
+		//once enough ticks have gone by since the last pipe, add a new pipe to the end of the ring of pipes. The difficulty decides how many.
+		if(frames >= nextSpawnTicks) {
+			addNewPipe();
+			frames = 0;
+		}
+
+		//if a pipe is off of the screen, remove it from the ring as it will no longer be needed. Its slot will be reused for a later pipe.
+		Pipe first = pipes.getFirst();
+		if(first.getX() <= -first.getWidth())
+			pipes.removeFirst();
+	}
+
+	//puts the next pipe of the course just off the right side of the screen
+	private void addNewPipe() {
+		//everything on the screen scrolls at the speed of the newest pipe, so a faster pipe never catches up with a slower one in front of it, and
+		//the ground never slides past the pipes standing on it
+		int speed = difficulty.speed(pipeInRun);
+		if(speed != scrollSpeed()) {
+			for(int i = 0; i < pipes.size(); i++)
+				pipes.get(i).setSpeed(speed);
+		}
+		pipes.spawn(course.bottomPipeHeight(nextPipe++), difficulty.gap(pipeInRun), speed);
+		pipeInRun++;
+		nextSpawnTicks = difficulty.spawnTicks(pipeInRun);
+	}
+
+	/**
+	 * @return how many pixels the ground and every pipe move left each tick right now, which is the speed of the newest pipe
+	 */
+	public int scrollSpeed() {
+		return difficulty.speed(Math.max(0, pipeInRun - 1));
+	}
+
+	/**
+	 * Works out how many pipes can be alive at once. A pipe lives from when it's spawned off the right side of the screen until it has fully left
+	 * the left side, and the difficulty says how close together they can be, so only so many fit. One extra slot covers the tick where a new pipe is
+	 * added before the oldest one is removed.
+	 */
+	public static int pipesOnScreen(int width, Difficulty difficulty) {
+		int travel = width + width / 2;
+		return travel / difficulty.minSpacing() + 2;
+	}
+
+	static int pipesOnScreen(int width) {
+		return pipesOnScreen(width, Difficulty.CLASSIC);
+	}
+
+	/**
+	 * Blends the ground position between the last tick and the current one. When the ground wrapped back to 0 on the last tick, keep sliding left
+	 * from where it was instead, since blending across the jump would make it slide backwards for a frame.
+	 */
+	public int getGroundX(double alpha) {
+		if(groundX > previousGroundX)
+			return (int)Math.round(previousGroundX - scrollSpeed() * alpha);
+		return (int)Math.round(previousGroundX + (groundX - previousGroundX) * alpha);
+	}
+
+	/**
+	 * Sums up everything about the game that changes while it's played into one number, so two runs can be checked to have ended in exactly the same
+	 * state without comparing them field by field. The bird's velocity is hashed by its exact bits, so even the smallest difference in the physics
+	 * shows up.
+	 *
+	 * @return a hash of the current state of the game
+	 */
+	public long checksum() {
+		long hash = course.getSeed();
+		hash = hash * 31 + bird.getY();
+		hash = hash * 31 + bird.getFrame();
+		hash = hash * 31 + bird.getScore();
+		hash = hash * 31 + Double.doubleToLongBits(bird.getVelocity());
+		hash = hash * 31 + Double.doubleToLongBits(bird.getAcceleration());
+		hash = hash * 31 + frames;
+		hash = hash * 31 + groundX;
+		hash = hash * 31 + highScore;
+		hash = hash * 31 + (isGameOver ? 1 : 0);
+		hash = hash * 31 + (gameIsStarted ? 1 : 0);
+		for(int i = 0; i < pipes.size(); i++) {
+			Pipe pipe = pipes.get(i);
+			hash = hash * 31 + pipe.getX();
+			hash = hash * 31 + pipe.getBottomY();
+		}
+		return hash;
+	}
+
+	//how many longs save() writes for the game itself, before the bird and the pipes
+	private static final int SNAPSHOT_HEADER = 8;
+
+	/**
+	 * @return a snapshot big enough for save()
+	 */
+	public long[] newSnapshot() {
+		return new long[SNAPSHOT_HEADER + Bird.SNAPSHOT_SIZE + pipes.snapshotSize()];
+	}
+
+	/**
+	 * Writes everything about the game that changes while playing into a snapshot: the counters and flags of the game, then the bird, then the live
+	 * pipes. Doubles are stored as their bits, so restoring gives back exactly the same numbers. The sizes, the course and the collision rules don't
+	 * change while playing and aren't saved, so a snapshot can only be restored into this game or one made the same way, such as a copy().
+	 *
+	 * @param snapshot - where to write, from newSnapshot()
+	 */
+	public void save(long[] snapshot) {
+		snapshot[0] = nextPipe;
+		snapshot[1] = pipeInRun;
+		snapshot[2] = nextSpawnTicks;
+		snapshot[3] = frames;
+		snapshot[4] = groundX;
+		snapshot[5] = previousGroundX;
+		snapshot[6] = highScore;
+		snapshot[7] = (isGameOver ? 1 : 0) | (gameIsStarted ? 2 : 0);
+		pipes.save(snapshot, bird.save(snapshot, SNAPSHOT_HEADER));
+	}
+
+	/**
+	 * Puts the game back the way save() found it. The listener isn't told about anything.
+	 *
+	 * @param snapshot - written by save() on this game or one made the same way
+	 */
+	public void restore(long[] snapshot) {
+		nextPipe = snapshot[0];
+		pipeInRun = (int)snapshot[1];
+		nextSpawnTicks = (int)snapshot[2];
+		frames = (int)snapshot[3];
+		groundX = (int)snapshot[4];
+		previousGroundX = (int)snapshot[5];
+		highScore = (int)snapshot[6];
+		isGameOver = (snapshot[7] & 1) != 0;
+		gameIsStarted = (snapshot[7] & 2) != 0;
+		pipes.restore(snapshot, bird.restore(snapshot, SNAPSHOT_HEADER));
+	}
+
+	/**
+	 * @return a new game made the same way as this one, with the same sizes, course and collisions, in the same state, but without the listener
+	 */
+	public GameState copy() {
+		GameState copy = new GameState(width, height, groundWidth, groundHeight, birdWidth, birdHeight, birdFrames, pipeWidth, topPipeImageHeight,
+				bottomPipeImageHeight, pipes.getCapacity(), course.getSeed(), difficulty);
+		copy.setPixelCollision(pixelCollision);
+		copy.setSweptCollision(sweptCollision);
+		long[] snapshot = newSnapshot();
+		save(snapshot);
+		copy.restore(snapshot);
+		return copy;
+	}
+
+	/**
+	 * @return the sizes this game was made with, in the order the constructor takes them
+	 */
+	int[] getSizes() {
+		return new int[] {width, height, groundWidth, groundHeight, birdWidth, birdHeight, birdFrames, pipeWidth, topPipeImageHeight,
+				bottomPipeImageHeight};
+	}
+
+	/**
+	 * @return true if the game uses pixel perfect collisions instead of rectangles
+	 */
+	public boolean hasPixelCollision() {
+		return pixelCollision != null;
+	}
+
+	/**
+	 * @return true if collisions are checked over the whole of each tick, false if only at the end of it
+	 */
+	public boolean hasSweptCollision() {
+		return sweptCollision;
+	}
+
+	/**
+	 * @param sweptCollision - true to check collisions over the whole of each tick (the default), false to only check where things are at the end of
+	 * it
+	 */
+	public void setSweptCollision(boolean sweptCollision) {
+		this.sweptCollision = sweptCollision;
+	}
+
+	/**
+	 * @return how many degrees apart the bird's poses are in the pixel perfect collisions, or 0 if the bird doesn't tilt (or there are no pixel
+	 * perfect collisions)
+	 */
+	public int getBirdAngleStep() {
+		return pixelCollision == null ? 0 : pixelCollision.getAngleStep();
+	}
+
+	public long getSeed() {
+		return course.getSeed();
+	}
+
+	/**
+	 * @return the gap, speed and spacing of each pipe in a run
+	 */
+	public Difficulty getDifficulty() {
+		return difficulty;
+	}
+
+	/**
+	 * @return the course the pipes come from, for looking ahead at pipes that haven't appeared yet
+	 */
+	public Course getCourse() {
+		return course;
+	}
+
+	/**
+	 * @return the course number of the next pipe that will appear
+	 */
+	public long getNextPipeIndex() {
+		return nextPipe;
+	}
+
+	public int getGroundX() {
+		return groundX;
+	}
+
+	public int getGroundY() {
+		return groundY;
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	public Bird getBird() {
+		return bird;
+	}
+
+	/**
+	 * Switches the game to pixel perfect collisions between the bird and the pipes. Without this, the rough rectangle checks in Pipe are used.
+	 *
+	 * @param pixelCollision - the collision checker to use, or null to go back to the rectangle checks
+	 */
+	public void setPixelCollision(PixelCollision pixelCollision) {
+		this.pixelCollision = pixelCollision;
+	}
+
+	/**
+	 * @param listener - told whenever the bird flaps, scores or crashes, or null for nobody
+	 */
+	public void setListener(Listener listener) {
+		this.listener = listener;
+	}
+
+	public PipeRing getPipes() {
+		return pipes;
+	}
+
+	public int getFrames() {
+		return frames;
+	}
+
+	public int getHighScore() {
+		return highScore;
+	}
+
+	public boolean isGameOver() {
+		return isGameOver;
+	}
+
+	public boolean isGameStarted() {
+		return gameIsStarted;
+	}
+}
@@ -0,0 +1,164 @@
+package myFlappyBird;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Where the bird was on every tick of earlier runs, so they can be shown as ghosts racing the bird being played. The world scrolls past the bird
+ * instead of the bird moving along it, so every ghost flies at the same x as the real bird, and all a ghost needs per tick is its height, its
+ * animation frame and how far it's tilted.
+ *
+ * Hundreds of runs of a minute or more don't fit well into a Bird each, so every tick of every run is packed into one int (the height in the low 16
+ * bits, then the frame, then the tilt in half degrees) in a single array, one run after the other, with another array saying where each run starts.
+ * A tick of a ghost is then one array read, and a thousand runs of a minute each are about 14 MB.
+ *
+ * The run being played is recorded by calling tick() after every step of the game, which also keeps count of how far into the run the game is, so
+ * GameRenderer knows which tick of every ghost to draw. Runs are added as they finish, so every run played becomes a ghost for the ones after it.
+ * Runs from a replay file can be added all at once with fromReplays().
+ */
+public class GhostTracks {
+	//the tilt is stored as half degrees from the highest the bird ever points, so it fits in a byte
+	private static final int TILT_STEPS_PER_DEGREE = 2;
+
+	private int[] ticks = new int[1 << 12];
+	private int[] starts = new int[16];
+	private int runs, length;
+	private boolean recording;
+	private int playhead;
+
+	/**
+	 * Plays every run in some replays without a window, and keeps each one as a ghost.
+	 *
+	 * @param replays - the replays. Any that use pixel perfect collisions need the sprites loaded by Assets first.
+	 */
+	public static GhostTracks fromReplays(List<Replay> replays) {
+		GhostTracks ghosts = new GhostTracks();
+		for(Replay replay : replays) {
+			GameState game = replay.newGame();
+			Replay.Playback playback = replay.play();
+			while(!playback.isFinished()) {
+				boolean wasStarted = game.isGameStarted(), wasOver = game.isGameOver();
+				game.step(playback.nextTick());
+				ghosts.tick(game, wasStarted, wasOver);
+			}
+			//a replay that stops in the middle of a run still makes a ghost of as far as it got
+			ghosts.endRun();
+		}
+		ghosts.playhead = 0;
+		return ghosts;
+	}
+
+	/**
+	 * Records the tick a game just played: a run is started when the game starts, added to on every tick until the bird crashes, and finished on the
+	 * tick it does.
+	 *
+	 * @param game - the game, right after step()
+	 * @param wasStarted - whether the game had started before that step
+	 * @param wasOver - whether the game was over before that step
+	 */
+	public void tick(GameState game, boolean wasStarted, boolean wasOver) {
+		if(!wasStarted && game.isGameStarted()) {
+			startRun();
+			playhead = 0;
+		}
+		if(game.isGameStarted() && !wasOver) {
+			Bird bird = game.getBird();
+			add(bird.getY(), bird.getFrame(), bird.getAngle());
+			playhead++;
+		}
+		if(!wasOver && game.isGameOver())
+			endRun();
+	}
+
+	/**
+	 * Starts a new run. Ticks added from now on belong to it, and it isn't shown as a ghost until it's finished.
+	 */
+	public void startRun() {
+		endRun();
+		starts[runs] = length;
+		recording = true;
+	}
+
+	/**
+	 * Adds one tick to the run being recorded.
+	 *
+	 * @param y - the top of the bird
+	 * @param frame - the bird's animation frame
+	 * @param angle - how far the bird is tilted, in degrees
+	 */
+	public void add(int y, int frame, double angle) {
+		if(!recording)
+			return;
+		if(length == ticks.length)
+			ticks = Arrays.copyOf(ticks, ticks.length * 2);
+		int tilt = (int)Math.round((Math.max(Bird.MAX_UP_ANGLE, Math.min(Bird.MAX_DOWN_ANGLE, angle)) - Bird.MAX_UP_ANGLE) * TILT_STEPS_PER_DEGREE);
+		ticks[length++] = (y & 0xffff) | (frame & 0xff) << 16 | tilt << 24;
+	}
+
+	/**
+	 * Finishes the run being recorded, so it's shown as a ghost from now on. A run with no ticks is dropped.
+	 */
+	public void endRun() {
+		if(!recording)
+			return;
+		recording = false;
+		if(length > starts[runs]) {
+			runs++;
+			if(runs + 1 >= starts.length)
+				starts = Arrays.copyOf(starts, starts.length * 2);
+			starts[runs] = length;
+		}
+	}
+
+	/**
+	 * @return how many finished runs there are
+	 */
+	public int size() {
+		return runs;
+	}
+
+	/**
+	 * @return how many ticks a run lasted
+	 */
+	public int getLength(int run) {
+		return starts[run + 1] - starts[run];
+	}
+
+	/**
+	 * @param run - which run
+	 * @param tick - which tick of it, from 0 for the first tick after the run started, less than getLength(run)
+	 * @return everything about the ghost on that tick, packed into an int. Take it apart with y(), frame() and angle().
+	 */
+	public int get(int run, int tick) {
+		return ticks[starts[run] + tick];
+	}
+
+	/**
+	 * @return how many ticks of the run being played have gone by, so get(run, getPlayhead() - 1) is where each ghost is now
+	 */
+	public int getPlayhead() {
+		return playhead;
+	}
+
+	public static int y(int packed) {
+		return (short)packed;
+	}
+
+	public static int frame(int packed) {
+		return packed >>> 16 & 0xff;
+	}
+
+	/**
+	 * @return how far the bird was tilted, in degrees, to the nearest half degree
+	 */
+	public static double angle(int packed) {
+		return (double)(packed >>> 24) / TILT_STEPS_PER_DEGREE + Bird.MAX_UP_ANGLE;
+	}
+
+	/**
+	 * @return how many ticks are stored over every run, which at 4 bytes each is most of the memory this takes
+	 */
+	public int getTickCount() {
+		return length;
+	}
+}
@@ -0,0 +1,68 @@
+package myFlappyBird;
+
+/**
+ * Runs the game with no window at all, as fast as the processor allows, and prints how many ticks per second it managed. A very simple autopilot
+ * flaps whenever the bird drops below the middle of the next gap, and the game is restarted whenever it ends, so the run exercises everything:
+ * falling, flapping, scoring, spawning pipes and crashing. The sprite sizes are plain numbers, since nothing is drawn: the bird matches the sprites
+ * in the repo, and the ground and pipes match the originals, which are the sizes of the stand-ins Assets draws when they're missing.
+ *
+ * These sizes are the only copy of them: the Trainer, the stand-ins and the benchmarks all use the ones here, so a sprite that changes size only
+ * has to be changed here.
+ */
+public class HeadlessGame {
+	static final int WIDTH = 600, HEIGHT = 800;
+	static final int GROUND_WIDTH = 672, GROUND_HEIGHT = 112;
+	static final int BIRD_WIDTH = 60, BIRD_HEIGHT = 43, BIRD_FRAMES = 3;
+	static final int PIPE_WIDTH = 80, PIPE_IMAGE_HEIGHT = 700;
+
+	public static void main(String args[]) {
+		long ticks = args.length > 0 ? Long.parseLong(args[0]) : 50000000L;
+
+		GameState game = newGame();
+		int games = 0, bestScore = 0;
+		long start = System.nanoTime();
+		for(long i = 0; i < ticks; i++) {
+			game.step(shouldFlap(game));
+			if(game.isGameOver() && game.hitGround()) {
+				bestScore = Math.max(bestScore, game.getBird().getScore());
+				games++;
+				//one press to restart, since a restarted game also gets its first flap
+				game.step(true);
+			}
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+
+		System.out.printf("%d ticks in %.2f s = %.0f ticks per second (%d games, best score %d)%n", ticks, seconds, ticks / seconds, games, bestScore);
+	}
+
+	/**
+	 * @return a game using the sizes of the bundled sprites
+	 */
+	public static GameState newGame() {
+		return new GameState(WIDTH, HEIGHT, GROUND_WIDTH, GROUND_HEIGHT, BIRD_WIDTH, BIRD_HEIGHT, BIRD_FRAMES, PIPE_WIDTH, PIPE_IMAGE_HEIGHT,
+				PIPE_IMAGE_HEIGHT);
+	}
+
+	/**
+	 * @param seed - seed for the pipe heights
+	 * @return a game using the sizes of the bundled sprites and the given course
+	 */
+	public static GameState newGame(long seed) {
+		return new GameState(WIDTH, HEIGHT, GROUND_WIDTH, GROUND_HEIGHT, BIRD_WIDTH, BIRD_HEIGHT, BIRD_FRAMES, PIPE_WIDTH, PIPE_IMAGE_HEIGHT,
+				PIPE_IMAGE_HEIGHT, GameState.pipesOnScreen(WIDTH), seed);
+	}
+
+	//flap when the bird is below the middle of the gap of the first pipe that hasn't gone past it yet
+	static boolean shouldFlap(GameState game) {
+		Bird bird = game.getBird();
+		if(!game.isGameStarted())
+			return true;
+		PipeRing pipes = game.getPipes();
+		for(int i = 0; i < pipes.size(); i++) {
+			Pipe p = pipes.get(i);
+			if(p.getX() + p.getWidth() >= bird.getX())
+				return bird.getY() + bird.getBirdHeight() > p.getBottomY() - 30 && bird.getVelocity() >= 0;
+		}
+		return bird.getY() > game.getHeight() / 2;
+	}
+}
@@ -0,0 +1,33 @@
+package myFlappyBird;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * A Java Flight Recorder event for every flap, from the moment the key press reached the game until the first frame showing it was on its way to
+ * the screen, split into the time it waited for a tick and the time from that tick until the frame was shown.
+ */
+@Name("myFlappyBird.InputLatency")
+@Label("Input Latency")
+@Category("Flappy Bird")
+@Description("Time from a flap key press to the first frame that shows it")
+@StackTrace(false)
+public class InputLatencyEvent extends jdk.jfr.Event {
+	@Label("Queue Time")
+	@Description("From the key press until a tick applied it")
+	@Timespan(Timespan.NANOSECONDS)
+	long queueTime;
+
+	@Label("Display Time")
+	@Description("From the tick that applied it until the frame showing it was presented")
+	@Timespan(Timespan.NANOSECONDS)
+	long displayTime;
+
+	@Label("Total")
+	@Timespan(Timespan.NANOSECONDS)
+	long total;
+}
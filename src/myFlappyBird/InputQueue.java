@@ -0,0 +1,73 @@
+package myFlappyBird;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Flap presses on their way from the Swing thread to the game loop, each one stamped with the System.nanoTime() it was pressed at. Before this, a key
+ * press had to lock the whole panel to set a flag, which meant the Swing thread sat waiting whenever the game loop happened to be drawing a frame.
+ * Now the Swing thread only drops a timestamp into this queue and carries on, and the game loop takes everything out at the start of the next tick.
+ *
+ * Exactly one thread may offer and exactly one thread may poll, which is what makes it safe without any locks: the array slot is written before the
+ * tail counter is moved on, and the poller only looks at slots below the tail, so it never sees a slot before its timestamp is in it. The counters
+ * only ever grow, and their low bits pick the slot.
+ */
+public class InputQueue {
+	/**
+	 * What poll() returns when there's nothing in the queue.
+	 */
+	public static final long EMPTY = Long.MIN_VALUE;
+
+	private final long[] timestamps;
+	private final int mask;
+	private final AtomicLong head = new AtomicLong(), tail = new AtomicLong();
+
+	/**
+	 * @param capacity - most presses that can wait at once, rounded up to a power of two
+	 */
+	public InputQueue(int capacity) {
+		int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+		timestamps = new long[size];
+		mask = size - 1;
+	}
+
+	/**
+	 * Adds a press. Only call from the one producing thread.
+	 *
+	 * @param nanos - System.nanoTime() when the key was pressed
+	 * @return false if the queue was full and the press was dropped
+	 */
+	public boolean offer(long nanos) {
+		long t = tail.get();
+		if(t - head.get() == timestamps.length)
+			return false;
+		timestamps[(int)t & mask] = nanos;
+		tail.lazySet(t + 1);
+		return true;
+	}
+
+	/**
+	 * Takes the oldest press out. Only call from the one consuming thread.
+	 *
+	 * @return its timestamp, or EMPTY if there are none
+	 */
+	public long poll() {
+		long h = head.get();
+		if(h == tail.get())
+			return EMPTY;
+		long nanos = timestamps[(int)h & mask];
+		head.lazySet(h + 1);
+		return nanos;
+	}
+
+	/**
+	 * Empties the queue. Only call from the consuming thread.
+	 *
+	 * @return the timestamp of the oldest press that was waiting, or EMPTY if there were none
+	 */
+	public long drain() {
+		long oldest = poll();
+		if(oldest != EMPTY)
+			while(poll() != EMPTY);
+		return oldest;
+	}
+}
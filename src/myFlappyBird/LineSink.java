@@ -0,0 +1,39 @@
+package myFlappyBird;
+
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+
+/**
+ * Plays the mixed sound on the computer's default sound output through a SourceDataLine. The line's own buffer is kept small, just a few of the
+ * mixer's chunks, since everything in it has already been mixed and a flap can't be heard until whatever is ahead of it has played.
+ */
+public class LineSink implements AudioSink {
+	private final SourceDataLine line;
+
+	/**
+	 * @param bufferBytes - how big the line's buffer should be. The sound system may pick a different size.
+	 * @throws LineUnavailableException - thrown if there is no sound output, or it's in use
+	 */
+	public LineSink(int bufferBytes) throws LineUnavailableException {
+		line = AudioSystem.getSourceDataLine(SoundEffects.FORMAT);
+		line.open(SoundEffects.FORMAT, bufferBytes);
+		line.start();
+	}
+
+	@Override
+	public void write(byte[] data, int length) {
+		line.write(data, 0, length);
+	}
+
+	@Override
+	public int getBufferSize() {
+		return line.getBufferSize();
+	}
+
+	@Override
+	public void close() {
+		line.stop();
+		line.close();
+	}
+}
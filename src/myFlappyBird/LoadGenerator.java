@@ -0,0 +1,148 @@
+package myFlappyBird;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Puts a GameServer under load with lots of simulated players, and prints how well it kept up. For every session count asked for, it connects that
+ * many clients, lets them play for a while, and then reports how many updates per second every session got (ideally the server's tick rate), and
+ * how long it took from sending a flap until an update came back with that flap applied, at the median, 99th and 99.9th percentile and at worst.
+ * That latency includes waiting for the next tick, so on a 60 tick server anything up to about 17 ms is just the tick rate.
+ *
+ * All of the clients share one thread and one Selector, just like the server. Each one flaps whenever its bird is below the middle of the screen,
+ * and restarts whenever it dies, so every session keeps playing. If no host is given, a server is started inside this program on a free port.
+ *
+ * Usage: LoadGenerator [session counts, like 100,1000,4000] [seconds per count] [host port]
+ */
+public class LoadGenerator {
+	private static final int TICKS_PER_SECOND = 60;
+
+	/**
+	 * One simulated player.
+	 */
+	private static class Client {
+		final SocketChannel channel;
+		final ByteBuffer in = ByteBuffer.allocate(GameServer.UPDATE_SIZE * 64), out = ByteBuffer.allocate(GameServer.FLAP_SIZE);
+		boolean greeted;
+		long pendingFlap;
+
+		Client(SocketChannel channel) {
+			this.channel = channel;
+		}
+	}
+
+	public static void main(String args[]) throws IOException, InterruptedException {
+		String[] counts = (args.length > 0 ? args[0] : "100,1000,4000").split(",");
+		int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+		GameServer embedded = null;
+		InetSocketAddress address;
+		if(args.length > 3)
+			address = new InetSocketAddress(args[2], Integer.parseInt(args[3]));
+		else {
+			embedded = new GameServer(0, TICKS_PER_SECOND);
+			embedded.start();
+			address = new InetSocketAddress("127.0.0.1", embedded.getPort());
+		}
+
+		System.out.println("sessions   updates/s   per session/s   flap p50 ms   p99 ms   p99.9 ms   max ms   server tick p99 ms");
+		for(String count : counts) {
+			if(embedded != null)
+				embedded.resetTickTimes();
+			run(address, Integer.parseInt(count.trim()), seconds, embedded);
+		}
+		if(embedded != null)
+			embedded.stop();
+	}
+
+	private static void run(InetSocketAddress address, int sessions, int seconds, GameServer embedded) throws IOException {
+		Selector selector = Selector.open();
+		List<Client> clients = new ArrayList<>();
+		for(int i = 0; i < sessions; i++) {
+			SocketChannel channel = SocketChannel.open(address);
+			channel.socket().setTcpNoDelay(true);
+			channel.configureBlocking(false);
+			Client client = new Client(channel);
+			channel.register(selector, SelectionKey.OP_READ, client);
+			clients.add(client);
+		}
+
+		FrameHistogram latency = new FrameHistogram();
+		long updates = 0;
+		long start = System.nanoTime(), end = start + TimeUnit.SECONDS.toNanos(seconds);
+		while(System.nanoTime() < end) {
+			selector.select(100);
+			Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+			while(keys.hasNext()) {
+				SelectionKey key = keys.next();
+				keys.remove();
+				updates += read((Client)key.attachment(), latency);
+			}
+		}
+		double elapsed = (System.nanoTime() - start) / 1e9;
+
+		for(Client client : clients)
+			client.channel.close();
+		selector.close();
+
+		System.out.printf("%8d %11.0f %15.1f %13.2f %8.2f %10.2f %8.2f %20s%n", sessions, updates / elapsed, updates / elapsed / sessions,
+				latency.percentile(0.5) / 1e6, latency.percentile(0.99) / 1e6, latency.percentile(0.999) / 1e6, latency.getMax() / 1e6,
+				embedded == null ? "-" : String.format("%.2f", embedded.getTickTime(0.99) / 1e6));
+	}
+
+	/**
+	 * Reads whatever updates arrived for a client and answers them.
+	 *
+	 * @return how many updates were read
+	 */
+	private static int read(Client client, FrameHistogram latency) throws IOException {
+		if(client.channel.read(client.in) < 0)
+			throw new IOException("The server closed a session");
+		client.in.flip();
+		if(!client.greeted) {
+			if(client.in.remaining() < GameServer.HELLO_SIZE) {
+				client.in.compact();
+				return 0;
+			}
+			client.in.getLong();
+			client.greeted = true;
+		}
+
+		int updates = 0;
+		boolean flap = false;
+		while(client.in.remaining() >= GameServer.UPDATE_SIZE) {
+			client.in.getInt();
+			int birdY = client.in.getInt();
+			client.in.getInt();
+			int flags = client.in.get();
+			long applied = client.in.getLong();
+			updates++;
+
+			if(client.pendingFlap != 0 && applied == client.pendingFlap) {
+				latency.record(System.nanoTime() - client.pendingFlap);
+				client.pendingFlap = 0;
+			}
+			boolean playing = (flags & GameServer.FLAG_STARTED) != 0 && (flags & GameServer.FLAG_GAME_OVER) == 0;
+			flap = !playing || birdY > 400;
+		}
+		client.in.compact();
+
+		//only one flap in flight at a time, so each one can be matched with the update that applied it
+		if(flap && client.pendingFlap == 0) {
+			client.pendingFlap = System.nanoTime();
+			client.out.clear();
+			client.out.put(GameServer.FLAP).putLong(client.pendingFlap).flip();
+			while(client.out.hasRemaining())
+				client.channel.write(client.out);
+		}
+		return updates;
+	}
+}
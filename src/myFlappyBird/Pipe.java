@@ -1,67 +1,65 @@
 package myFlappyBird;
 
-import java.awt.Graphics;
-import java.awt.Image;
-import java.awt.image.BufferedImage;
-import java.awt.image.ImageObserver;
-import java.io.File;
-import java.io.IOException;
-import java.util.Random;
-
-import javax.imageio.ImageIO;
-
 /**
  * This class will contain all of the information needed to define the properties that make up a pipe in FlappyBird. Rather than making each Pipe instance
  * contain one pipe image, a Pipe will contain two, with one at the top of the screen, and one at the bottom. This will make printing a pair of pipes to the
- * screen much more simplified. Again, like with the Bird class, this class will implement the ImageObserver interface due to it being a parameter in the
- * drawImage method. The class will contain two BufferedImages that will hold the image of a pipe .jpg or .png read in by the main class.
+ * screen much more simplified. Again, like with the Bird class, a pipe only knows the size of its images in pixels and never touches the images themselves,
+ * so the game can run without a display. The renderer draws the pipe images wherever getX(), getTopY() and getBottomY() say they should go.
+ * 
+ * Pipes are reused: a PipeRing makes a handful of them once, and every time one is needed again reset() puts it back at the right side of the screen
+ * with a new height, gap and speed, instead of a new Pipe being created for every pair of pipes that scrolls by. The heights come from a Course.
+ * 
+ * pipeHitsBird() only looks at where the bird and the pipe are at the end of a tick, so anything that happens in between is missed: with fast pipes
+ * or a fast bird, the bird can clip the corner of a pipe's lip, or the whole pipe can jump past the bird, without them ever overlapping at the end of
+ * a tick. timeOfImpact() sweeps both along the straight line from where they were at the start of the tick to where they are at the end, and finds
+ * exactly when during the tick they first touch by the same rules, if they do.
  * 
  * @author Darien Miller
  *
  */
-public class Pipe implements ImageObserver {
-	private int x, topY, bottomY, xSpeed, bottomPipeHeight, topPipeHeight;
-	private final int PIPE_GAP, PIPE_WIDTH, WINDOW_WIDTH, WINDOW_HEIGHT;
-	private Random rand;
-	private BufferedImage topPipe, bottomPipe;
+public class Pipe {
+	static final int PIPE_GAP = 130;//Arbitrarily choose a number of pixels to represent how far apart the pipes will be from each other. Used by Difficulty.CLASSIC
+	static final int SPEED = 5;//choose arbitrary value for how fast the pipe will move. Used by Difficulty.CLASSIC
+	private int x, previousX, topY, bottomY, xSpeed, bottomPipeHeight, topPipeHeight;
+	private final int PIPE_WIDTH, WINDOW_WIDTH, WINDOW_HEIGHT, TOP_PIPE_IMAGE_HEIGHT;
 	private boolean passedBird;//in order to determine if the pipe has passed the bird, this boolean is required to ensure that the bird isn't given extra
 	//points once the pipe has moved behind where the bird is. 
+	
+	//returned by the sweeps when what they look for doesn't happen during the tick, so it's later than any time that does
+	static final double NEVER = Double.POSITIVE_INFINITY;
 
 	
 	/**
-	 * Constructor to create a pipe object
+	 * Constructor to create a pipe object. The pipe isn't placed anywhere until reset() is called.
 	 * 
 	 * @param windowWidth - width of the JFrame window in main class.
 	 * @param windowHeight - height of the JFrame window in main class.
-	 * @param groundHeight - height of the ground in the JFrame window in main class.
-	 * @param topPipe - image object containing the picture of top pipe
-	 * @param bottomPipe - image object containing the picture of the bottom pipe 
-	 * @throws IOException - throw exception if the file path was not found
+	 * @param pipeWidth - width of the pipe images in pixels
+	 * @param topPipeImageHeight - height of the top pipe image in pixels
 	 */
-	public Pipe(int windowWidth, int windowHeight, int groundHeight, File topPipePath, File bottomPipePath) throws IOException {
-		rand = new Random ();
-		this.topPipe = ImageIO.read(topPipePath);
-		this.bottomPipe = ImageIO.read(bottomPipePath);
+	public Pipe(int windowWidth, int windowHeight, int pipeWidth, int topPipeImageHeight) {
 		WINDOW_HEIGHT = windowHeight;
 		WINDOW_WIDTH = windowWidth;
-		PIPE_WIDTH = this.topPipe.getWidth();
-		PIPE_GAP = 130;//Arbitrarily choose a number of pixels to represent how far apart the pipes will be from each other.
-		
-		
-		/**
-		 * Here, we will choose a random height for the bottom pipe. The way we will go about altering the heights of the pipe is more involved than what is
-		 * expected. The pipe image we will read in will have a very large height, allowing a small portion of it to be printed onto the screen, with most of
-		 * it off of the screen. We can control how much of the pipe is printed on screen by determining how many pixels of the pipe we want to show onto the 
-		 * screen, with the minimum being enough to go slightly over the ground, and the max being the entire pipe height.
-		 */
-		bottomPipeHeight = random(groundHeight + 100, this.bottomPipe.getHeight());
+		PIPE_WIDTH = pipeWidth;
+		TOP_PIPE_IMAGE_HEIGHT = topPipeImageHeight;
+	}
+	
+	/**
+	 * Places the pipe just off the right side of the screen with a new height, as if it were a brand new pipe.
+	 * 
+	 * @param bottomPipeHeight - how many pixels of the bottom pipe show on the screen, usually picked by a Course
+	 * @param gap - how many pixels apart the top and bottom pipe are
+	 * @param speed - how many pixels the pipe moves left every tick
+	 */
+	public void reset(int bottomPipeHeight, int gap, int speed) {
+		this.bottomPipeHeight = bottomPipeHeight;
 		
 		/**
 		 * in order to determine what portion of the top pipe will be printed onto the screen, simply subtract the sum of the pipe gap and bottom pipe from the
 		 * window height. This works because the sum of the top pipe, bottom pipe and gap in between the pipes in pixels is equal to the height of the window
 		 * in the vanilla Flappy Bird game.
 		 */
-		topPipeHeight = WINDOW_HEIGHT - (bottomPipeHeight + PIPE_GAP);
+		topPipeHeight = WINDOW_HEIGHT - (bottomPipeHeight + gap);
 		
 		/**
 		 * When printing out an image in the drawImage() method, the top left corner of the image is considered the reference point by which the (x, y) coordinates
@@ -69,7 +67,7 @@ public class Pipe implements ImageObserver {
 		 * at negative of its height so the bottom of the pipe will be at y = 0. Afterwards, move it down by the value of "topPipeHeight" so it will be shown onto
 		 * the screen.
 		 */
-		topY = -this.topPipe.getHeight() + topPipeHeight;
+		topY = -TOP_PIPE_IMAGE_HEIGHT + topPipeHeight;
 		
 		/**
 		 * To find the proper y location to print out the bottom pipe, simply subtract the "height" of the pipe from the bottom of the window. So, if the "height"
@@ -83,21 +81,15 @@ public class Pipe implements ImageObserver {
 		 * be slightly larger than the width of the window, which will print the pipe to the right of the screen. When the pipe begins moving, it will then move
 		 * onto the screen.
 		 */
-		x = WINDOW_WIDTH - this.bottomPipe.getWidth();
+		x = WINDOW_WIDTH - PIPE_WIDTH;
+		previousX = x;
 		
-		//choose arbitrary value for how fast the pipe will move
-		xSpeed = 5;
+		xSpeed = speed;
 		
 		//set this boolean to false as the newly created pipe has not seen the bird yet.
 		passedBird = false;
-		
 	}
 
-	//random method simplified to take in a min and max value
-	private int random(int min, int max) {
-		return rand.nextInt((max - min) + 1) + min;
-	}
-	
 	/**
 	 * This method will check to see if a pipe object has passed the bird object. If true increase the bird's score, and set the boolean to true to ensure 
 	 * that the bird is not awarded anymore points
@@ -108,7 +100,7 @@ public class Pipe implements ImageObserver {
 		//if the x position of the pipe plus half its width is less than or equal to the x position of the bird, and the pipe has not seen the bird yet, set
 		//increase the birds score, and set the passedBird boolean to true. This is due to the fact the once the pipe has passed the bird, its x will always
 		//be less than that of the birds x, causing the first part of the if statement to always be true, thus it will always reward the bird points.
-		if(x + PIPE_WIDTH / 2 <= b.getX() && !passedBird) {
+		if(passes(x, PIPE_WIDTH, b.getX()) && !passedBird) {
 			b.increaseScore();
 			passedBird = true;
 		}
@@ -122,40 +114,190 @@ public class Pipe implements ImageObserver {
 	 * @return true or false depending on whether or not if the bird hit a pipe.
 	 */
 	public boolean pipeHitsBird(Bird b) {
+		return hits(b.getX(), b.getY(), b.getBirdWidth(), b.getBirdHeight(), x, PIPE_WIDTH, topPipeHeight, bottomY);
+	}
+	
+	/**
+	 * The continuous version of pipeHitsBird(): follows the bird and the pipe from where they were at the start of the last tick to where they are now,
+	 * and finds the first moment they touch, by the same rules.
+	 * 
+	 * @param b - the bird object, after it fell this tick
+	 * @return when during the tick the bird first touched the pipe, from 0 for the start to 1 for the end, or NEVER if it didn't
+	 */
+	public double timeOfImpact(Bird b) {
+		return timeOfImpact(b.getX(), b.getPreviousY(), b.getY(), b.getBirdWidth(), b.getBirdHeight(), previousX, x, PIPE_WIDTH, topPipeHeight, bottomY);
+	}
+	
+	/**
+	 * The scoring rule of pipeMeetsBird() on plain numbers: true once the middle of the pipe has reached the bird's x position.
+	 */
+	static boolean passes(int pipeX, int pipeWidth, int birdX) {
+		return pipeX + pipeWidth / 2 <= birdX;
+	}
+	
+	/**
+	 * The collision rules of pipeHitsBird() on plain numbers, so code simulating birds and pipes without objects uses exactly the same checks.
+	 */
+	static boolean hits(int birdX, int birdY, int birdWidth, int birdHeight, int pipeX, int pipeWidth, int topPipeHeight, int bottomY) {
 		
 		//checks to see if the bird hit the side of a pipe by measuring the distance between the pipe and the front of the bird, as well as whether or
 		//not if the bird is below the bottom pipe, or above the top pipe
-		if(Math.abs(b.getX() - x) <= b.getBirdWidth() && (b.getY() >= bottomY || b.getY() <= topPipeHeight)) 
+		if(Math.abs(birdX - pipeX) <= birdWidth && (birdY >= bottomY || birdY <= topPipeHeight)) 
 			return true;
 		
 		//checks to see if the bird landed on top of the bottom pipe or if hit it the bottom of the top pipe
-		else if((b.getX() >= x && b.getX() + b.getBirdWidth() <= x + PIPE_WIDTH) && (b.getY() + b.getBirdHeight() >= bottomY || b.getY() <= topPipeHeight)) 
+		else if((birdX >= pipeX && birdX + birdWidth <= pipeX + pipeWidth) && (birdY + birdHeight >= bottomY || birdY <= topPipeHeight)) 
 			return true;
 		return false;
 	}
 	
+	/**
+	 * The sweep of timeOfImpact() on plain numbers. The bird and the pipe both move in a straight line at a steady speed during the tick. Seen from
+	 * the pipe, that's the bird's top left corner moving along a line, and hits() is true exactly when that corner is inside one of four boxes (one
+	 * for each of its checks, against either pipe), so the first time the bird touches the pipe is the first time the line enters one of them. At the
+	 * end of the tick this gives exactly the same answer as hits().
+	 * 
+	 * @param birdY0 - the top of the bird at the start of the tick
+	 * @param birdY1 - the top of the bird at the end of the tick
+	 * @param pipeX0 - the pipe's x position at the start of the tick
+	 * @param pipeX1 - the pipe's x position at the end of the tick
+	 */
+	static double timeOfImpact(int birdX, int birdY0, int birdY1, int birdWidth, int birdHeight, int pipeX0, int pipeX1, int pipeWidth,
+			int topPipeHeight, int bottomY) {
+		int x0 = birdX - pipeX0, x1 = birdX - pipeX1;
+
+		//most pipes aren't anywhere near the bird, so skip the sweeps when it never gets inside the span of any of the boxes from left to right
+		if(Math.max(x0, x1) < -birdWidth || Math.min(x0, x1) > Math.max(birdWidth, pipeWidth - birdWidth))
+			return NEVER;
+
+		//the bird near the side of a pipe, above the bottom of the top pipe or with its top below the top of the bottom pipe
+		double time = sweep(x0, birdY0, x1, birdY1, -birdWidth, birdWidth, Integer.MIN_VALUE, topPipeHeight);
+		time = Math.min(time, sweep(x0, birdY0, x1, birdY1, -birdWidth, birdWidth, bottomY, Integer.MAX_VALUE));
+		
+		//the bird right over or under a pipe, touching the top pipe or landing on the bottom one
+		time = Math.min(time, sweep(x0, birdY0, x1, birdY1, 0, pipeWidth - birdWidth, Integer.MIN_VALUE, topPipeHeight));
+		return Math.min(time, sweep(x0, birdY0, x1, birdY1, 0, pipeWidth - birdWidth, bottomY - birdHeight, Integer.MAX_VALUE));
+	}
+	
+	/**
+	 * Finds when a point moving in a straight line first enters a box, edges included: the time it's inside the box's span on both axes at once.
+	 * 
+	 * @param x0 - where the point is at time 0
+	 * @param x1 - where the point is at time 1
+	 * @return when the point first enters the box, from 0 to 1 (0 if it starts inside), or NEVER if it doesn't
+	 */
+	static double sweep(int x0, int y0, int x1, int y1, int left, int right, int top, int bottom) {
+		if(left > right || top > bottom)
+			return NEVER;
+		//a line that stays to one side of the box can't enter it, and checking that first saves dividing for nearly every box
+		if(Math.max(x0, x1) < left || Math.min(x0, x1) > right || Math.max(y0, y1) < top || Math.min(y0, y1) > bottom)
+			return NEVER;
+		double enter = 0, exit = 1;
+		if(x0 != x1) {
+			double a = ((double)left - x0) / (x1 - x0), b = ((double)right - x0) / (x1 - x0);
+			enter = Math.max(enter, Math.min(a, b));
+			exit = Math.min(exit, Math.max(a, b));
+		}
+		if(y0 != y1) {
+			double a = ((double)top - y0) / (y1 - y0), b = ((double)bottom - y0) / (y1 - y0);
+			enter = Math.max(enter, Math.min(a, b));
+			exit = Math.min(exit, Math.max(a, b));
+		}
+		return enter <= exit ? enter : NEVER;
+	}
+	
+	/**
+	 * Changes how many pixels the pipe moves left every tick from the next movePipe() on. GameState speeds up every pipe on the screen at once.
+	 */
+	public void setSpeed(int speed) {
+		xSpeed = speed;
+	}
+	
 	//produce movement in the pipe by decreasing its x by the xSpeed, causing it to "move" from the right side of the screen to the left
 	public void movePipe() {
+		previousX = x;
 		x -= xSpeed;
 	}
 	
+	//keep the pipe where it is for a tick it doesn't move on, so getX(alpha) doesn't keep blending it between where it was and where it is
+	public void holdStill() {
+		previousX = x;
+	}
+	
+	/**
+	 * Moves the pipe back to where it was at some point during the last tick, for when the bird crashed into something partway through it. The
+	 * pipe stays there from then on, so it's drawn standing still.
+	 * 
+	 * @param time - how far through the tick, from 0 to 1
+	 */
+	public void stopAt(double time) {
+		x = previousX + (int)Math.round((x - previousX) * time);
+		previousX = x;
+	}
+	
 	public int getX() {
 		return x;
 	}
 	
+	//return the pipe's x position at the start of the last tick
+	public int getPreviousX() {
+		return previousX;
+	}
+	
 	public int getWidth() {
 		return PIPE_WIDTH;
 	}
 	
-	public void printPipe(Graphics g) {
-		g.drawImage(topPipe, x, topY, this);
-		g.drawImage(bottomPipe, x, bottomY, this);
+	//return the pipe's x position blended between the last tick and the current one
+	public int getX(double alpha) {
+		return (int)Math.round(previousX + (x - previousX) * alpha);
 	}
-
-	@Override
-	public boolean imageUpdate(Image img, int infoflags, int x, int y, int width, int height) {
-		// TODO Auto-generated method stub
-		return false;
+	
+	//return the y position to draw the top pipe image at
+	public int getTopY() {
+		return topY;
+	}
+	
+	//return the y position to draw the bottom pipe image at
+	public int getBottomY() {
+		return bottomY;
+	}
+	
+	//how many longs save() writes
+	static final int SNAPSHOT_SIZE = 8;
+	
+	/**
+	 * Writes everything about the pipe that changes while playing into a snapshot, as plain numbers. See GameState.save().
+	 * 
+	 * @return the position just after what was written
+	 */
+	int save(long[] snapshot, int at) {
+		snapshot[at] = x;
+		snapshot[at + 1] = previousX;
+		snapshot[at + 2] = topY;
+		snapshot[at + 3] = bottomY;
+		snapshot[at + 4] = xSpeed;
+		snapshot[at + 5] = bottomPipeHeight;
+		snapshot[at + 6] = topPipeHeight;
+		snapshot[at + 7] = passedBird ? 1 : 0;
+		return at + SNAPSHOT_SIZE;
+	}
+	
+	/**
+	 * Puts the pipe back the way save() found it.
+	 * 
+	 * @return the position just after what was read
+	 */
+	int restore(long[] snapshot, int at) {
+		x = (int)snapshot[at];
+		previousX = (int)snapshot[at + 1];
+		topY = (int)snapshot[at + 2];
+		bottomY = (int)snapshot[at + 3];
+		xSpeed = (int)snapshot[at + 4];
+		bottomPipeHeight = (int)snapshot[at + 5];
+		topPipeHeight = (int)snapshot[at + 6];
+		passedBird = snapshot[at + 7] != 0;
+		return at + SNAPSHOT_SIZE;
 	}
 	
 }
@@ -0,0 +1,127 @@
+package myFlappyBird;
+
+/**
+ * A fixed number of reusable pipes kept in a ring. Pipes always leave the screen in the same order they came in, so the live pipes are simply a run
+ * of slots starting at the oldest one: spawning a pipe hands out the slot just past the newest pipe, and removing the oldest pipe moves the start of
+ * the run forward. Every slot is made once when the ring is created and then reset in place every time it comes around again, so once the game is
+ * running, spawning and removing pipes never creates any objects. Looking up a pipe by its position is O(1), unlike the LinkedList this replaces.
+ */
+public class PipeRing {
+	private final Pipe[] slots;
+	private int first, size;
+
+	/**
+	 * @param capacity - the most pipes that can be alive at once
+	 * @param windowWidth - width of the game area, passed on to every pipe
+	 * @param windowHeight - height of the game area, passed on to every pipe
+	 * @param pipeWidth - width of the pipe images in pixels
+	 * @param topPipeImageHeight - height of the top pipe image in pixels
+	 */
+	public PipeRing(int capacity, int windowWidth, int windowHeight, int pipeWidth, int topPipeImageHeight) {
+		slots = new Pipe[capacity];
+		for(int i = 0; i < capacity; i++)
+			slots[i] = new Pipe(windowWidth, windowHeight, pipeWidth, topPipeImageHeight);
+	}
+
+	/**
+	 * Adds a pipe with the classic gap and speed to the end of the ring.
+	 *
+	 * @param bottomPipeHeight - how many pixels of the bottom pipe show on the screen
+	 * @return the pipe that was added
+	 */
+	public Pipe spawn(int bottomPipeHeight) {
+		return spawn(bottomPipeHeight, Pipe.PIPE_GAP, Pipe.SPEED);
+	}
+
+	/**
+	 * Adds a pipe to the end of the ring, reusing the slot of a pipe that was removed earlier.
+	 *
+	 * @param bottomPipeHeight - how many pixels of the bottom pipe show on the screen
+	 * @param gap - how many pixels apart the top and bottom pipe are
+	 * @param speed - how many pixels the pipe moves left every tick
+	 * @return the pipe that was added
+	 */
+	public Pipe spawn(int bottomPipeHeight, int gap, int speed) {
+		if(size == slots.length)
+			throw new IllegalStateException("All " + slots.length + " pipe slots are in use");
+		Pipe pipe = slots[(first + size) % slots.length];
+		pipe.reset(bottomPipeHeight, gap, speed);
+		size++;
+		return pipe;
+	}
+
+	/**
+	 * Removes the oldest pipe. Its slot will be reused by a later spawn().
+	 */
+	public void removeFirst() {
+		if(size == 0)
+			throw new IllegalStateException("There are no pipes to remove");
+		first = (first + 1) % slots.length;
+		size--;
+	}
+
+	/**
+	 * @param i - position of the pipe, 0 being the oldest
+	 * @return the pipe at that position
+	 */
+	public Pipe get(int i) {
+		if(i < 0 || i >= size)
+			throw new IndexOutOfBoundsException("Pipe " + i + " of " + size);
+		return slots[(first + i) % slots.length];
+	}
+
+	public Pipe getFirst() {
+		return get(0);
+	}
+
+	public void clear() {
+		first = 0;
+		size = 0;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public int getCapacity() {
+		return slots.length;
+	}
+
+	/**
+	 * @return the most longs save() can write for a ring of this size
+	 */
+	int snapshotSize() {
+		return 2 + slots.length * Pipe.SNAPSHOT_SIZE;
+	}
+
+	/**
+	 * Writes the live pipes into a snapshot, as plain numbers. See GameState.save(). Free slots aren't written, since spawn() sets every field of a
+	 * slot again before it's used.
+	 *
+	 * @return the position just after what was written
+	 */
+	int save(long[] snapshot, int at) {
+		snapshot[at++] = first;
+		snapshot[at++] = size;
+		for(int i = 0; i < size; i++)
+			at = get(i).save(snapshot, at);
+		return at;
+	}
+
+	/**
+	 * Puts the pipes back the way save() found them, in the same slots.
+	 *
+	 * @return the position just after what was read
+	 */
+	int restore(long[] snapshot, int at) {
+		first = (int)snapshot[at++];
+		size = (int)snapshot[at++];
+		for(int i = 0; i < size; i++)
+			at = get(i).restore(snapshot, at);
+		return at;
+	}
+}
@@ -0,0 +1,145 @@
+package myFlappyBird;
+
+/**
+ * Pixel perfect collisions between the bird and the pipes. The rectangle checks in Pipe.pipeHitsBird() are rough: they treat the bird as a box and
+ * mix up the height of the top pipe with where its image starts, so the bird can crash without visibly touching a pipe. This checks the actual solid
+ * pixels of the bird's current animation frame against the solid pixels of the pipe images, using the CollisionMasks made when the images were
+ * loaded.
+ *
+ * The bird can also tilt with its velocity (see Bird.getPose()). Then there is a mask for every frame turned to every pose's angle, made once ahead of
+ * time like the sprites drawn for it, on a canvas padded on every side so the turned bird fits, and the mask of the bird's current pose is the one
+ * checked. How many degrees apart the poses are is part of the rules, since it decides exactly which pixels the bird covers, so replays record it.
+ *
+ * Pixel checks are only done for pipes that are actually level with the bird. The pipes in a PipeRing are always in order from left to right, so the
+ * search skips the pipes the bird has already passed and stops at the first pipe that starts to the right of the bird, which leaves at most one or two
+ * pipes to check properly on any tick, however many pipes there are.
+ *
+ * timeOfImpact() is the continuous version, for games with swept collisions (see Pipe.timeOfImpact()). The boxes around the bird's mask and each
+ * pipe's mask are swept first, which says whether they can touch at all during the tick and from when. Only then are the masks checked, at every
+ * step of the tick where the bird or the pipe has moved by one more pixel, so however far they move in a tick, no pixel of one can jump over a pixel
+ * of the other.
+ */
+public class PixelCollision {
+	private final CollisionMask[][] birdPoses;
+	private final int angleStep, padding;
+	private final CollisionMask topPipe, bottomPipe;
+
+	/**
+	 * Collisions for a bird that doesn't tilt.
+	 *
+	 * @param birdFrames - the mask of every frame of the bird's animation, in the order the frames are played
+	 * @param topPipe - mask of the top pipe image
+	 * @param bottomPipe - mask of the bottom pipe image
+	 */
+	public PixelCollision(CollisionMask[] birdFrames, CollisionMask topPipe, CollisionMask bottomPipe) {
+		this(wrap(birdFrames), 0, 0, topPipe, bottomPipe);
+	}
+
+	/**
+	 * Collisions for a bird that tilts with its velocity.
+	 *
+	 * @param birdPoses - for every frame of the bird's animation, its mask turned to the angle of every pose
+	 * @param angleStep - how many degrees apart the poses are, or 0 if the bird doesn't tilt
+	 * @param padding - how much bigger than the bird the turned masks are on every side
+	 * @param topPipe - mask of the top pipe image
+	 * @param bottomPipe - mask of the bottom pipe image
+	 */
+	public PixelCollision(CollisionMask[][] birdPoses, int angleStep, int padding, CollisionMask topPipe, CollisionMask bottomPipe) {
+		this.birdPoses = birdPoses;
+		this.angleStep = angleStep;
+		this.padding = padding;
+		this.topPipe = topPipe;
+		this.bottomPipe = bottomPipe;
+	}
+
+	private static CollisionMask[][] wrap(CollisionMask[] birdFrames) {
+		CollisionMask[][] poses = new CollisionMask[birdFrames.length][];
+		for(int i = 0; i < poses.length; i++)
+			poses[i] = new CollisionMask[] {birdFrames[i]};
+		return poses;
+	}
+
+	/**
+	 * @param bird - the bird
+	 * @param pipes - every live pipe, oldest (leftmost) first
+	 * @return true if a solid pixel of the bird touches a solid pixel of any pipe
+	 */
+	public boolean hits(Bird bird, PipeRing pipes) {
+		CollisionMask birdMask = birdPoses[bird.getFrame()][bird.getPose(angleStep)];
+		int birdLeft = bird.getX() - padding, birdRight = birdLeft + birdMask.getWidth(), birdY = bird.getY() - padding;
+
+		for(int i = 0; i < pipes.size(); i++) {
+			Pipe pipe = pipes.get(i);
+			int pipeX = pipe.getX();
+
+			//this pipe is already behind the bird
+			if(pipeX + pipe.getWidth() <= birdLeft)
+				continue;
+
+			//this pipe, and every newer one after it, is still in front of the bird
+			if(pipeX >= birdRight)
+				break;
+
+			if(CollisionMask.overlaps(birdMask, birdLeft, birdY, topPipe, pipeX, pipe.getTopY())
+					|| CollisionMask.overlaps(birdMask, birdLeft, birdY, bottomPipe, pipeX, pipe.getBottomY()))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Follows the bird and the pipes from where they were at the start of the last tick to where they are now, with the bird's current mask.
+	 *
+	 * @param bird - the bird, after it fell this tick
+	 * @param pipes - every live pipe, oldest (leftmost) first, after they moved this tick
+	 * @return when during the tick a solid pixel of the bird first touched a solid pixel of any pipe, from 0 to 1, or Pipe.NEVER if none did. A time
+	 * of 1 means they touch where they are now, just like hits().
+	 */
+	public double timeOfImpact(Bird bird, PipeRing pipes) {
+		CollisionMask birdMask = birdPoses[bird.getFrame()][bird.getPose(angleStep)];
+		int birdLeft = bird.getX() - padding, birdRight = birdLeft + birdMask.getWidth();
+		int birdY0 = bird.getPreviousY() - padding, birdY1 = bird.getY() - padding;
+
+		double first = Pipe.NEVER;
+		for(int i = 0; i < pipes.size(); i++) {
+			Pipe pipe = pipes.get(i);
+			int pipeX0 = pipe.getPreviousX(), pipeX1 = pipe.getX();
+
+			//the same search as hits(), over everywhere the pipe was during the tick
+			if(Math.max(pipeX0, pipeX1) + pipe.getWidth() <= birdLeft)
+				continue;
+			if(Math.min(pipeX0, pipeX1) >= birdRight)
+				break;
+
+			first = Math.min(first, timeOfImpact(birdMask, birdLeft, birdY0, birdY1, topPipe, pipeX0, pipeX1, pipe.getTopY()));
+			first = Math.min(first, timeOfImpact(birdMask, birdLeft, birdY0, birdY1, bottomPipe, pipeX0, pipeX1, pipe.getBottomY()));
+		}
+		return first;
+	}
+
+	//one pipe image against the bird, stepping through the part of the tick their boxes overlap in, a pixel of movement at a time
+	private static double timeOfImpact(CollisionMask bird, int birdX, int birdY0, int birdY1, CollisionMask pipe, int pipeX0, int pipeX1, int pipeY) {
+		//seen from the pipe, the bird's corner moves along a line, and the boxes share a pixel while it's inside this box
+		double enter = Pipe.sweep(birdX - pipeX0, birdY0 - pipeY, birdX - pipeX1, birdY1 - pipeY, 1 - bird.getWidth(), pipe.getWidth() - 1,
+				1 - bird.getHeight(), pipe.getHeight() - 1);
+		if(enter == Pipe.NEVER)
+			return Pipe.NEVER;
+
+		//positions are rounded the same way Bird.stopAt() and Pipe.stopAt() round them, so a crash can be shown exactly where it was found
+		int steps = Math.max(1, Math.max(Math.abs(pipeX1 - pipeX0), Math.abs(birdY1 - birdY0)));
+		for(int step = (int)(enter * steps); step <= steps; step++) {
+			double time = (double)step / steps;
+			int pipeX = pipeX0 + (int)Math.round((pipeX1 - pipeX0) * time), birdY = birdY0 + (int)Math.round((birdY1 - birdY0) * time);
+			if(CollisionMask.overlaps(bird, birdX, birdY, pipe, pipeX, pipeY))
+				return time;
+		}
+		return Pipe.NEVER;
+	}
+
+	/**
+	 * @return how many degrees apart the bird's poses are, or 0 if it doesn't tilt
+	 */
+	public int getAngleStep() {
+		return angleStep;
+	}
+}
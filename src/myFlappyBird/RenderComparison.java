@@ -0,0 +1,36 @@
+package myFlappyBird;
+
+/**
+ * Small program that compares how long a frame takes to draw with the old passive repaint() path, with active rendering, and with dirty rectangles.
+ * It opens the game in each mode, lets it warm up for a second, and then averages the frame times the game records for the given number of seconds
+ * (10 by default). The passive number only covers our paint() method, since Swing copies its own back buffer to the screen afterwards where we can't
+ * time it, while the active and dirty numbers include getting the frame onto the screen. For dirty rectangles it also prints how much of the screen
+ * was redrawn per frame on average.
+ */
+public class RenderComparison {
+	private static final int WARM_UP_MILLIS = 1000;
+
+	public static void main(String args[]) throws Exception {
+		int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+
+		FrameRate passive = measure(FlappyBird.RenderMode.PASSIVE, seconds).getFrameRate();
+		FrameRate active = measure(FlappyBird.RenderMode.ACTIVE, seconds).getFrameRate();
+		FlappyBird dirtyGame = measure(FlappyBird.RenderMode.DIRTY, seconds);
+		FrameRate dirty = dirtyGame.getFrameRate();
+
+		System.out.printf("passive repaint(): %d frames, %.3f ms per frame%n", passive.getFrameTimeCount(), passive.getAverageFrameTime());
+		System.out.printf("active rendering:  %d frames, %.3f ms per frame%n", active.getFrameTimeCount(), active.getAverageFrameTime());
+		System.out.printf("dirty rectangles:  %d frames, %.3f ms per frame, %.1f%% of the screen redrawn per frame%n", dirty.getFrameTimeCount(),
+				dirty.getAverageFrameTime(), dirtyGame.getDirtyRenderer().getAverageCoverage() * 100);
+		System.exit(0);
+	}
+
+	private static FlappyBird measure(FlappyBird.RenderMode mode, int seconds) throws Exception {
+		FlappyBird game = new FlappyBird(mode);
+		Thread.sleep(WARM_UP_MILLIS);
+		game.getFrameRate().resetFrameTimes();
+		Thread.sleep(seconds * 1000L);
+		game.close();
+		return game;
+	}
+}
@@ -0,0 +1,219 @@
+package myFlappyBird;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * One recorded run of the game: the seed the pipe heights came from, the sizes of the sprites, and every tick the flap button was pressed on. Since
+ * GameState is fully decided by its seed and its input, that is all it takes to play the run again and end up in exactly the same state. The final
+ * score, high score and GameState.checksum() are saved too, so playing a replay back can prove it got the same result bit for bit.
+ *
+ * A replay is stored as a small fixed header followed by the flaps. Each flap is stored as the number of ticks since the flap before it, written 7
+ * bits per byte with the top bit meaning "another byte follows", so a flap a few ticks after the last one takes a single byte. Replays are written
+ * one after the other into the same file, so a file can hold a whole archive of runs:
+ *
+ * <pre>
+ * int    magic ("FBRP")
+ * byte   version
+ * byte   flags (1 = pixel perfect collisions, 2 = swept collisions)
+ * byte   degrees between the bird's poses, 0 if it doesn't tilt
+ * long   seed
+ * int[10] sizes, in the order the GameState constructor takes them
+ * long   ticks
+ * int    flap count
+ * int    final score, int high score, long checksum
+ * int    length of the flap bytes
+ * int    CRC32 of the flap bytes
+ * byte[] flaps
+ * </pre>
+ *
+ * Replay files are read through a memory mapped buffer, so opening a large archive doesn't copy it onto the heap: each Replay is only a view of its
+ * part of the file, and its flaps are decoded one at a time as it plays.
+ */
+public class Replay {
+	static final int MAGIC = 0x46425250, VERSION = 3;
+	static final int FLAG_PIXEL_COLLISION = 1, FLAG_SWEPT_COLLISION = 2;
+
+	private final int flags, angleStep;
+	private final long seed, ticks, checksum;
+	private final int[] sizes;
+	private final int flapCount, finalScore, highScore;
+	private final ByteBuffer flaps;
+
+	/**
+	 * Reads one replay from the buffer's current position, and leaves the position just after it.
+	 */
+	private Replay(ByteBuffer in) throws IOException {
+		try {
+			if(in.getInt() != MAGIC)
+				throw new IOException("Not a replay");
+			int version = in.get();
+			if(version != VERSION)
+				throw new IOException("Unknown replay version " + version);
+			flags = in.get();
+			angleStep = in.get() & 0xff;
+			seed = in.getLong();
+			sizes = new int[10];
+			for(int i = 0; i < sizes.length; i++)
+				sizes[i] = in.getInt();
+			ticks = in.getLong();
+			flapCount = in.getInt();
+			finalScore = in.getInt();
+			highScore = in.getInt();
+			checksum = in.getLong();
+			int length = in.getInt();
+			int crc = in.getInt();
+			flaps = in.slice(in.position(), length);
+			in.position(in.position() + length);
+
+			CRC32 check = new CRC32();
+			check.update(flaps.duplicate());
+			if((int)check.getValue() != crc)
+				throw new IOException("The replay's flaps are corrupt");
+		} catch(BufferUnderflowException | IndexOutOfBoundsException e) {
+			throw new IOException("The replay is cut short", e);
+		}
+	}
+
+	/**
+	 * Reads every replay in a file.
+	 *
+	 * @param file - a file written by ReplayRecorder.save()
+	 * @return the replays in the order they were saved
+	 * @throws IOException - thrown if the file can't be read or isn't a replay file
+	 */
+	public static List<Replay> load(Path file) throws IOException {
+		MappedByteBuffer buffer;
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		List<Replay> replays = new ArrayList<>();
+		while(buffer.hasRemaining())
+			replays.add(new Replay(buffer));
+		return replays;
+	}
+
+	/**
+	 * Makes a game just like the one that was recorded, waiting for its first tick, with the bird tilting and collisions checked the way they were. If
+	 * the recording used pixel perfect collisions, the sprites must have been loaded by Assets first. The difficulty is always Difficulty.CLASSIC,
+	 * the only one ReplayRecorder records.
+	 */
+	public GameState newGame() {
+		GameState game = new GameState(sizes[0], sizes[1], sizes[2], sizes[3], sizes[4], sizes[5], sizes[6], sizes[7], sizes[8], sizes[9],
+				GameState.pipesOnScreen(sizes[0]), seed);
+		if(usesPixelCollision())
+			game.setPixelCollision(GameRenderer.newPixelCollision(angleStep));
+		game.setSweptCollision(usesSweptCollision());
+		return game;
+	}
+
+	/**
+	 * @return a new playback of this replay, starting from the first tick
+	 */
+	public Playback play() {
+		return new Playback();
+	}
+
+	/**
+	 * @return true if the state a game ended in is the one this replay recorded
+	 */
+	public boolean matches(GameState game) {
+		return game.getBird().getScore() == finalScore && game.getHighScore() == highScore && game.checksum() == checksum;
+	}
+
+	public boolean usesPixelCollision() {
+		return (flags & FLAG_PIXEL_COLLISION) != 0;
+	}
+
+	/**
+	 * @return true if collisions were checked over the whole of each tick, false if only at the end of it (see GameState.setSweptCollision())
+	 */
+	public boolean usesSweptCollision() {
+		return (flags & FLAG_SWEPT_COLLISION) != 0;
+	}
+
+	/**
+	 * @return how many degrees apart the bird's poses were, or 0 if it didn't tilt
+	 */
+	public int getAngleStep() {
+		return angleStep;
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+
+	public long getTicks() {
+		return ticks;
+	}
+
+	public int getFlapCount() {
+		return flapCount;
+	}
+
+	public int getFinalScore() {
+		return finalScore;
+	}
+
+	public int getHighScore() {
+		return highScore;
+	}
+
+	/**
+	 * Hands out a replay's input one tick at a time. Only the next flap is decoded, so playing back never needs the whole list of flaps in memory.
+	 */
+	public class Playback {
+		private final ByteBuffer in = flaps.duplicate();
+		private long tick, nextFlap = -1;
+
+		private Playback() {
+			readNextFlap();
+		}
+
+		/**
+		 * @return true if the flap button was pressed on the next tick. Call once per tick.
+		 */
+		public boolean nextTick() {
+			boolean flap = tick == nextFlap;
+			if(flap)
+				readNextFlap();
+			tick++;
+			return flap;
+		}
+
+		/**
+		 * @return true once every recorded tick has been played
+		 */
+		public boolean isFinished() {
+			return tick >= ticks;
+		}
+
+		public long getTick() {
+			return tick;
+		}
+
+		//the gap to the next flap is a variable length number counted from the last flap (or from tick 0 for the first one)
+		private void readNextFlap() {
+			if(!in.hasRemaining()) {
+				nextFlap = -1;
+				return;
+			}
+			long gap = 0;
+			int shift = 0, b;
+			do {
+				b = in.get();
+				gap |= (long)(b & 0x7f) << shift;
+				shift += 7;
+			} while((b & 0x80) != 0);
+			nextFlap = (nextFlap < 0 ? 0 : nextFlap) + gap;
+		}
+	}
+}
@@ -0,0 +1,63 @@
+package myFlappyBird;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Plays replay files back with no window, as fast as the processor allows, and checks that every run ends in exactly the state it was recorded in.
+ * Prints one line per replay and exits with an error if any of them didn't match, so it can be used to make sure a change to the game didn't change
+ * how it plays.
+ *
+ * Usage: ReplayPlayer file...
+ */
+public class ReplayPlayer {
+	public static void main(String args[]) throws IOException {
+		if(args.length == 0) {
+			System.out.println("Usage: ReplayPlayer file...");
+			return;
+		}
+
+		int played = 0, mismatched = 0;
+		for(String name : args) {
+			Path file = Paths.get(name);
+			List<Replay> replays = Replay.load(file);
+			for(int i = 0; i < replays.size(); i++) {
+				Replay replay = replays.get(i);
+				//pixel perfect replays need the sprites' collision masks, but not a display. Loading again is free once they're loaded.
+				if(replay.usesPixelCollision())
+					Assets.load();
+
+				long start = System.nanoTime();
+				GameState game = play(replay);
+				double seconds = (System.nanoTime() - start) / 1e9;
+
+				boolean matches = replay.matches(game);
+				if(!matches)
+					mismatched++;
+				played++;
+				System.out.printf("%s #%d: %d ticks, %d flaps, score %d, high score %d, %s (%.0f ticks per second)%n", file.getFileName(), i,
+						replay.getTicks(), replay.getFlapCount(), game.getBird().getScore(), game.getHighScore(), matches ? "matches" : "DOES NOT MATCH",
+						replay.getTicks() / seconds);
+			}
+		}
+
+		System.out.printf("%d replays played, %d mismatched%n", played, mismatched);
+		if(mismatched > 0)
+			System.exit(1);
+	}
+
+	/**
+	 * Runs a replay from start to finish.
+	 *
+	 * @return the game in the state the replay left it in
+	 */
+	public static GameState play(Replay replay) {
+		GameState game = replay.newGame();
+		Replay.Playback playback = replay.play();
+		while(!playback.isFinished())
+			game.step(playback.nextTick());
+		return game;
+	}
+}
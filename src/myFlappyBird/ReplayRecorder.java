@@ -0,0 +1,102 @@
+package myFlappyBird;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * Records a game as it's played so it can be played again with Replay. Call tick() with the input of every tick, right after handing that same input
+ * to GameState.step(), and save() when the run is over. Only the ticks where the flap button was pressed are kept, packed into a growing byte array
+ * in the format described in Replay, so recording costs a few bytes per flap and nothing at all on the ticks in between.
+ *
+ * A replay only saves the seed and the sizes, and Replay always plays it back with Difficulty.CLASSIC, so only games with that difficulty can be
+ * recorded. A difficulty is code, not numbers, so there's nothing to save that would bring back any other one.
+ */
+public class ReplayRecorder {
+	private final GameState game;
+	private byte[] flaps = new byte[256];
+	private int length, flapCount;
+	private long tick, lastFlap;
+
+	/**
+	 * @param game - a game that hasn't been stepped yet
+	 * @throws IllegalArgumentException - thrown if the game's difficulty isn't Difficulty.CLASSIC, since its replay wouldn't play back the same
+	 */
+	public ReplayRecorder(GameState game) {
+		if(game.getDifficulty() != Difficulty.CLASSIC)
+			throw new IllegalArgumentException("Only games with Difficulty.CLASSIC can be recorded");
+		this.game = game;
+	}
+
+	/**
+	 * Records the input of one tick.
+	 *
+	 * @param flap - the same value that was passed to GameState.step() for this tick
+	 */
+	public void tick(boolean flap) {
+		if(flap) {
+			writeGap(tick - lastFlap);
+			lastFlap = tick;
+			flapCount++;
+		}
+		tick++;
+	}
+
+	//7 bits at a time, lowest first, with the top bit set on every byte but the last
+	private void writeGap(long gap) {
+		if(length + 10 > flaps.length)
+			flaps = Arrays.copyOf(flaps, flaps.length * 2);
+		while(gap >= 0x80) {
+			flaps[length++] = (byte)(gap | 0x80);
+			gap >>>= 7;
+		}
+		flaps[length++] = (byte)gap;
+	}
+
+	/**
+	 * Adds the run recorded so far to the end of a replay file, creating the file if it doesn't exist yet. The game's current state is saved as
+	 * the state the replay must end in.
+	 *
+	 * @param file - where to save the replay
+	 * @throws IOException - thrown if the file couldn't be written
+	 */
+	public void save(Path file) throws IOException {
+		CRC32 crc = new CRC32();
+		crc.update(flaps, 0, length);
+
+		ByteBuffer header = ByteBuffer.allocate(4 + 1 + 1 + 1 + 8 + 10 * 4 + 8 + 4 + 4 + 4 + 8 + 4 + 4);
+		header.putInt(Replay.MAGIC);
+		header.put((byte)Replay.VERSION);
+		header.put((byte)((game.hasPixelCollision() ? Replay.FLAG_PIXEL_COLLISION : 0) | (game.hasSweptCollision() ? Replay.FLAG_SWEPT_COLLISION : 0)));
+		header.put((byte)game.getBirdAngleStep());
+		header.putLong(game.getSeed());
+		for(int size : game.getSizes())
+			header.putInt(size);
+		header.putLong(tick);
+		header.putInt(flapCount);
+		header.putInt(game.getBird().getScore());
+		header.putInt(game.getHighScore());
+		header.putLong(game.checksum());
+		header.putInt(length);
+		header.putInt((int)crc.getValue());
+		header.flip();
+
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+			ByteBuffer[] parts = {header, ByteBuffer.wrap(flaps, 0, length)};
+			while(parts[0].hasRemaining() || parts[1].hasRemaining())
+				channel.write(parts);
+		}
+	}
+
+	public long getTicks() {
+		return tick;
+	}
+
+	public int getFlapCount() {
+		return flapCount;
+	}
+}
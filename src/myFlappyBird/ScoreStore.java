@@ -0,0 +1,338 @@
+package myFlappyBird;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Keeps every finished run on disk, so the high score survives the game being closed. Runs are appended to a log file as fixed size records:
+ *
+ * <pre>
+ * long timestamp   - when the run ended, in milliseconds since 1970
+ * long duration    - how long the run lasted, in milliseconds
+ * int  score
+ * int  CRC32 of the 20 bytes before it
+ * </pre>
+ *
+ * A record is only ever appended, never changed, so if the power goes out halfway through writing one, only that last record is damaged. When the
+ * store is opened, the log is read a block of records at a time, every record's checksum is checked, and anything after the last good record is
+ * cut off. A few million runs are only tens of megabytes, and reading them this way takes well under a second. The log isn't memory mapped: a file
+ * that's mapped can't be cut short or replaced on Windows until the mapping is garbage collected, and both happen to this one.
+ *
+ * While reading, the best runs are kept in a small index sorted by score, so the high score and the leaderboard are always ready in memory. Adding a
+ * run updates that index right away, but writing it to disk is handed to a background thread, so recording a run on the Swing thread never waits for
+ * the disk. Runs that pile up while the writer is busy are written together with one write and one sync. Once the log holds more than maxRuns
+ * records, that same thread compacts it: it writes the best runs and the newest half of the rest to a new file and swaps it in, so the log can't grow
+ * forever on a machine that's left running. The index knows each of its runs by where its record is in the log, so two runs with the same score
+ * that ended in the same millisecond are still two runs.
+ *
+ * Once the store is closed, the writer thread is gone, and a run recorded after that (the game loop can still be finishing one while the program
+ * shuts down) is written on the thread that records it instead.
+ */
+public class ScoreStore implements AutoCloseable {
+	private static final int RECORD_SIZE = 24;
+
+	//how many records are read from the log at a time
+	private static final int RECORDS_PER_READ = 4096;
+
+	private final Path file;
+	private final int maxRuns;
+	private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+		Thread thread = new Thread(r, "Score writer");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	//the best runs, best first, with the number of each one's record in the log. Guarded by this.
+	private final int[] topScores;
+	private final long[] topTimestamps, topDurations, topRecords;
+	private int topSize;
+
+	//records waiting for the writer thread, whether it has already been asked to write them, and the number the next run's record will have in the
+	//log. Guarded by this.
+	private ByteBuffer pending = ByteBuffer.allocate(RECORD_SIZE * 16);
+	private boolean flushQueued, closed;
+	private long nextRecord;
+
+	//held while the log is written or compacted, which is on the writer thread until the store is closed
+	private final Object diskLock = new Object();
+
+	//how many records the log holds. Guarded by diskLock.
+	private long runCount;
+
+	/**
+	 * Opens a score log, creating it if it doesn't exist, and reads the best runs out of it.
+	 *
+	 * @param file - the log file
+	 * @param topCount - how many of the best runs to keep in memory
+	 * @param maxRuns - how many records the log may hold before it's compacted
+	 * @throws IOException - thrown if the log can't be read or created
+	 */
+	public ScoreStore(Path file, int topCount, int maxRuns) throws IOException {
+		if(topCount < 1 || maxRuns < topCount * 2)
+			throw new IllegalArgumentException("Need at least 1 top run and room for twice as many runs, got " + topCount + " and " + maxRuns);
+		this.file = file;
+		this.maxRuns = maxRuns;
+		topScores = new int[topCount];
+		topTimestamps = new long[topCount];
+		topDurations = new long[topCount];
+		topRecords = new long[topCount];
+
+		if(file.getParent() != null)
+			Files.createDirectories(file.getParent());
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			long size = channel.size();
+			long good = 0;
+			ByteBuffer block = ByteBuffer.allocate(RECORD_SIZE * RECORDS_PER_READ);
+			CRC32 crc = new CRC32();
+			boolean damaged = false;
+			while(!damaged && good + RECORD_SIZE <= size) {
+				readBlock(channel, good, block);
+				for(int position = 0; position + RECORD_SIZE <= block.limit(); position += RECORD_SIZE) {
+					crc.reset();
+					crc.update(block.array(), position, RECORD_SIZE - 4);
+					if(block.getInt(position + RECORD_SIZE - 4) != (int)crc.getValue()) {
+						damaged = true;
+						break;
+					}
+					addToTop(block.getInt(position + 16), block.getLong(position), block.getLong(position + 8), good / RECORD_SIZE);
+					good += RECORD_SIZE;
+				}
+			}
+
+			//drop whatever was being written when the game last stopped, so new records start on a record boundary
+			if(good < size)
+				channel.truncate(good);
+			runCount = good / RECORD_SIZE;
+			nextRecord = runCount;
+		}
+	}
+
+	/**
+	 * Fills the buffer with as many whole records as there are from the given position on, up to its capacity, and flips it for reading.
+	 */
+	private static void readBlock(FileChannel channel, long position, ByteBuffer block) throws IOException {
+		block.clear();
+		long wanted = Math.min(block.capacity(), (channel.size() - position) / RECORD_SIZE * RECORD_SIZE);
+		block.limit((int)wanted);
+		while(block.hasRemaining()) {
+			if(channel.read(block, position + block.position()) < 0)
+				break;
+		}
+		block.flip();
+		block.limit(block.limit() / RECORD_SIZE * RECORD_SIZE);
+	}
+
+	/**
+	 * Adds a finished run. The high score and the leaderboard include it as soon as this returns; it reaches the disk shortly after, on the writer
+	 * thread. After close(), it's written before this returns.
+	 *
+	 * @param score - the run's score
+	 * @param durationMillis - how long the run lasted in milliseconds
+	 */
+	public void record(int score, long durationMillis) {
+		long timestamp = System.currentTimeMillis();
+		synchronized(this) {
+			addToTop(score, timestamp, durationMillis, nextRecord++);
+			if(!pending.hasRemaining()) {
+				ByteBuffer bigger = ByteBuffer.allocate(pending.capacity() * 2);
+				pending.flip();
+				pending = bigger.put(pending);
+			}
+			encode(pending, score, timestamp, durationMillis);
+			if(flushQueued)
+				return;
+			flushQueued = true;
+			//queued while the lock is held, so close() can't shut the writer down in between
+			if(!closed) {
+				writer.execute(this::flush);
+				return;
+			}
+		}
+		flush();
+	}
+
+	/**
+	 * Writes every record waiting in the queue to the end of the log. Called on the writer thread, or on the recording thread once the store is
+	 * closed.
+	 */
+	private void flush() {
+		synchronized(diskLock) {
+			ByteBuffer records;
+			synchronized(this) {
+				records = pending;
+				pending = ByteBuffer.allocate(RECORD_SIZE * 16);
+				flushQueued = false;
+			}
+			records.flip();
+			int count = records.remaining() / RECORD_SIZE;
+			boolean written = false;
+			try {
+				//written at the end of the last whole record rather than appended, so a write that failed halfway leaves nothing behind
+				try(FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+					long end = runCount * RECORD_SIZE;
+					while(records.hasRemaining())
+						end += channel.write(records, end);
+					channel.truncate(end);
+					channel.force(false);
+				}
+				//only runs that made it to the disk count towards compacting
+				runCount += count;
+				written = true;
+				if(runCount > maxRuns)
+					compact();
+			} catch(IOException e) {
+				System.err.println("Could not save the score to " + file + ": " + e);
+				if(written)
+					return;
+				//the runs that weren't written stay in the index, but no longer have a record, and the ones queued after them move down
+				synchronized(this) {
+					for(int i = 0; i < topSize; i++) {
+						if(topRecords[i] >= runCount + count)
+							topRecords[i] -= count;
+						else if(topRecords[i] >= runCount)
+							topRecords[i] = -1;
+					}
+					nextRecord -= count;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Rewrites the log with only the best runs and the newest half of the others. The new log is written next to the old one and then moved over
+	 * it, so a crash during compaction leaves one or the other whole. Only called from flush().
+	 */
+	private void compact() throws IOException {
+		long keepFrom = runCount - maxRuns / 2;
+		//the records of the best runs that are older than the newest half, in the order they're in the log
+		long[] topsBefore;
+		synchronized(this) {
+			topsBefore = Arrays.stream(topRecords, 0, topSize).filter(record -> record >= 0 && record < keepFrom).sorted().toArray();
+		}
+
+		Path compacted = file.resolveSibling(file.getFileName() + ".compact");
+		long kept = 0;
+		try(FileChannel in = FileChannel.open(file, StandardOpenOption.READ);
+				FileChannel out = FileChannel.open(compacted, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			//the best runs go first, unless they're among the newest ones that are kept anyway
+			ByteBuffer block = ByteBuffer.allocate(RECORD_SIZE * RECORDS_PER_READ);
+			for(long start = 0; start < keepFrom * RECORD_SIZE; start += block.limit()) {
+				readBlock(in, start, block);
+				block.limit((int)Math.min(block.limit(), keepFrom * RECORD_SIZE - start));
+				if(block.limit() == 0)
+					break;
+				for(int position = 0; position < block.limit(); position += RECORD_SIZE) {
+					if(Arrays.binarySearch(topsBefore, start / RECORD_SIZE + position / RECORD_SIZE) >= 0) {
+						ByteBuffer record = block.slice(position, RECORD_SIZE);
+						while(record.hasRemaining())
+							out.write(record);
+						kept++;
+					}
+				}
+			}
+
+			//then the newest runs, copied across as one block
+			for(long position = keepFrom * RECORD_SIZE; position < runCount * RECORD_SIZE; )
+				position += in.transferTo(position, runCount * RECORD_SIZE - position, out);
+			kept += runCount - keepFrom;
+			out.force(false);
+		}
+		Files.move(compacted, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+		//the best runs from before keepFrom are now at the start, in the order they were in, and everything from keepFrom on follows them
+		synchronized(this) {
+			for(int i = 0; i < topSize; i++) {
+				if(topRecords[i] >= keepFrom)
+					topRecords[i] += topsBefore.length - keepFrom;
+				else if(topRecords[i] >= 0)
+					topRecords[i] = Arrays.binarySearch(topsBefore, topRecords[i]);
+			}
+			nextRecord -= runCount - kept;
+		}
+		runCount = kept;
+	}
+
+	private static void encode(ByteBuffer out, int score, long timestamp, long durationMillis) {
+		int start = out.position();
+		out.putLong(timestamp).putLong(durationMillis).putInt(score);
+		CRC32 crc = new CRC32();
+		crc.update(out.array(), start, RECORD_SIZE - 4);
+		out.putInt((int)crc.getValue());
+	}
+
+	//slots the run into the sorted index if it beats the worst run there. Ties keep the older run first.
+	private void addToTop(int score, long timestamp, long durationMillis, long record) {
+		if(topSize == topScores.length && score <= topScores[topSize - 1])
+			return;
+		int i = Math.min(topSize, topScores.length - 1);
+		while(i > 0 && topScores[i - 1] < score) {
+			topScores[i] = topScores[i - 1];
+			topTimestamps[i] = topTimestamps[i - 1];
+			topDurations[i] = topDurations[i - 1];
+			topRecords[i] = topRecords[i - 1];
+			i--;
+		}
+		topScores[i] = score;
+		topTimestamps[i] = timestamp;
+		topDurations[i] = durationMillis;
+		topRecords[i] = record;
+		if(topSize < topScores.length)
+			topSize++;
+	}
+
+	/**
+	 * @return the best score ever recorded, or 0 if there are no runs yet
+	 */
+	public synchronized int getHighScore() {
+		return topSize == 0 ? 0 : topScores[0];
+	}
+
+	/**
+	 * @return how many of the best runs are in the leaderboard
+	 */
+	public synchronized int getTopCount() {
+		return topSize;
+	}
+
+	/**
+	 * @param rank - 0 for the best run
+	 */
+	public synchronized int getTopScore(int rank) {
+		return topScores[rank];
+	}
+
+	public synchronized long getTopTimestamp(int rank) {
+		return topTimestamps[rank];
+	}
+
+	public synchronized long getTopDuration(int rank) {
+		return topDurations[rank];
+	}
+
+	/**
+	 * Waits for every recorded run to reach the disk, then stops the writer thread. If the waiting is interrupted, the runs still waiting are left to
+	 * the writer thread and the interrupt is passed on. Runs recorded after this are written straight away by record().
+	 */
+	@Override
+	public void close() {
+		synchronized(this) {
+			closed = true;
+			writer.shutdown();
+		}
+		try {
+			writer.awaitTermination(10, TimeUnit.SECONDS);
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
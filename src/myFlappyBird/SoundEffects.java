@@ -0,0 +1,130 @@
+package myFlappyBird;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.SplittableRandom;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+/**
+ * Every sound effect of the game, decoded once into plain 16 bit samples in the format AudioMixer plays, so playing one is only a matter of copying
+ * numbers. Playing a javax.sound Clip per flap would open a line, allocate and wait on the sound system every time, which is slow to start and makes
+ * garbage.
+ *
+ * The effects are read from WAV files on the classpath next to this class (flap.wav, point.wav, hit.wav). The game doesn't ship with any yet, so
+ * any that are missing are made up instead: a quick rising chirp for a flap, two bright notes for a point, and a low thump for a crash.
+ */
+public class SoundEffects {
+	public static final int FLAP = 0, SCORE = 1, HIT = 2;
+
+	/**
+	 * What every effect is decoded to, and what the mixer plays: 44.1kHz, 16 bit signed, mono, little endian.
+	 */
+	public static final AudioFormat FORMAT = new AudioFormat(44100, 16, 1, true, false);
+
+	private static final String[] FILES = {"flap.wav", "point.wav", "hit.wav"};
+
+	private final short[][] samples = new short[FILES.length][];
+
+	private SoundEffects() {
+	}
+
+	/**
+	 * Decodes or makes every effect.
+	 *
+	 * @throws IOException - thrown if one of the files is there but can't be read or turned into FORMAT
+	 */
+	public static SoundEffects load() throws IOException {
+		SoundEffects effects = new SoundEffects();
+		for(int i = 0; i < FILES.length; i++) {
+			URL url = SoundEffects.class.getResource(FILES[i]);
+			effects.samples[i] = url != null ? decode(url) : synthesize(i);
+		}
+		return effects;
+	}
+
+	/**
+	 * @param effect - FLAP, SCORE or HIT
+	 * @return the samples of the effect, shared, so they must not be changed
+	 */
+	public short[] get(int effect) {
+		return samples[effect];
+	}
+
+	/**
+	 * @return how many effects there are
+	 */
+	public int size() {
+		return samples.length;
+	}
+
+	private static short[] decode(URL url) throws IOException {
+		try(AudioInputStream file = AudioSystem.getAudioInputStream(url); AudioInputStream pcm = AudioSystem.getAudioInputStream(FORMAT, file)) {
+			byte[] bytes = readAll(pcm);
+			short[] samples = new short[bytes.length / 2];
+			for(int i = 0; i < samples.length; i++)
+				samples[i] = (short)((bytes[i * 2] & 0xff) | (bytes[i * 2 + 1] << 8));
+			return samples;
+		} catch(UnsupportedAudioFileException | IllegalArgumentException e) {
+			throw new IOException("Could not decode " + url + " into " + FORMAT, e);
+		}
+	}
+
+	private static byte[] readAll(InputStream in) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		int read;
+		while((read = in.read(buffer)) > 0)
+			out.write(buffer, 0, read);
+		return out.toByteArray();
+	}
+
+	//the made up effects. Each is a sine wave (or noise) whose pitch and loudness change over its length.
+	private static short[] synthesize(int effect) {
+		int rate = (int)FORMAT.getSampleRate();
+		SplittableRandom noise = new SplittableRandom(effect);
+		short[] samples;
+		double phase = 0;
+		switch(effect) {
+		case FLAP:
+			//a chirp from 400Hz up to 900Hz, fading out over 90ms
+			samples = new short[rate * 90 / 1000];
+			for(int i = 0; i < samples.length; i++) {
+				double t = (double)i / samples.length;
+				phase += 2 * Math.PI * (400 + 500 * t) / rate;
+				samples[i] = sample(Math.sin(phase) * (1 - t) * 0.5);
+			}
+			break;
+		case SCORE:
+			//two notes, B5 then E6, the second one ringing out
+			samples = new short[rate * 250 / 1000];
+			int second = rate * 70 / 1000;
+			for(int i = 0; i < samples.length; i++) {
+				boolean high = i >= second;
+				double t = high ? (double)(i - second) / (samples.length - second) : (double)i / second;
+				phase += 2 * Math.PI * (high ? 1318.5 : 987.8) / rate;
+				samples[i] = sample(Math.sin(phase) * (high ? 1 - t : 1 - t * 0.3) * 0.4);
+			}
+			break;
+		default:
+			//a low thump with some noise on top, dying away over 250ms
+			samples = new short[rate * 250 / 1000];
+			for(int i = 0; i < samples.length; i++) {
+				double t = (double)i / samples.length;
+				phase += 2 * Math.PI * (140 - 80 * t) / rate;
+				double decay = (1 - t) * (1 - t);
+				samples[i] = sample((Math.sin(phase) * 0.6 + (noise.nextDouble() * 2 - 1) * 0.3 * decay) * decay);
+			}
+		}
+		return samples;
+	}
+
+	private static short sample(double value) {
+		return (short)Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, Math.round(value * Short.MAX_VALUE)));
+	}
+}
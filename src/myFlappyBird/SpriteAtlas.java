@@ -0,0 +1,173 @@
+package myFlappyBird;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Many sprites packed into one image, so a whole frame can be drawn by copying parts of that single image instead of switching between a dozen. On
+ * the OpenGL and XRender pipelines every image is a texture of its own, and changing textures between draws is one of the slower things they do;
+ * with an atlas every draw comes from the same texture, and only one image has to be uploaded to the graphics card when it's first used or lost.
+ *
+ * Sprites are added to a Builder, which hands out a number for each, and packed when build() is called. Drawing a sprite is then a drawImage() of
+ * just its part of the atlas. The sprites are packed in rows ("shelves"), tallest first, with a pixel of empty space around each one so nothing bleeds
+ * over from its neighbours if the atlas is ever drawn filtered.
+ *
+ * The atlas has to be see-through for sprites like the bird, but a sprite with no see-through pixels at all (like the ground) is drawn as a plain copy
+ * instead of being blended, which Java2D does several times faster, and gives exactly the same pixels.
+ */
+public class SpriteAtlas {
+	private static final int PADDING = 1;
+
+	private final BufferedImage image;
+	private final int[] x, y, width, height;
+	private final boolean[] opaque;
+
+	/**
+	 * Collects the sprites for an atlas.
+	 */
+	public static class Builder {
+		private final List<BufferedImage> sprites = new ArrayList<BufferedImage>();
+
+		/**
+		 * @param sprite - an image to put in the atlas. It's copied when build() is called.
+		 * @return the number to draw it with
+		 */
+		public int add(BufferedImage sprite) {
+			sprites.add(sprite);
+			return sprites.size() - 1;
+		}
+
+		/**
+		 * Adds a band of rows of an image as a sprite of its own.
+		 *
+		 * @return the number to draw it with
+		 */
+		public int add(BufferedImage sprite, int top, int rows) {
+			return add(sprite.getSubimage(0, top, sprite.getWidth(), rows));
+		}
+
+		public SpriteAtlas build() {
+			return new SpriteAtlas(sprites);
+		}
+	}
+
+	private SpriteAtlas(List<BufferedImage> sprites) {
+		int count = sprites.size();
+		x = new int[count];
+		y = new int[count];
+		width = new int[count];
+		height = new int[count];
+		opaque = new boolean[count];
+
+		//tallest first, so each shelf wastes as little height as possible
+		Integer[] order = new Integer[count];
+		long area = 0;
+		int widest = 1;
+		for(int i = 0; i < count; i++) {
+			order[i] = i;
+			width[i] = sprites.get(i).getWidth();
+			height[i] = sprites.get(i).getHeight();
+			area += (long)(width[i] + PADDING * 2) * (height[i] + PADDING * 2);
+			widest = Math.max(widest, width[i] + PADDING * 2);
+			opaque[i] = isOpaque(sprites.get(i));
+		}
+		Arrays.sort(order, (a, b) -> height[b] - height[a]);
+
+		//aim for a roughly square atlas, but never narrower than the widest sprite
+		int atlasWidth = Math.max(widest, (int)Math.ceil(Math.sqrt(area)));
+		int shelfX = 0, shelfY = 0, shelfHeight = 0;
+		for(int i : order) {
+			int w = width[i] + PADDING * 2, h = height[i] + PADDING * 2;
+			if(shelfX + w > atlasWidth) {
+				shelfY += shelfHeight;
+				shelfX = 0;
+				shelfHeight = 0;
+			}
+			x[i] = shelfX + PADDING;
+			y[i] = shelfY + PADDING;
+			shelfX += w;
+			shelfHeight = Math.max(shelfHeight, h);
+		}
+
+		image = Assets.createImage(atlasWidth, Math.max(1, shelfY + shelfHeight), Transparency.TRANSLUCENT);
+		Graphics2D g = image.createGraphics();
+		g.setComposite(AlphaComposite.Src);
+		for(int i = 0; i < count; i++)
+			g.drawImage(sprites.get(i), x[i], y[i], null);
+		g.dispose();
+	}
+
+	private static boolean isOpaque(BufferedImage sprite) {
+		if(sprite.getTransparency() == Transparency.OPAQUE)
+			return true;
+		int[] row = new int[sprite.getWidth()];
+		for(int j = 0; j < sprite.getHeight(); j++) {
+			sprite.getRGB(0, j, row.length, 1, row, 0, row.length);
+			for(int pixel : row) {
+				if(pixel >>> 24 != 0xff)
+					return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Draws a sprite with its top left corner at x, y.
+	 */
+	public void draw(Graphics g, int sprite, int dx, int dy) {
+		draw(g, sprite, dx, dy, 0, 0, width[sprite], height[sprite]);
+	}
+
+	/**
+	 * Draws part of a sprite, without touching the pixels around it. Drawing only the part that's on the screen saves copying the rest.
+	 *
+	 * @param left - left edge of the part, inside the sprite
+	 * @param top - top edge of the part, inside the sprite
+	 */
+	public void draw(Graphics g, int sprite, int dx, int dy, int left, int top, int w, int h) {
+		if(w <= 0 || h <= 0)
+			return;
+		int sx = x[sprite] + left, sy = y[sprite] + top;
+
+		//copy opaque sprites rather than blending them, unless whoever is drawing asked for some other kind of blending
+		if(opaque[sprite] && g instanceof Graphics2D && AlphaComposite.SrcOver.equals(((Graphics2D)g).getComposite())) {
+			Graphics2D g2 = (Graphics2D)g;
+			g2.setComposite(AlphaComposite.Src);
+			g2.drawImage(image, dx, dy, dx + w, dy + h, sx, sy, sx + w, sy + h, null);
+			g2.setComposite(AlphaComposite.SrcOver);
+		}
+		else
+			g.drawImage(image, dx, dy, dx + w, dy + h, sx, sy, sx + w, sy + h, null);
+	}
+
+	/**
+	 * Fills a column of the given height with copies of a sprite, one below the other, cutting the last one short. Meant for sprites that repeat
+	 * seamlessly, like the body of a pipe.
+	 */
+	public void drawTiled(Graphics g, int sprite, int dx, int dy, int h) {
+		int tile = height[sprite];
+		for(int top = 0; top < h; top += tile)
+			draw(g, sprite, dx, dy + top, 0, 0, width[sprite], Math.min(tile, h - top));
+	}
+
+	public int getWidth(int sprite) {
+		return width[sprite];
+	}
+
+	public int getHeight(int sprite) {
+		return height[sprite];
+	}
+
+	/**
+	 * @return the packed image, shared, so it must only ever be drawn
+	 */
+	public BufferedImage getImage() {
+		return image;
+	}
+}
@@ -0,0 +1,99 @@
+package myFlappyBird;
+
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Copies of the game's sprites resized to other sizes, for drawing the game bigger or smaller than the images were made. Resizing an image well takes
+ * far too long to do while drawing, so each size is made once and kept here. A big window on a high resolution screen needs big copies (the sky alone
+ * is several megabytes at 4K), so the cache only keeps up to a set number of bytes of them, and throws away the ones used longest ago to make room.
+ * Dragging the window back and forth between a few sizes then only resizes each image once per size.
+ *
+ * The copies are shared the same way Assets shares the originals, so callers must only ever draw them, never draw into them.
+ */
+public class SpriteCache {
+	private final long maxBytes;
+
+	//in order of last use, oldest first
+	private final LinkedHashMap<String, BufferedImage> images = new LinkedHashMap<String, BufferedImage>(16, 0.75f, true);
+	private long bytes;
+	private int hits, misses, evictions;
+
+	/**
+	 * @param maxBytes - how much memory the resized images may take up in total
+	 */
+	public SpriteCache(long maxBytes) {
+		this.maxBytes = maxBytes;
+	}
+
+	/**
+	 * Returns one of the images from Assets resized to the given size, resizing it now if it isn't in the cache. That can take a while for big
+	 * images, so it shouldn't be called while drawing a frame.
+	 *
+	 * @param name - file name of the image, one of the constants in Assets
+	 * @param width - width to resize it to
+	 * @param height - height to resize it to
+	 * @return the resized image
+	 */
+	public BufferedImage get(String name, int width, int height) {
+		BufferedImage original = Assets.get(name);
+		if(original.getWidth() == width && original.getHeight() == height)
+			return original;
+
+		String key = name + '@' + width + 'x' + height;
+		synchronized(this) {
+			BufferedImage image = images.get(key);
+			if(image != null) {
+				hits++;
+				return image;
+			}
+			misses++;
+		}
+
+		//resize without holding the lock, so a big image doesn't hold up anyone asking for a small one
+		BufferedImage image = Assets.scale(original, width, height);
+		synchronized(this) {
+			BufferedImage previous = images.put(key, image);
+			if(previous != null)
+				bytes -= bytes(previous);
+			bytes += bytes(image);
+			evict();
+		}
+		return image;
+	}
+
+	//throws away the least recently used images until everything fits again. The image just added is never thrown away, even if it alone is too big.
+	private void evict() {
+		Iterator<Map.Entry<String, BufferedImage>> entries = images.entrySet().iterator();
+		while(bytes > maxBytes && images.size() > 1) {
+			bytes -= bytes(entries.next().getValue());
+			entries.remove();
+			evictions++;
+		}
+	}
+
+	private static long bytes(BufferedImage image) {
+		return (long)image.getWidth() * image.getHeight() * 4;
+	}
+
+	/**
+	 * @return how many bytes the cached images take up
+	 */
+	public synchronized long getBytes() {
+		return bytes;
+	}
+
+	public synchronized int getHits() {
+		return hits;
+	}
+
+	public synchronized int getMisses() {
+		return misses;
+	}
+
+	public synchronized int getEvictions() {
+		return evictions;
+	}
+}
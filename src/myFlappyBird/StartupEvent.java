@@ -0,0 +1,34 @@
+package myFlappyBird;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * A Java Flight Recorder event sent once, when the first frame of the game has been drawn, with how long it took to get there. Comparing these
+ * between versions shows if startup got slower.
+ */
+@Name("myFlappyBird.Startup")
+@Label("Startup")
+@Category("Flappy Bird")
+@Description("Time from launching the program until the first frame of the game was on the screen")
+@StackTrace(false)
+public class StartupEvent extends jdk.jfr.Event {
+	@Label("Time To First Frame")
+	@Description("From the JVM starting until the first frame was shown")
+	@Timespan(Timespan.MILLISECONDS)
+	long timeToFirstFrame;
+
+	@Label("Window To First Frame")
+	@Description("From the game window being made until the first frame was shown")
+	@Timespan(Timespan.NANOSECONDS)
+	long windowToFirstFrame;
+
+	@Label("Asset Load Time")
+	@Description("Time spent decoding the images, which happens while the window is being set up")
+	@Timespan(Timespan.NANOSECONDS)
+	long assetLoadTime;
+}
@@ -0,0 +1,322 @@
+package myFlappyBird;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Trains autopilots for the game with neuroevolution. Every bird in the population gets a tiny neural network that looks at where the bird is, how
+ * fast it's moving and where the next gap is, and decides each tick whether to flap. A whole generation plays the same course at once, the birds
+ * that got the furthest are kept, and the rest of the next generation is made from mutated copies of them.
+ *
+ * To make it possible to simulate thousands of birds, nothing here uses Bird or Pipe objects. Every bird is a slot in a few primitive arrays and
+ * the pipes of the course are computed straight from the tick number, but the falling, scoring and collision rules are the very same static methods
+ * that Bird and Pipe use, so a trained network plays the real game. The birds of a generation are split into chunks that are simulated on every
+ * core with fork-join. Since every bird only depends on its own network and the course, and all the random numbers are drawn on one thread in a
+ * fixed order, the same seed always gives the same results no matter how many threads are used.
+ */
+public class Trainer {
+	//the inputs are the bird's height, its velocity, how far away the next pipe is and how far the bird is from the middle of the gap
+	private static final int INPUTS = 4, HIDDEN = 6;
+	static final int WEIGHTS = (INPUTS + 1) * HIDDEN + HIDDEN + 1;
+
+	//how many birds one fork-join task simulates before it stops splitting
+	private static final int CHUNK = 64;
+	private static final double ELITE_FRACTION = 0.1, MUTATION_RATE = 0.2, MUTATION_STRENGTH = 0.4;
+	private static final int POINTS_PER_PIPE = 1000;
+	private static final double FLAP_FORCE = -20;
+
+	private final int width, height, groundHeight, birdWidth, birdHeight, pipeWidth, bottomPipeImageHeight, maxTicks, population;
+	private final long seed;
+	private final ForkJoinPool pool;
+	private final Random random;
+	private double[] weights, nextWeights;
+	private final int[] scores, ticksAlive;
+	private final Integer[] ranking;
+	private int[] pipeTopHeight, pipeBottomY;
+	private int generation;
+
+	/**
+	 * @param population - how many birds are in each generation
+	 * @param maxTicks - the most ticks a generation is allowed to play, so a perfect bird can't run forever
+	 * @param seed - seed for the first networks, every course and every mutation
+	 * @param threads - how many threads simulate the birds
+	 */
+	public Trainer(int population, int maxTicks, long seed, int threads) {
+		this(population, maxTicks, seed, threads, HeadlessGame.WIDTH, HeadlessGame.HEIGHT, HeadlessGame.GROUND_HEIGHT, HeadlessGame.BIRD_WIDTH,
+				HeadlessGame.BIRD_HEIGHT, HeadlessGame.PIPE_WIDTH, HeadlessGame.PIPE_IMAGE_HEIGHT);
+	}
+
+	/**
+	 * @param width - width of the game area, as in GameState
+	 * @param height - height of the game area
+	 * @param groundHeight - height of the ground image
+	 * @param birdWidth - width of the bird sprite
+	 * @param birdHeight - height of the bird sprite
+	 * @param pipeWidth - width of the pipe images
+	 * @param bottomPipeImageHeight - height of the bottom pipe image
+	 */
+	public Trainer(int population, int maxTicks, long seed, int threads, int width, int height, int groundHeight, int birdWidth, int birdHeight,
+			int pipeWidth, int bottomPipeImageHeight) {
+		this.population = population;
+		this.maxTicks = maxTicks;
+		this.seed = seed;
+		this.width = width;
+		this.height = height;
+		this.groundHeight = groundHeight;
+		this.birdWidth = birdWidth;
+		this.birdHeight = birdHeight;
+		this.pipeWidth = pipeWidth;
+		this.bottomPipeImageHeight = bottomPipeImageHeight;
+		pool = new ForkJoinPool(threads);
+		random = new Random(seed);
+		weights = new double[population * WEIGHTS];
+		nextWeights = new double[population * WEIGHTS];
+		scores = new int[population];
+		ticksAlive = new int[population];
+		ranking = new Integer[population];
+		for(int i = 0; i < weights.length; i++)
+			weights[i] = random.nextGaussian();
+	}
+
+	public static void main(String args[]) {
+		int population = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+		int generations = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+		long seed = args.length > 2 ? Long.parseLong(args[2]) : 1;
+		int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+		Trainer trainer = new Trainer(population, 20000, seed, threads);
+		for(int i = 0; i < generations; i++) {
+			long start = System.nanoTime();
+			trainer.runGeneration();
+			double seconds = (System.nanoTime() - start) / 1e9;
+			System.out.printf("generation %d: best score %d, mean score %.2f, %d bird-ticks in %.3f s = %.0f bird-ticks per second%n", i,
+					trainer.getBestScore(), trainer.getMeanScore(), trainer.getBirdTicks(), seconds, trainer.getBirdTicks() / seconds);
+			trainer.evolve();
+		}
+		trainer.shutdown();
+	}
+
+	/**
+	 * Plays the current generation on a fresh course, filling in the score and ticks survived of every bird.
+	 */
+	public void runGeneration() {
+		makeCourse(mix(seed + generation));
+		pool.invoke(new Evaluate(0, population));
+	}
+
+	/**
+	 * Replaces the current generation with the next one. The best birds are copied over unchanged and every other bird is a mutated copy of one
+	 * of them.
+	 */
+	public void evolve() {
+		for(int i = 0; i < population; i++)
+			ranking[i] = i;
+		//sort is stable, so birds with the same fitness stay in index order and the result never depends on timing
+		Arrays.sort(ranking, (a, b) -> Long.compare(fitness(b), fitness(a)));
+
+		int elites = Math.max(1, (int)(population * ELITE_FRACTION));
+		for(int i = 0; i < population; i++) {
+			int parent = i < elites ? ranking[i] : ranking[random.nextInt(elites)];
+			System.arraycopy(weights, parent * WEIGHTS, nextWeights, i * WEIGHTS, WEIGHTS);
+			if(i >= elites) {
+				for(int w = i * WEIGHTS; w < (i + 1) * WEIGHTS; w++) {
+					if(random.nextDouble() < MUTATION_RATE)
+						nextWeights[w] += random.nextGaussian() * MUTATION_STRENGTH;
+				}
+			}
+		}
+
+		double[] swap = weights;
+		weights = nextWeights;
+		nextWeights = swap;
+		generation++;
+	}
+
+	public void shutdown() {
+		pool.shutdown();
+	}
+
+	private long fitness(int bird) {
+		return (long)scores[bird] * POINTS_PER_PIPE + ticksAlive[bird];
+	}
+
+	/**
+	 * Looks up every pipe that can appear in this generation from a Course, the same way GameState does. The birds play the classic difficulty,
+	 * since working out where every pipe is from the tick number relies on the pipes all moving at the same speed and coming at the same rate.
+	 */
+	private void makeCourse(long courseSeed) {
+		int pipes = maxTicks / GameState.PIPE_SPAWN_TICKS + 2;
+		pipeTopHeight = new int[pipes];
+		pipeBottomY = new int[pipes];
+		Course course = new Course(courseSeed, groundHeight, bottomPipeImageHeight, Difficulty.CLASSIC);
+		for(int k = 0; k < pipes; k++) {
+			int bottomPipeHeight = course.bottomPipeHeight(k);
+			pipeTopHeight[k] = height - (bottomPipeHeight + Difficulty.CLASSIC.gap(k));
+			pipeBottomY[k] = height - bottomPipeHeight;
+		}
+	}
+
+	/**
+	 * Simulates the birds from first up to (not including) last for a whole generation, one tick at a time for all of them.
+	 *
+	 * This follows GameState.step() exactly, with its default swept collisions: the first tick is the press that starts the game, the bird falls,
+	 * hitting the ground ends the game before any pipe scores, the pipes that got past the bird by the end of the last tick score, and every pipe on
+	 * screen moves and is swept for the earliest moment the bird touched it. Pipe number k appears at tick k * PIPE_SPAWN_TICKS, just like GameState adds one
+	 * every PIPE_SPAWN_TICKS ticks, so its x position on any tick can be worked out without simulating it.
+	 */
+	private void simulate(int first, int last) {
+		int count = last - first;
+		int[] y = new int[count], nextPipeToScore = new int[count];
+		double[] velocity = new double[count];
+		boolean[] alive = new boolean[count];
+		double[] hidden = new double[HIDDEN];
+
+		int birdX = width / 2, groundY = height - groundHeight, spawnX = width + width / 2 - pipeWidth;
+		for(int b = 0; b < count; b++) {
+			y[b] = height / 2;
+			alive[b] = true;
+			scores[first + b] = 0;
+			ticksAlive[first + b] = 0;
+		}
+
+		int living = count, firstPipe = 0;
+		for(int t = 0; t < maxTicks && living > 0; t++) {
+			int lastPipe = t / GameState.PIPE_SPAWN_TICKS;
+
+			//pipes that went off the left side of the screen can't be hit or scored anymore
+			while(spawnX - Pipe.SPEED * (t - firstPipe * GameState.PIPE_SPAWN_TICKS) <= -pipeWidth)
+				firstPipe++;
+
+			for(int b = 0; b < count; b++) {
+				if(!alive[b])
+					continue;
+
+				double acceleration = (t == 0 || decide(first + b, t, y[b], velocity[b], firstPipe, lastPipe, birdX, spawnX, hidden)) ? FLAP_FORCE : 0;
+				int previousY = y[b];
+				velocity[b] = Bird.nextVelocity(velocity[b], acceleration);
+				y[b] += (int)velocity[b];
+				if(y[b] + birdHeight >= groundY) {
+					y[b] = groundY - birdHeight;
+					velocity[b] = 0;
+				}else if(y[b] <= 0)
+					y[b] = 0;
+				ticksAlive[first + b]++;
+				if(y[b] + birdHeight >= groundY) {
+					alive[b] = false;
+					living--;
+					continue;
+				}
+
+				//x is where a pipe was at the start of this tick, and it's moved by the end of it
+				for(int k = nextPipeToScore[b]; k <= lastPipe; k++) {
+					if(!Pipe.passes(spawnX - Pipe.SPEED * (t - k * GameState.PIPE_SPAWN_TICKS), pipeWidth, birdX))
+						break;
+					scores[first + b]++;
+					nextPipeToScore[b]++;
+				}
+				double impact = Pipe.NEVER;
+				for(int k = firstPipe; k <= lastPipe; k++) {
+					int x = spawnX - Pipe.SPEED * (t - k * GameState.PIPE_SPAWN_TICKS);
+					impact = Math.min(impact, Pipe.timeOfImpact(birdX, previousY, y[b], birdWidth, birdHeight, x, x - Pipe.SPEED, pipeWidth,
+							pipeTopHeight[k], pipeBottomY[k]));
+				}
+				if(impact != Pipe.NEVER) {
+					alive[b] = false;
+					living--;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Runs a bird's network on what it can see this tick.
+	 *
+	 * @return true if the bird wants to flap
+	 */
+	private boolean decide(int bird, int t, int y, double velocity, int firstPipe, int lastPipe, int birdX, int spawnX, double[] hidden) {
+		//the next pipe is the first one whose right edge hasn't gone past the bird yet
+		int next = firstPipe, pipeX = 0;
+		for(; next <= lastPipe; next++) {
+			pipeX = spawnX - Pipe.SPEED * (t - next * GameState.PIPE_SPAWN_TICKS);
+			if(pipeX + pipeWidth >= birdX)
+				break;
+		}
+		double gapMiddle = next <= lastPipe ? (pipeTopHeight[next] + pipeBottomY[next]) / 2.0 : height / 2.0;
+		double distance = next <= lastPipe ? pipeX - birdX : width;
+
+		double in0 = (double)y / height, in1 = velocity / 20, in2 = distance / width, in3 = (y + birdHeight / 2 - gapMiddle) / height;
+		int w = bird * WEIGHTS;
+		for(int h = 0; h < HIDDEN; h++, w += INPUTS + 1)
+			hidden[h] = Math.tanh(weights[w] * in0 + weights[w + 1] * in1 + weights[w + 2] * in2 + weights[w + 3] * in3 + weights[w + 4]);
+
+		double output = weights[w + HIDDEN];
+		for(int h = 0; h < HIDDEN; h++)
+			output += weights[w + h] * hidden[h];
+		return output > 0;
+	}
+
+	//scrambles a seed so that nearby seeds (like one per generation) give unrelated courses
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
+	public int getBestScore() {
+		int best = 0;
+		for(int score : scores)
+			best = Math.max(best, score);
+		return best;
+	}
+
+	public double getMeanScore() {
+		long total = 0;
+		for(int score : scores)
+			total += score;
+		return (double)total / population;
+	}
+
+	/**
+	 * @return how many ticks were simulated for all birds together in the last generation
+	 */
+	public long getBirdTicks() {
+		long total = 0;
+		for(int ticks : ticksAlive)
+			total += ticks;
+		return total;
+	}
+
+	/**
+	 * @return a copy of the network weights of one bird in the current generation
+	 */
+	public double[] getWeights(int bird) {
+		return Arrays.copyOfRange(weights, bird * WEIGHTS, (bird + 1) * WEIGHTS);
+	}
+
+	public int getGeneration() {
+		return generation;
+	}
+
+	//splits the population in half until the pieces are small enough to simulate on one thread
+	@SuppressWarnings("serial")
+	private class Evaluate extends RecursiveAction {
+		private final int first, last;
+
+		Evaluate(int first, int last) {
+			this.first = first;
+			this.last = last;
+		}
+
+		@Override
+		protected void compute() {
+			if(last - first <= CHUNK) {
+				simulate(first, last);
+				return;
+			}
+			int middle = (first + last) >>> 1;
+			invokeAll(new Evaluate(first, middle), new Evaluate(middle, last));
+		}
+	}
+}